@@ -0,0 +1,33 @@
+package com.mycompany.furniplanner.command;
+
+import com.mycompany.furniplanner.model.Furniture;
+import com.mycompany.furniplanner.model.Room;
+
+// Adds a piece to a room. Undo detaches it, so the piece keeps its own data for redo.
+public class AddFurnitureCommand implements Command {
+    // A detached piece owns a single-slot store; this roughly covers it and the view
+    static final long FURNITURE_SIZE = 640;
+    
+    private final Room room;
+    private final Furniture furniture;
+    
+    public AddFurnitureCommand(Room room, Furniture furniture) {
+        this.room = room;
+        this.furniture = furniture;
+    }
+    
+    @Override
+    public void execute() {
+        room.addFurniture(furniture);
+    }
+    
+    @Override
+    public void undo() {
+        room.removeFurniture(furniture);
+    }
+    
+    @Override
+    public long estimateSize() {
+        return FURNITURE_SIZE;
+    }
+}
@@ -0,0 +1,17 @@
+package com.mycompany.furniplanner.command;
+
+// A reversible edit. Commands store only what they change, never a copy of the room.
+public interface Command {
+    void execute();
+    
+    void undo();
+    
+    // Approximate heap footprint in bytes, used to cap the history size
+    long estimateSize();
+    
+    // Folds a command that directly follows this one into it, e.g. the steps of one drag.
+    // Returns false if the two have to stay separate history entries.
+    default boolean mergeWith(Command next) {
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+package com.mycompany.furniplanner.command;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// Undo/redo stacks with a memory cap. Undo and redo move one command between the
+// stacks, so their cost does not depend on the size of the plan. Once the recorded
+// commands exceed the cap the oldest undo entries are dropped.
+public class CommandHistory {
+    public static final long DEFAULT_MEMORY_LIMIT = 1024 * 1024; // 1 MB
+    
+    // Newest command is the last element of each deque
+    private final ArrayDeque<Command> undoStack = new ArrayDeque<>();
+    private final ArrayDeque<Command> redoStack = new ArrayDeque<>();
+    private final List<Runnable> listeners = new ArrayList<>();
+    private long memoryLimit;
+    private long undoBytes;
+    private long redoBytes;
+    
+    // True while the next command may be merged into the top of the undo stack
+    private boolean mergeOpen;
+    
+    public CommandHistory() {
+        this(DEFAULT_MEMORY_LIMIT);
+    }
+    
+    public CommandHistory(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+    
+    // Runs a command and records it. Pending redo entries are discarded.
+    public void execute(Command command) {
+        command.execute();
+        
+        redoStack.clear();
+        redoBytes = 0;
+        
+        Command top = undoStack.peekLast();
+        long topSize = top != null ? top.estimateSize() : 0;
+        if (mergeOpen && top != null && top.mergeWith(command)) {
+            // A merge can grow the top command, e.g. successive import chunks
+            undoBytes += top.estimateSize() - topSize;
+            evict();
+            fireChanged();
+            return;
+        }
+        
+        undoStack.addLast(command);
+        undoBytes += command.estimateSize();
+        mergeOpen = true;
+        evict();
+        fireChanged();
+    }
+    
+    // Ends the current merge run, e.g. when a drag is released
+    public void endMerge() {
+        mergeOpen = false;
+    }
+    
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+    
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+    
+    public boolean undo() {
+        Command command = undoStack.pollLast();
+        if (command == null) {
+            return false;
+        }
+        
+        command.undo();
+        long size = command.estimateSize();
+        undoBytes -= size;
+        redoStack.addLast(command);
+        redoBytes += size;
+        mergeOpen = false;
+        evict();
+        fireChanged();
+        return true;
+    }
+    
+    public boolean redo() {
+        Command command = redoStack.pollLast();
+        if (command == null) {
+            return false;
+        }
+        
+        command.execute();
+        long size = command.estimateSize();
+        redoBytes -= size;
+        undoStack.addLast(command);
+        undoBytes += size;
+        mergeOpen = false;
+        fireChanged();
+        return true;
+    }
+    
+    public void clear() {
+        undoStack.clear();
+        redoStack.clear();
+        undoBytes = 0;
+        redoBytes = 0;
+        mergeOpen = false;
+        fireChanged();
+    }
+    
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+    
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+        evict();
+        fireChanged();
+    }
+    
+    public long getMemoryUsage() {
+        return undoBytes + redoBytes;
+    }
+    
+    public int getUndoCount() {
+        return undoStack.size();
+    }
+    
+    public int getRedoCount() {
+        return redoStack.size();
+    }
+    
+    // Called after every change to the stacks, e.g. to update menu items
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+    
+    private void evict() {
+        // Oldest undo entries go first, the newest one is always kept
+        while (undoBytes + redoBytes > memoryLimit && undoStack.size() > 1) {
+            undoBytes -= undoStack.pollFirst().estimateSize();
+        }
+        // Then the redo entries furthest from the current state
+        while (undoBytes + redoBytes > memoryLimit && !redoStack.isEmpty()) {
+            redoBytes -= redoStack.pollFirst().estimateSize();
+        }
+    }
+    
+    private void fireChanged() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
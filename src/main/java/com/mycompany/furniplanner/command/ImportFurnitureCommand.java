@@ -0,0 +1,44 @@
+package com.mycompany.furniplanner.command;
+
+import com.mycompany.furniplanner.model.Furniture;
+import com.mycompany.furniplanner.model.Room;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Adds one chunk of an import. Later chunks of the same import merge into it,
+// so the whole import is undone in one step.
+public class ImportFurnitureCommand implements Command {
+    private final Room room;
+    private final List<Furniture> pieces;
+    
+    public ImportFurnitureCommand(Room room, List<Furniture> pieces) {
+        this.room = room;
+        this.pieces = new ArrayList<>(pieces);
+    }
+    
+    @Override
+    public void execute() {
+        room.addFurniture(pieces);
+    }
+    
+    @Override
+    public void undo() {
+        room.removeFurniture(pieces);
+    }
+    
+    @Override
+    public long estimateSize() {
+        return AddFurnitureCommand.FURNITURE_SIZE * pieces.size();
+    }
+    
+    @Override
+    public boolean mergeWith(Command next) {
+        // The next chunk has already been added; it only needs to be remembered here
+        if (next instanceof ImportFurnitureCommand chunk && chunk.room == room) {
+            pieces.addAll(chunk.pieces);
+            return true;
+        }
+        return false;
+    }
+}
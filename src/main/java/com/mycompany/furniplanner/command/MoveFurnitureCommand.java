@@ -0,0 +1,47 @@
+package com.mycompany.furniplanner.command;
+
+import com.mycompany.furniplanner.model.Furniture;
+
+// Moves one piece between two positions
+public class MoveFurnitureCommand implements Command {
+    private final Furniture furniture;
+    private final double fromX, fromY, fromZ;
+    private double toX, toY, toZ;
+    
+    public MoveFurnitureCommand(Furniture furniture, double toX, double toY, double toZ) {
+        this.furniture = furniture;
+        this.fromX = furniture.getX();
+        this.fromY = furniture.getY();
+        this.fromZ = furniture.getZ();
+        this.toX = toX;
+        this.toY = toY;
+        this.toZ = toZ;
+    }
+    
+    @Override
+    public void execute() {
+        furniture.setPosition(toX, toY, toZ);
+    }
+    
+    @Override
+    public void undo() {
+        furniture.setPosition(fromX, fromY, fromZ);
+    }
+    
+    @Override
+    public long estimateSize() {
+        return 72; // header, one reference and six doubles
+    }
+    
+    @Override
+    public boolean mergeWith(Command next) {
+        // Consecutive moves of the same piece collapse into one from-to pair
+        if (next instanceof MoveFurnitureCommand move && move.furniture == furniture) {
+            toX = move.toX;
+            toY = move.toY;
+            toZ = move.toZ;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package com.mycompany.furniplanner.command;
+
+import com.mycompany.furniplanner.model.Furniture;
+import com.mycompany.furniplanner.model.Room;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Removes one or more pieces from a room; undo puts the same pieces back
+public class RemoveFurnitureCommand implements Command {
+    private final Room room;
+    private final List<Furniture> pieces;
+    
+    public RemoveFurnitureCommand(Room room, Furniture... pieces) {
+        this.room = room;
+        this.pieces = Arrays.asList(pieces);
+    }
+    
+    @Override
+    public void execute() {
+        room.removeFurniture(pieces);
+    }
+    
+    @Override
+    public void undo() {
+        room.addFurniture(pieces);
+    }
+    
+    @Override
+    public long estimateSize() {
+        return AddFurnitureCommand.FURNITURE_SIZE * pieces.size();
+    }
+}
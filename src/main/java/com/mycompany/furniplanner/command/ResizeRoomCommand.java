@@ -0,0 +1,41 @@
+package com.mycompany.furniplanner.command;
+
+import com.mycompany.furniplanner.model.Room;
+
+// Changes the room dimensions
+public class ResizeRoomCommand implements Command {
+    private final Room room;
+    private final int fromWidth, fromLength, fromHeight;
+    private final int toWidth, toLength, toHeight;
+    
+    public ResizeRoomCommand(Room room, int width, int length, int height) {
+        this.room = room;
+        this.fromWidth = room.getWidth();
+        this.fromLength = room.getLength();
+        this.fromHeight = room.getHeight();
+        this.toWidth = width;
+        this.toLength = length;
+        this.toHeight = height;
+    }
+    
+    @Override
+    public void execute() {
+        apply(toWidth, toLength, toHeight);
+    }
+    
+    @Override
+    public void undo() {
+        apply(fromWidth, fromLength, fromHeight);
+    }
+    
+    private void apply(int width, int length, int height) {
+        room.setWidth(width);
+        room.setLength(length);
+        room.setHeight(height);
+    }
+    
+    @Override
+    public long estimateSize() {
+        return 48;
+    }
+}
@@ -0,0 +1,29 @@
+package com.mycompany.furniplanner.command;
+
+import com.mycompany.furniplanner.model.Furniture;
+
+// Rotates one piece around the Y axis
+public class RotateFurnitureCommand implements Command {
+    private final Furniture furniture;
+    private final double degrees;
+    
+    public RotateFurnitureCommand(Furniture furniture, double degrees) {
+        this.furniture = furniture;
+        this.degrees = degrees;
+    }
+    
+    @Override
+    public void execute() {
+        furniture.rotate(degrees);
+    }
+    
+    @Override
+    public void undo() {
+        furniture.rotate(-degrees);
+    }
+    
+    @Override
+    public long estimateSize() {
+        return 32;
+    }
+}
@@ -0,0 +1,81 @@
+package com.mycompany.furniplanner.command;
+
+import com.mycompany.furniplanner.model.Furniture;
+import com.mycompany.furniplanner.model.FurnitureStore;
+import com.mycompany.furniplanner.model.Vector3D;
+
+import java.util.Arrays;
+
+// Sets position and Y rotation for a group of pieces in one step. The before and
+// after values are packed four doubles per piece: x, y, z and rotation Y.
+public class TransformFurnitureCommand implements Command {
+    public static final int STRIDE = 4;
+    
+    private final FurnitureStore store;
+    private final Furniture[] pieces;
+    private final double[] from;
+    private double[] to;
+    
+    // to holds the target values in the layout above and is owned by the command
+    public TransformFurnitureCommand(FurnitureStore store, Furniture[] pieces, double[] to) {
+        this.store = store;
+        this.pieces = pieces;
+        this.from = capture(pieces);
+        this.to = to;
+    }
+    
+    // Current values of the pieces in the command's layout
+    public static double[] capture(Furniture[] pieces) {
+        double[] values = new double[pieces.length * STRIDE];
+        for (int i = 0; i < pieces.length; i++) {
+            Furniture furniture = pieces[i];
+            int base = i * STRIDE;
+            values[base] = furniture.getX();
+            values[base + 1] = furniture.getY();
+            values[base + 2] = furniture.getZ();
+            values[base + 3] = furniture.getRotation().getY();
+        }
+        return values;
+    }
+    
+    @Override
+    public void execute() {
+        apply(to);
+    }
+    
+    @Override
+    public void undo() {
+        apply(from);
+    }
+    
+    private void apply(double[] values) {
+        store.runBatch(() -> {
+            for (int i = 0; i < pieces.length; i++) {
+                Furniture furniture = pieces[i];
+                int base = i * STRIDE;
+                furniture.setPosition(values[base], values[base + 1], values[base + 2]);
+                
+                Vector3D rotation = furniture.getRotation();
+                if (rotation.getY() != values[base + 3]) {
+                    furniture.setRotation(new Vector3D(rotation.getX(), values[base + 3], rotation.getZ()));
+                }
+            }
+        });
+    }
+    
+    @Override
+    public long estimateSize() {
+        // Header and fields, then the piece references and both value arrays
+        return 48 + pieces.length * (8 + 2 * STRIDE * 8);
+    }
+    
+    @Override
+    public boolean mergeWith(Command next) {
+        // Successive steps of one group drag collapse into a single entry
+        if (next instanceof TransformFurnitureCommand transform && Arrays.equals(transform.pieces, pieces)) {
+            to = transform.to;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+package com.mycompany.furniplanner.controller;
+
+import com.mycompany.furniplanner.event.SceneEventBus;
+
+import javax.swing.Timer;
+
+// Moves the camera to a new view over a short time instead of jumping there. A Swing
+// timer ticks once per frame on the event thread, and each tick places the camera by
+// the time elapsed rather than the number of ticks, so slow frames skip ahead instead
+// of stretching the transition. Input during a transition is added on top of it.
+public class CameraAnimator {
+    public static final long DURATION_MILLIS = 450;
+    
+    private final CameraController camera;
+    private final Timer timer;
+    
+    // Rotation X, rotation Y, zoom and target x, y, z at the start and end of the transition
+    private final double[] from = new double[6];
+    private final double[] to = new double[6];
+    private long startNanos;
+    
+    CameraAnimator(CameraController camera) {
+        this.camera = camera;
+        this.timer = new Timer((int) SceneEventBus.FRAME_MILLIS, e -> tick());
+        timer.setCoalesce(true); // Ticks missed while a frame was slow are dropped, not queued
+    }
+    
+    void start(double rotationX, double rotationY, double zoom, double targetX, double targetY, double targetZ) {
+        from[0] = camera.getRotationX();
+        from[1] = camera.getRotationY();
+        from[2] = camera.getZoom();
+        from[3] = camera.getTargetX();
+        from[4] = camera.getTargetY();
+        from[5] = camera.getTargetZ();
+        to[0] = rotationX;
+        to[1] = from[1] + Math.IEEEremainder(rotationY - from[1], 2 * Math.PI); // Turn the short way round
+        to[2] = zoom;
+        to[3] = targetX;
+        to[4] = targetY;
+        to[5] = targetZ;
+        startNanos = System.nanoTime();
+        timer.restart();
+    }
+    
+    // Carries input made during a transition through to its end. Input is clamped against
+    // the view part way through, so pitch and zoom are clamped again at both ends.
+    void shift(double rotationX, double rotationY, double zoom, double targetX, double targetY, double targetZ) {
+        if (!timer.isRunning()) {
+            return;
+        }
+        from[0] += rotationX;
+        from[1] += rotationY;
+        from[2] += zoom;
+        from[3] += targetX;
+        from[4] += targetY;
+        from[5] += targetZ;
+        to[0] += rotationX;
+        to[1] += rotationY;
+        to[2] += zoom;
+        to[3] += targetX;
+        to[4] += targetY;
+        to[5] += targetZ;
+        clamp(0, -CameraController.MAX_PITCH, CameraController.MAX_PITCH);
+        clamp(2, CameraController.MIN_ZOOM, CameraController.MAX_ZOOM);
+    }
+    
+    private void clamp(int i, double min, double max) {
+        from[i] = Math.max(min, Math.min(max, from[i]));
+        to[i] = Math.max(min, Math.min(max, to[i]));
+    }
+    
+    // Stops the transition, leaving the camera where it is
+    public void cancel() {
+        timer.stop();
+    }
+    
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+    
+    private void tick() {
+        double progress = Math.min(1, (System.nanoTime() - startNanos) / (DURATION_MILLIS * 1e6));
+        if (progress >= 1) {
+            timer.stop();
+            camera.setCamera(to[0], to[1], to[2], to[3], to[4], to[5]);
+            return;
+        }
+        double eased = ease(progress);
+        camera.setCamera(from[0] + (to[0] - from[0]) * eased,
+                         from[1] + (to[1] - from[1]) * eased,
+                         from[2] + (to[2] - from[2]) * eased,
+                         from[3] + (to[3] - from[3]) * eased,
+                         from[4] + (to[4] - from[4]) * eased,
+                         from[5] + (to[5] - from[5]) * eased);
+    }
+    
+    // Cubic ease-in-out: starts and ends at rest
+    static double ease(double t) {
+        return t < 0.5 ? 4 * t * t * t : 1 - Math.pow(-2 * t + 2, 3) / 2;
+    }
+}
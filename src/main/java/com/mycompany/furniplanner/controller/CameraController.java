@@ -1,22 +1,56 @@
 package com.mycompany.furniplanner.controller;
 
+import com.mycompany.furniplanner.event.SceneEvent;
+import com.mycompany.furniplanner.event.SceneEventBus;
+import com.mycompany.furniplanner.render.Projection;
+
+// Look-at camera: the eye orbits a target point on the floor plan at a fixed distance,
+// turned by yaw and pitch; zoom scales the image. Panning moves the target.
 public class CameraController {
+    // Pitch stops short of straight up or down, where the view would flip
+    static final double MAX_PITCH = Math.PI / 2 - 0.1;
+    static final double MIN_ZOOM = 0.1;
+    static final double MAX_ZOOM = 2.0;
+    
     private double rotationX; // in radians (pitch)
     private double rotationY; // in radians (yaw)
     private double zoom;
     private boolean rotateMode;
     
     // Camera position
+    private double targetX;
+    private double targetY;
+    private double targetZ;
     private double cameraDistance;
-    private double cameraHeight;
+    private double focalLength; // pixels at zoom 1, see setFieldOfView
+    
+    // Projection for the current camera, rebuilt on the first request after a change
+    private Projection projection;
+    private boolean projectionStale = true;
+    
+    private SceneEventBus eventBus;
+    
+    // Preset views are reached through a short transition
+    private final CameraAnimator animator = new CameraAnimator(this);
     
     public CameraController() {
         this.rotationX = Math.PI / 6; // 30 degrees
         this.rotationY = Math.PI / 4; // 45 degrees
         this.zoom = 0.5;
         this.rotateMode = false;
-        this.cameraDistance = 800;
-        this.cameraHeight = 400;
+        this.cameraDistance = Projection.DEFAULT_DISTANCE;
+        this.focalLength = Projection.DEFAULT_FOCAL_LENGTH;
+    }
+    
+    public void setEventBus(SceneEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+    
+    private void changed() {
+        projectionStale = true;
+        if (eventBus != null) {
+            eventBus.post(new SceneEvent.CameraChanged());
+        }
     }
     
     public double getRotationX() {
@@ -43,69 +77,153 @@ public class CameraController {
         return cameraDistance;
     }
     
-    public double getCameraHeight() {
-        return cameraHeight;
+    public void setCameraDistance(double cameraDistance) {
+        this.cameraDistance = Math.max(100, cameraDistance);
+        changed();
+    }
+    
+    public double getTargetX() {
+        return targetX;
+    }
+    
+    public double getTargetY() {
+        return targetY;
+    }
+    
+    public double getTargetZ() {
+        return targetZ;
+    }
+    
+    // Vertical field of view in degrees, measured across 800 pixels at zoom 1 so the
+    // scene keeps its scale when the window is resized
+    public double getFieldOfView() {
+        return Math.toDegrees(2 * Math.atan(400 / focalLength));
+    }
+    
+    public void setFieldOfView(double degrees) {
+        double clamped = Math.max(10, Math.min(120, degrees));
+        focalLength = 400 / Math.tan(Math.toRadians(clamped) / 2);
+        changed();
+    }
+    
+    // Shared by everything drawn for the current camera; rebuilt once per change
+    public Projection getProjection(int viewportWidth, int viewportHeight) {
+        if (projectionStale || projection == null || projection.getViewportWidth() != viewportWidth
+                || projection.getViewportHeight() != viewportHeight) {
+            projection = new Projection(rotationX, rotationY, zoom, targetX, targetY, targetZ,
+                                        cameraDistance, focalLength, viewportWidth, viewportHeight);
+            projectionStale = false;
+        }
+        return projection;
+    }
+    
+    public boolean isAnimating() {
+        return animator.isRunning();
+    }
+    
+    public void stopAnimation() {
+        animator.cancel();
+    }
+    
+    // Eases from the current view to the given one; input meanwhile is added on top
+    public void animateTo(double rotationX, double rotationY, double zoom) {
+        animator.start(rotationX, rotationY, zoom, targetX, targetY, targetZ);
+    }
+    
+    // Eases the target to a new point, keeping the angle and zoom
+    public void lookAt(double x, double y, double z) {
+        animator.start(rotationX, rotationY, zoom, x, y, z);
+    }
+    
+    // Places the camera directly; used by the animator for each frame
+    void setCamera(double rotationX, double rotationY, double zoom, double targetX, double targetY, double targetZ) {
+        this.rotationX = rotationX;
+        this.rotationY = rotationY;
+        this.zoom = zoom;
+        this.targetX = targetX;
+        this.targetY = targetY;
+        this.targetZ = targetZ;
+        changed();
     }
     
     public void rotateCamera(double dx, double dy) {
+        double oldX = rotationX;
+        double oldY = rotationY;
         rotationY += Math.toRadians(dx);
         rotationX += Math.toRadians(dy);
         
         // Clamp rotation X to avoid flipping
-        rotationX = Math.max(-Math.PI/2 + 0.1, Math.min(Math.PI/2 - 0.1, rotationX));
+        rotationX = Math.max(-MAX_PITCH, Math.min(MAX_PITCH, rotationX));
+        animator.shift(rotationX - oldX, rotationY - oldY, 0, 0, 0, 0);
+        changed();
     }
     
     public void zoom(int steps) {
+        double oldZoom = zoom;
+        
         // Adjust zoom level
         zoom += steps * -0.05; // Invert for more intuitive zoom
         
         // Limit zoom range
-        if (zoom < 0.1) {
-            zoom = 0.1;
-        } else if (zoom > 2.0) {
-            zoom = 2.0;
+        if (zoom < MIN_ZOOM) {
+            zoom = MIN_ZOOM;
+        } else if (zoom > MAX_ZOOM) {
+            zoom = MAX_ZOOM;
         }
+        animator.shift(0, 0, zoom - oldZoom, 0, 0, 0);
+        changed();
     }
     
     public void resetCamera() {
-        rotationX = Math.PI / 6;
-        rotationY = Math.PI / 4;
-        zoom = 0.5;
+        animator.start(Math.PI / 6, Math.PI / 4, 0.5, 0, 0, 0);
     }
     
     public void setTopView() {
-        rotationX = -Math.PI / 2 + 0.1; // Slightly offset to avoid rendering issues
-        rotationY = 0;
-        zoom = 0.7;
+        animateTo(-MAX_PITCH, 0, 0.7); // Slightly offset to avoid rendering issues
     }
     
     public void setFrontView() {
-        rotationX = 0;
-        rotationY = 0;
-        zoom = 0.7;
+        animateTo(0, 0, 0.7);
     }
     
     public void setSideView() {
-        rotationX = 0;
-        rotationY = Math.PI / 2;
-        zoom = 0.7;
+        animateTo(0, Math.PI / 2, 0.7);
     }
     
     // Add orbit camera controls
     public void orbitCamera(double deltaX, double deltaY) {
+        double oldX = rotationX;
+        double oldY = rotationY;
         rotationY += deltaX * 0.01;
         rotationX += deltaY * 0.01;
         
         // Limit vertical rotation
-        if (rotationX > Math.PI / 2 - 0.1) {
-            rotationX = Math.PI / 2 - 0.1;
-        } else if (rotationX < -Math.PI / 2 + 0.1) {
-            rotationX = -Math.PI / 2 + 0.1;
+        if (rotationX > MAX_PITCH) {
+            rotationX = MAX_PITCH;
+        } else if (rotationX < -MAX_PITCH) {
+            rotationX = -MAX_PITCH;
         }
+        animator.shift(rotationX - oldX, rotationY - oldY, 0, 0, 0, 0);
+        changed();
     }
     
-    // Pan camera
+    // Moves the target by a mouse drag in pixels, parallel to the screen, so the point
+    // under the cursor at the target's depth follows the cursor
     public void panCamera(double deltaX, double deltaY) {
-        // Implement camera panning if needed
+        double cmPerPixel = cameraDistance / (zoom * focalLength);
+        double cosX = Math.cos(rotationX), sinX = Math.sin(rotationX);
+        double cosY = Math.cos(rotationY), sinY = Math.sin(rotationY);
+        
+        // Screen right is (cosY, 0, sinY) in the world, screen up (-sinY sinX, cosX, cosY sinX)
+        double right = -deltaX * cmPerPixel;
+        double up = deltaY * cmPerPixel;
+        double dx = right * cosY - up * sinY * sinX;
+        double dy = up * cosX;
+        double dz = right * sinY + up * cosY * sinX;
+        targetX += dx;
+        targetY += dy;
+        targetZ += dz;
+        animator.shift(0, 0, 0, dx, dy, dz);
+        changed();
     }
 }
\ No newline at end of file
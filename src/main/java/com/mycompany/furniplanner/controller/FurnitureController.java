@@ -1,51 +1,335 @@
 package com.mycompany.furniplanner.controller;
 
+import com.mycompany.furniplanner.command.AddFurnitureCommand;
+import com.mycompany.furniplanner.command.CommandHistory;
+import com.mycompany.furniplanner.command.ImportFurnitureCommand;
+import com.mycompany.furniplanner.command.MoveFurnitureCommand;
+import com.mycompany.furniplanner.command.RemoveFurnitureCommand;
+import com.mycompany.furniplanner.command.RotateFurnitureCommand;
+import com.mycompany.furniplanner.command.TransformFurnitureCommand;
+import com.mycompany.furniplanner.layout.Layout;
+import com.mycompany.furniplanner.model.FloorPlan;
 import com.mycompany.furniplanner.model.Furniture;
+import com.mycompany.furniplanner.model.FurnitureStore;
 import com.mycompany.furniplanner.model.FurnitureType;
 import com.mycompany.furniplanner.model.Room;
+import com.mycompany.furniplanner.model.SceneSnapshot;
 import com.mycompany.furniplanner.model.Vector3D;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class FurnitureController {
-    private Room room;
+    // Edge or center line used by alignFurniture. X grows to the right, Z towards the front.
+    public enum Alignment { LEFT, RIGHT, BACK, FRONT, CENTER_X, CENTER_Z }
+    
+    public enum Axis { X, Z }
+    
+
+    private final FloorPlan floorPlan;
     private boolean moveMode;
     private boolean deleteMode;
+    private final CommandHistory history;
     
     public FurnitureController(Room room) {
-        this.room = room;
+        this(room, new CommandHistory());
+    }
+    
+    public FurnitureController(Room room, CommandHistory history) {
+        this(new FloorPlan(room), history);
+    }
+    
+    // Edits always apply to the floor plan's active room
+    public FurnitureController(FloorPlan floorPlan, CommandHistory history) {
+        this.floorPlan = floorPlan;
+        this.history = history;
         this.moveMode = false;
         this.deleteMode = false;
     }
     
+    private Room room() {
+        return floorPlan.getActiveRoom();
+    }
+    
+    public CommandHistory getHistory() {
+        return history;
+    }
+    
+    // Edits go through the history so they can be undone
     public void addFurniture(String name, FurnitureType type, Vector3D position) {
         Furniture furniture = new Furniture(name, type, position);
-        room.addFurniture(furniture);
+        history.execute(new AddFurnitureCommand(room(), furniture));
     }
     
     public void removeFurniture(Furniture furniture) {
-        room.removeFurniture(furniture);
+        history.execute(new RemoveFurnitureCommand(room(), furniture));
     }
     
     public void moveFurniture(Furniture furniture, Vector3D delta) {
         Vector3D newPosition = furniture.getPosition().add(delta);
         
         // Check if the new position is within room bounds
-        if (room.isWithinBounds(newPosition)) {
-            furniture.setPosition(newPosition);
+        if (room().isWithinBounds(newPosition)) {
+            moveFurnitureTo(furniture, newPosition.getX(), newPosition.getY(), newPosition.getZ());
         }
     }
     
+    // Successive calls for the same piece merge into one undo step until endMove()
+    public void moveFurnitureTo(Furniture furniture, double x, double y, double z) {
+        history.execute(new MoveFurnitureCommand(furniture, x, y, z));
+    }
+    
+    public void endMove() {
+        history.endMerge();
+    }
+    
     public void rotateFurniture(Furniture furniture, double degrees) {
-        furniture.rotate(degrees);
+        history.execute(new RotateFurnitureCommand(furniture, degrees));
+    }
+    
+    // Batch edits for a multi-selection. Each one computes all targets in a single pass,
+    // validates them together and records one undo step, so the scene publishes one
+    // snapshot and the history notifies its listeners once.
+    
+    // Moves the group by one delta, shortened so every piece stays margin cm inside the walls.
+    // Successive calls for the same group merge into one undo step until endMove().
+    public boolean moveFurniture(List<Furniture> pieces, double dx, double dy, double dz, double margin) {
+        if (pieces.isEmpty()) {
+            return false;
+        }
+        Furniture[] group = pieces.toArray(new Furniture[0]);
+        double[] to = TransformFurnitureCommand.capture(group);
+        
+        double maxX = room().getWidth() / 2.0 - margin;
+        double maxZ = room().getLength() / 2.0 - margin;
+        double lowX = Double.NEGATIVE_INFINITY, highX = Double.POSITIVE_INFINITY;
+        double lowZ = Double.NEGATIVE_INFINITY, highZ = Double.POSITIVE_INFINITY;
+        for (int base = 0; base < to.length; base += TransformFurnitureCommand.STRIDE) {
+            lowX = Math.max(lowX, -maxX - to[base]);
+            highX = Math.min(highX, maxX - to[base]);
+            lowZ = Math.max(lowZ, -maxZ - to[base + 2]);
+            highZ = Math.min(highZ, maxZ - to[base + 2]);
+        }
+        dx = Math.max(lowX, Math.min(highX, dx));
+        dz = Math.max(lowZ, Math.min(highZ, dz));
+        
+        for (int base = 0; base < to.length; base += TransformFurnitureCommand.STRIDE) {
+            to[base] += dx;
+            to[base + 1] += dy;
+            to[base + 2] += dz;
+        }
+        history.execute(new TransformFurnitureCommand(room().getFurnitureStore(), group, to));
+        return true;
+    }
+    
+    // Turns the group around its center; every piece also turns by the same angle
+    public boolean rotateFurniture(List<Furniture> pieces, double degrees) {
+        if (pieces.isEmpty()) {
+            return false;
+        }
+        Furniture[] group = pieces.toArray(new Furniture[0]);
+        double[] to = TransformFurnitureCommand.capture(group);
+        
+        double centerX = 0, centerZ = 0;
+        for (int base = 0; base < to.length; base += TransformFurnitureCommand.STRIDE) {
+            centerX += to[base];
+            centerZ += to[base + 2];
+        }
+        centerX /= group.length;
+        centerZ /= group.length;
+        
+        // Same sense as the model rotation applied when drawing
+        double cos = Math.cos(Math.toRadians(degrees));
+        double sin = Math.sin(Math.toRadians(degrees));
+        for (int base = 0; base < to.length; base += TransformFurnitureCommand.STRIDE) {
+            double offsetX = to[base] - centerX;
+            double offsetZ = to[base + 2] - centerZ;
+            to[base] = centerX + offsetX * cos - offsetZ * sin;
+            to[base + 2] = centerZ + offsetX * sin + offsetZ * cos;
+            to[base + 3] += degrees;
+        }
+        return applyTransform(room(), group, to);
+    }
+    
+    // Lines up the footprints of the group on the selection's outermost edge or center line
+    public boolean alignFurniture(List<Furniture> pieces, Alignment alignment) {
+        if (pieces.size() < 2) {
+            return false;
+        }
+        Furniture[] group = pieces.toArray(new Furniture[0]);
+        double[] to = TransformFurnitureCommand.capture(group);
+        boolean alongX = alignment == Alignment.LEFT || alignment == Alignment.RIGHT || alignment == Alignment.CENTER_X;
+        int axis = alongX ? 0 : 2;
+        
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < group.length; i++) {
+            int base = i * TransformFurnitureCommand.STRIDE;
+            double half = halfExtent(group[i], to[base + 3], alongX);
+            min = Math.min(min, to[base + axis] - half);
+            max = Math.max(max, to[base + axis] + half);
+        }
+        
+        for (int i = 0; i < group.length; i++) {
+            int base = i * TransformFurnitureCommand.STRIDE;
+            double half = halfExtent(group[i], to[base + 3], alongX);
+            switch (alignment) {
+                case LEFT:
+                case BACK:
+                    to[base + axis] = min + half;
+                    break;
+                case RIGHT:
+                case FRONT:
+                    to[base + axis] = max - half;
+                    break;
+                default:
+                    to[base + axis] = (min + max) / 2;
+                    break;
+            }
+        }
+        return applyTransform(room(), group, to);
+    }
+    
+    // Spaces the group evenly between its two outermost pieces, with equal gaps between footprints
+    public boolean distributeFurniture(List<Furniture> pieces, Axis axis) {
+        if (pieces.size() < 3) {
+            return false;
+        }
+        Furniture[] group = pieces.toArray(new Furniture[0]);
+        double[] to = TransformFurnitureCommand.capture(group);
+        boolean alongX = axis == Axis.X;
+        int offset = alongX ? 0 : 2;
+        
+        Integer[] order = new Integer[group.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(to[a * TransformFurnitureCommand.STRIDE + offset],
+                                                    to[b * TransformFurnitureCommand.STRIDE + offset]));
+        
+        double[] halves = new double[group.length];
+        double occupied = 0;
+        for (int i = 0; i < group.length; i++) {
+            halves[i] = halfExtent(group[i], to[i * TransformFurnitureCommand.STRIDE + 3], alongX);
+            occupied += 2 * halves[i];
+        }
+        int first = order[0];
+        int last = order[order.length - 1];
+        double start = to[first * TransformFurnitureCommand.STRIDE + offset] - halves[first];
+        double end = to[last * TransformFurnitureCommand.STRIDE + offset] + halves[last];
+        double gap = (end - start - occupied) / (group.length - 1);
+        
+        double edge = start;
+        for (int index : order) {
+            to[index * TransformFurnitureCommand.STRIDE + offset] = edge + halves[index];
+            edge += 2 * halves[index] + gap;
+        }
+        return applyTransform(room(), group, to);
+    }
+    
+    // Bulk import. Chunks added between beginImport() and endImport() merge into one undo
+    // step. The target room is fixed by the caller, so switching rooms mid-import is safe.
+    public void beginImport() {
+        history.endMerge();
+    }
+    
+    public void importFurniture(Room target, List<Furniture> pieces) {
+        if (!pieces.isEmpty()) {
+            history.execute(new ImportFurnitureCommand(target, pieces));
+        }
+    }
+    
+    public void endImport() {
+        history.endMerge();
+    }
+    
+    public void removeFurniture(List<Furniture> pieces) {
+        if (!pieces.isEmpty()) {
+            history.execute(new RemoveFurnitureCommand(room(), pieces.toArray(new Furniture[0])));
+        }
+    }
+    
+    // Moves the pieces of target to their places in a computed layout, as one undo step.
+    // Pieces removed since the layout was computed are left out.
+    public boolean applyLayout(Room target, Layout layout) {
+        Map<Integer, Furniture> byId = new HashMap<>();
+        for (Furniture furniture : target.getFurnitureList()) {
+            byId.put(furniture.getId(), furniture);
+        }
+        
+        List<Furniture> pieces = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < layout.size(); i++) {
+            Furniture furniture = byId.get(layout.getId(i));
+            if (furniture != null && !layout.isFixed(i)) {
+                pieces.add(furniture);
+                indices.add(i);
+            }
+        }
+        if (pieces.isEmpty()) {
+            return false;
+        }
+        
+        Furniture[] group = pieces.toArray(new Furniture[0]);
+        double[] to = TransformFurnitureCommand.capture(group);
+        for (int k = 0; k < group.length; k++) {
+            int base = k * TransformFurnitureCommand.STRIDE;
+            int i = indices.get(k);
+            to[base] = layout.getX(i);
+            to[base + 2] = layout.getZ(i);
+            to[base + 3] = layout.getRotation(i);
+        }
+        return applyTransform(target, group, to);
+    }
+    
+    // Records the transform if every piece stays on the floor, otherwise changes nothing
+    private boolean applyTransform(Room room, Furniture[] group, double[] to) {
+        double maxX = room.getWidth() / 2.0;
+        double maxZ = room.getLength() / 2.0;
+        for (int base = 0; base < to.length; base += TransformFurnitureCommand.STRIDE) {
+            if (Math.abs(to[base]) > maxX || Math.abs(to[base + 2]) > maxZ) {
+                return false;
+            }
+        }
+        // Discrete edits are separate undo steps, never merged into a drag
+        history.endMerge();
+        history.execute(new TransformFurnitureCommand(room.getFurnitureStore(), group, to));
+        history.endMerge();
+        return true;
+    }
+    
+    // Half size of the piece's footprint along X or Z for the given Y rotation
+    private static double halfExtent(Furniture furniture, double rotationDegrees, boolean alongX) {
+        double radians = Math.toRadians(rotationDegrees);
+        double cos = Math.abs(Math.cos(radians));
+        double sin = Math.abs(Math.sin(radians));
+        double width = furniture.getDimension().getWidth();
+        double length = furniture.getDimension().getLength();
+        return alongX ? (cos * width + sin * length) / 2 : (sin * width + cos * length) / 2;
     }
     
     public List<Furniture> getAllFurniture() {
-        return room.getFurnitureList();
+        return room().getFurnitureList();
+    }
+    
+    public Room getRoom() {
+        return room();
+    }
+    
+    public FurnitureStore getFurnitureStore() {
+        return room().getFurnitureStore();
+    }
+    
+    // Consistent copy of the scene for background work such as saving or export
+    public SceneSnapshot getSnapshot() {
+        return room().getSnapshot();
     }
     
     public void clearFurniture() {
-        room.clearFurniture();
+        room().clearFurniture();
+        history.clear();
     }
     
     public boolean isMoveMode() {
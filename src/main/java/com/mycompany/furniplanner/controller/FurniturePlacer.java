@@ -0,0 +1,162 @@
+package com.mycompany.furniplanner.controller;
+
+import com.mycompany.furniplanner.model.Furniture;
+import com.mycompany.furniplanner.model.FurnitureState;
+import com.mycompany.furniplanner.model.SceneSnapshot;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Finds free floor space for new pieces. Occupied footprints are kept as boxes in a
+// uniform grid over the room, so a collision test only looks at nearby pieces.
+// Works on a snapshot, so it can run off the event thread while the room stays live.
+public class FurniturePlacer {
+    private static final double CELL_SIZE = 50;  // cm per grid cell
+    private static final double STEP = 10;       // cm between candidate positions
+
+    private final double halfWidth;
+    private final double halfLength;
+    private final int columns;
+    private final int rows;
+    private final int[][] cells;
+    private final int[] cellSizes;
+
+    // minX, minZ, maxX, maxZ per occupied footprint
+    private double[] boxes = new double[4 * 64];
+    private int boxCount;
+
+    // Obstacles are only ever added, so a candidate that was taken for one footprint
+    // stays taken; the scan for the same footprint resumes where it last stopped
+    private final Map<Long, Integer> cursors = new HashMap<>();
+
+    // margin keeps pieces clear of the walls, which stand inside the room's outline
+    public FurniturePlacer(SceneSnapshot snapshot, double margin) {
+        this.halfWidth = Math.max(0, snapshot.getRoomWidth() / 2.0 - margin);
+        this.halfLength = Math.max(0, snapshot.getRoomLength() / 2.0 - margin);
+        this.columns = Math.max(1, (int) Math.ceil(2 * halfWidth / CELL_SIZE));
+        this.rows = Math.max(1, (int) Math.ceil(2 * halfLength / CELL_SIZE));
+        this.cells = new int[columns * rows][];
+        this.cellSizes = new int[columns * rows];
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            FurnitureState state = snapshot.get(i);
+            addObstacle(state.position().getX(), state.position().getZ(),
+                        state.dimension().getWidth(), state.dimension().getLength(), state.rotation().getY());
+        }
+    }
+
+    // Keeps the piece where it is if that spot is free and on the floor, otherwise moves it
+    // to the first free spot, scanning from the back left corner row by row.
+    // Returns false, leaving the piece untouched, if the room has no space for it.
+    public boolean place(Furniture furniture, boolean keepPosition) {
+        double rotation = furniture.getRotation().getY();
+        double width = furniture.getDimension().getWidth();
+        double length = furniture.getDimension().getLength();
+        double halfX = halfExtent(width, length, rotation, true);
+        double halfZ = halfExtent(width, length, rotation, false);
+
+        if (keepPosition) {
+            double x = furniture.getX();
+            double z = furniture.getZ();
+            if (Math.abs(x) + halfX <= halfWidth && Math.abs(z) + halfZ <= halfLength
+                    && findOverlap(x - halfX, z - halfZ, x + halfX, z + halfZ) < 0) {
+                addBox(x - halfX, z - halfZ, x + halfX, z + halfZ);
+                return true;
+            }
+        }
+
+        if (halfX > halfWidth || halfZ > halfLength) {
+            return false;
+        }
+        int steps = (int) Math.floor((2 * halfWidth - 2 * halfX) / STEP) + 1;
+        int rowCount = (int) Math.floor((2 * halfLength - 2 * halfZ) / STEP) + 1;
+
+        Long key = (Math.round(halfX * 10) << 32) | Math.round(halfZ * 10);
+        int candidate = cursors.getOrDefault(key, 0);
+        while (candidate < steps * rowCount) {
+            double x = -halfWidth + halfX + (candidate % steps) * STEP;
+            double z = -halfLength + halfZ + (candidate / steps) * STEP;
+            int blocker = findOverlap(x - halfX, z - halfZ, x + halfX, z + halfZ);
+            if (blocker < 0) {
+                cursors.put(key, candidate);
+                addBox(x - halfX, z - halfZ, x + halfX, z + halfZ);
+                furniture.setPosition(x, furniture.getY(), z);
+                return true;
+            }
+
+            // Jump past the blocking piece instead of testing every step in between
+            int column = candidate % steps;
+            double clearX = boxes[blocker * 4 + 2] + halfX;
+            int nextColumn = Math.max(column + 1, (int) Math.ceil((clearX - (-halfWidth + halfX)) / STEP));
+            candidate = nextColumn < steps ? candidate - column + nextColumn : (candidate / steps + 1) * steps;
+        }
+        cursors.put(key, candidate);
+        return false;
+    }
+
+    private void addObstacle(double x, double z, double width, double length, double rotation) {
+        double halfX = halfExtent(width, length, rotation, true);
+        double halfZ = halfExtent(width, length, rotation, false);
+        addBox(x - halfX, z - halfZ, x + halfX, z + halfZ);
+    }
+
+    private void addBox(double minX, double minZ, double maxX, double maxZ) {
+        if ((boxCount + 1) * 4 > boxes.length) {
+            boxes = Arrays.copyOf(boxes, boxes.length * 2);
+        }
+        int base = boxCount * 4;
+        boxes[base] = minX;
+        boxes[base + 1] = minZ;
+        boxes[base + 2] = maxX;
+        boxes[base + 3] = maxZ;
+
+        for (int row = row(minZ); row <= row(maxZ); row++) {
+            for (int column = column(minX); column <= column(maxX); column++) {
+                int cell = row * columns + column;
+                if (cells[cell] == null) {
+                    cells[cell] = new int[4];
+                } else if (cellSizes[cell] == cells[cell].length) {
+                    cells[cell] = Arrays.copyOf(cells[cell], cellSizes[cell] * 2);
+                }
+                cells[cell][cellSizes[cell]++] = boxCount;
+            }
+        }
+        boxCount++;
+    }
+
+    // Index of a footprint overlapping the box, or -1. Touching edges do not count.
+    private int findOverlap(double minX, double minZ, double maxX, double maxZ) {
+        for (int row = row(minZ); row <= row(maxZ); row++) {
+            for (int column = column(minX); column <= column(maxX); column++) {
+                int cell = row * columns + column;
+                int[] indices = cells[cell];
+                for (int i = 0; i < cellSizes[cell]; i++) {
+                    int base = indices[i] * 4;
+                    if (minX < boxes[base + 2] && maxX > boxes[base]
+                            && minZ < boxes[base + 3] && maxZ > boxes[base + 1]) {
+                        return indices[i];
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Pieces partly outside the floor are filed under the nearest cell
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x + halfWidth) / CELL_SIZE)));
+    }
+
+    private int row(double z) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((z + halfLength) / CELL_SIZE)));
+    }
+
+    // Half size of a footprint along X or Z for the given Y rotation
+    private static double halfExtent(double width, double length, double rotationDegrees, boolean alongX) {
+        double radians = Math.toRadians(rotationDegrees);
+        double cos = Math.abs(Math.cos(radians));
+        double sin = Math.abs(Math.sin(radians));
+        return alongX ? (cos * width + sin * length) / 2 : (sin * width + cos * length) / 2;
+    }
+}
@@ -1,25 +1,77 @@
 package com.mycompany.furniplanner.controller;
 
+import com.mycompany.furniplanner.command.CommandHistory;
+import com.mycompany.furniplanner.command.ResizeRoomCommand;
+import com.mycompany.furniplanner.event.SceneEvent;
+import com.mycompany.furniplanner.event.SceneEventBus;
+import com.mycompany.furniplanner.model.FloorPlan;
 import com.mycompany.furniplanner.model.Room;
 
 public class RoomController {
-    private Room room;
+    private final FloorPlan floorPlan;
+    private final CommandHistory history;
     
     public RoomController(Room room) {
-        this.room = room;
+        this(room, new CommandHistory());
     }
     
+    public RoomController(Room room, CommandHistory history) {
+        this(new FloorPlan(room), history);
+    }
+    
+    public RoomController(FloorPlan floorPlan, CommandHistory history) {
+        this.floorPlan = floorPlan;
+        this.history = history;
+    }
+    
+    // The room currently being edited
     public Room getRoom() {
-        return room;
+        return floorPlan.getActiveRoom();
+    }
+    
+    public FloorPlan getFloorPlan() {
+        return floorPlan;
     }
     
+    // Starts over with a floor plan holding just this room
     public void createRoom(int width, int length, int height) {
-        this.room = new Room(width, length, height);
+        floorPlan.reset(new Room(width, length, height));
+        history.clear(); // Commands refer to the old rooms
+        roomsChanged();
+    }
+    
+    // Adds a room to the right of the plan, level with the active room, and makes it active
+    public Room addRoom(int width, int length, int height) {
+        Room room = new Room(width, length, height);
+        room.setOrigin(floorPlan.getMaxX() + width / 2.0, getRoom().getOriginZ());
+        floorPlan.addRoom(room);
+        floorPlan.setActiveRoom(room);
+        roomsChanged();
+        return room;
+    }
+    
+    public void setActiveRoom(Room room) {
+        if (room != getRoom()) {
+            floorPlan.setActiveRoom(room);
+            roomsChanged();
+        }
+    }
+    
+    // Makes the next room of the plan active, wrapping around
+    public void nextRoom() {
+        int index = floorPlan.getRooms().indexOf(getRoom());
+        floorPlan.setActiveRoom(floorPlan.getRooms().get((index + 1) % floorPlan.getRoomCount()));
+        roomsChanged();
+    }
+    
+    private void roomsChanged() {
+        SceneEventBus eventBus = floorPlan.getEventBus();
+        if (eventBus != null) {
+            eventBus.post(new SceneEvent.RoomsChanged(getRoom()));
+        }
     }
     
     public void resizeRoom(int width, int length, int height) {
-        room.setWidth(width);
-        room.setLength(length);
-        room.setHeight(height);
+        history.execute(new ResizeRoomCommand(getRoom(), width, length, height));
     }
-}
\ No newline at end of file
+}
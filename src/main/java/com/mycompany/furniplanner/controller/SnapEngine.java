@@ -0,0 +1,242 @@
+package com.mycompany.furniplanner.controller;
+
+import com.mycompany.furniplanner.model.FurnitureState;
+import com.mycompany.furniplanner.model.SceneSnapshot;
+import com.mycompany.furniplanner.model.Vec3;
+
+import java.util.Arrays;
+import java.util.Set;
+
+// Snaps a dragged footprint to wall faces, the edges of other pieces and the floor grid.
+// The edges of everything that stays put are indexed once per drag, in one sorted array
+// per axis, so a snap finds the edges within reach by binary search instead of testing
+// every piece. Coordinates are local to the room; the grid stays on the world's lines.
+public class SnapEngine {
+    public static final double GRID_SIZE = 50;  // cm, matches the floor grid
+    private static final double REACH = 100;    // cm; edges further off along the other axis are ignored
+
+    private final EdgeIndex xEdges = new EdgeIndex();
+    private final EdgeIndex zEdges = new EdgeIndex();
+    private double originX;
+    private double originZ;
+
+    // Lines the last snap moved onto, NaN where an axis did not snap
+    private double guideX = Double.NaN;
+    private double guideZ = Double.NaN;
+
+    // Line the most recent axis snap landed on
+    private double snapLine;
+
+    // Indexes the room's pieces, except the ones being dragged, and its inner wall faces.
+    // margin is the wall thickness, as the walls stand inside the room's outline.
+    public void index(SceneSnapshot snapshot, Set<Integer> draggedIds, double originX, double originZ,
+                      double margin) {
+        this.originX = originX;
+        this.originZ = originZ;
+        xEdges.clear();
+        zEdges.clear();
+
+        double wallX = snapshot.getRoomWidth() / 2.0 - margin;
+        double wallZ = snapshot.getRoomLength() / 2.0 - margin;
+        xEdges.add(-wallX, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        xEdges.add(wallX, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        zEdges.add(-wallZ, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        zEdges.add(wallZ, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            FurnitureState state = snapshot.get(i);
+            if (draggedIds.contains(state.id())) {
+                continue;
+            }
+            double rotation = Math.toRadians(state.rotation().getY());
+            double cos = Math.abs(Math.cos(rotation));
+            double sin = Math.abs(Math.sin(rotation));
+            double width = state.dimension().getWidth();
+            double length = state.dimension().getLength();
+            double halfX = (cos * width + sin * length) / 2;
+            double halfZ = (sin * width + cos * length) / 2;
+            double x = state.position().getX();
+            double z = state.position().getZ();
+
+            xEdges.add(x - halfX, z - halfZ, z + halfZ);
+            xEdges.add(x + halfX, z - halfZ, z + halfZ);
+            zEdges.add(z - halfZ, x - halfX, x + halfX);
+            zEdges.add(z + halfZ, x - halfX, x + halfX);
+        }
+        xEdges.sort();
+        zEdges.sort();
+        guideX = Double.NaN;
+        guideZ = Double.NaN;
+    }
+
+    // Writes the shift that snaps the footprint within tolerance cm into out (y stays 0).
+    // Walls and other pieces win over the grid; an axis with nothing in reach is left alone.
+    public Vec3 snap(double minX, double maxX, double minZ, double maxZ, double tolerance, Vec3 out) {
+        double dx = snapToEdges(xEdges, minX, maxX, minZ, maxZ, tolerance);
+        if (Double.isNaN(dx)) {
+            dx = snapToGrid(minX, maxX, originX, tolerance);
+        }
+        guideX = Double.isNaN(dx) ? Double.NaN : snapLine;
+
+        double dz = snapToEdges(zEdges, minZ, maxZ, minX, maxX, tolerance);
+        if (Double.isNaN(dz)) {
+            dz = snapToGrid(minZ, maxZ, originZ, tolerance);
+        }
+        guideZ = Double.isNaN(dz) ? Double.NaN : snapLine;
+        return out.set(Double.isNaN(dx) ? 0 : dx, 0, Double.isNaN(dz) ? 0 : dz);
+    }
+
+    public void clearGuides() {
+        guideX = Double.NaN;
+        guideZ = Double.NaN;
+    }
+
+    // Room-local x of the line the last snap lined up with, or NaN
+    public double getGuideX() {
+        return guideX;
+    }
+
+    public double getGuideZ() {
+        return guideZ;
+    }
+
+    // Nearest shift that puts either edge of [low, high] onto an indexed edge whose extent
+    // on the other axis comes within REACH of [crossLow, crossHigh], or NaN
+    private double snapToEdges(EdgeIndex edges, double low, double high, double crossLow, double crossHigh,
+                               double tolerance) {
+        double best = Double.NaN;
+        for (int side = 0; side < 2; side++) {
+            double edge = side == 0 ? low : high;
+            for (int k = edges.firstAtLeast(edge - tolerance); k < edges.count && edges.values[k] <= edge + tolerance; k++) {
+                if (edges.spanMax[k] < crossLow - REACH || edges.spanMin[k] > crossHigh + REACH) {
+                    continue;
+                }
+                double shift = edges.values[k] - edge;
+                if (Double.isNaN(best) || Math.abs(shift) < Math.abs(best)) {
+                    best = shift;
+                    snapLine = edges.values[k];
+                }
+            }
+        }
+        return best;
+    }
+
+    // Nearest shift that puts an edge or the center of [low, high] onto a grid line, or NaN
+    private double snapToGrid(double low, double high, double origin, double tolerance) {
+        double best = Double.NaN;
+        for (int side = 0; side < 3; side++) {
+            double value = side == 0 ? low : side == 1 ? high : (low + high) / 2;
+            double world = value + origin;
+            double shift = Math.round(world / GRID_SIZE) * GRID_SIZE - world;
+            if (Math.abs(shift) <= tolerance && (Double.isNaN(best) || Math.abs(shift) < Math.abs(best))) {
+                best = shift;
+                snapLine = value + shift;
+            }
+        }
+        return best;
+    }
+
+    // Edge positions on one axis with the extent each edge covers on the other axis
+    private static class EdgeIndex {
+        double[] values = new double[16];
+        double[] spanMin = new double[16];
+        double[] spanMax = new double[16];
+        int count;
+
+        // Reused by sort: the index order, merge scratch and the arrays sorted into
+        private int[] order = new int[16];
+        private int[] orderScratch = new int[16];
+        private double[] sortedValues = new double[16];
+        private double[] sortedMin = new double[16];
+        private double[] sortedMax = new double[16];
+
+        void clear() {
+            count = 0;
+        }
+
+        void add(double value, double min, double max) {
+            if (count == values.length) {
+                int capacity = count * 2;
+                values = Arrays.copyOf(values, capacity);
+                spanMin = Arrays.copyOf(spanMin, capacity);
+                spanMax = Arrays.copyOf(spanMax, capacity);
+            }
+            values[count] = value;
+            spanMin[count] = min;
+            spanMax[count] = max;
+            count++;
+        }
+
+        // Orders the edges by exact value, so firstAtLeast can binary search them. The
+        // indices are merge sorted bottom up, then the edges are copied into the spare
+        // arrays, which take the place of the current ones.
+        void sort() {
+            if (order.length < values.length) {
+                order = new int[values.length];
+                orderScratch = new int[values.length];
+            }
+            if (sortedValues.length < values.length) {
+                sortedValues = new double[values.length];
+                sortedMin = new double[values.length];
+                sortedMax = new double[values.length];
+            }
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+
+            int[] from = order;
+            int[] to = orderScratch;
+            for (int width = 1; width < count; width *= 2) {
+                for (int low = 0; low < count; low += width * 2) {
+                    int middle = Math.min(low + width, count);
+                    int high = Math.min(low + width * 2, count);
+                    int left = low;
+                    int right = middle;
+                    for (int i = low; i < high; i++) {
+                        if (right == high
+                                || left < middle && Double.compare(values[from[left]], values[from[right]]) <= 0) {
+                            to[i] = from[left++];
+                        } else {
+                            to[i] = from[right++];
+                        }
+                    }
+                }
+                int[] swap = from;
+                from = to;
+                to = swap;
+            }
+            order = from;
+            orderScratch = to;
+
+            for (int i = 0; i < count; i++) {
+                sortedValues[i] = values[order[i]];
+                sortedMin[i] = spanMin[order[i]];
+                sortedMax[i] = spanMax[order[i]];
+            }
+            double[] previous = values;
+            values = sortedValues;
+            sortedValues = previous;
+            previous = spanMin;
+            spanMin = sortedMin;
+            sortedMin = previous;
+            previous = spanMax;
+            spanMax = sortedMax;
+            sortedMax = previous;
+        }
+
+        // Index of the first edge at or after value
+        int firstAtLeast(double value) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
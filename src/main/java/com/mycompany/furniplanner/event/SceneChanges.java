@@ -0,0 +1,37 @@
+package com.mycompany.furniplanner.event;
+
+import com.mycompany.furniplanner.model.FurnitureStore;
+import com.mycompany.furniplanner.model.SceneSnapshot;
+
+import java.util.List;
+import java.util.Map;
+
+// One frame's worth of coalesced events, together with the state after them of every
+// room whose furniture they touch
+public record SceneChanges(List<SceneEvent> events, Map<FurnitureStore, SceneSnapshot> snapshots) {
+    
+    // The room's state after this batch, or null if none of its furniture changed
+    public SceneSnapshot snapshotOf(FurnitureStore store) {
+        return snapshots.get(store);
+    }
+    
+    public boolean contains(Class<? extends SceneEvent> type) {
+        for (SceneEvent event : events) {
+            if (type.isInstance(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // True if furniture was added, moved or removed
+    public boolean hasFurnitureChanges() {
+        for (SceneEvent event : events) {
+            if (event instanceof SceneEvent.FurnitureAdded || event instanceof SceneEvent.FurnitureMoved
+                    || event instanceof SceneEvent.FurnitureRemoved) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,30 @@
+package com.mycompany.furniplanner.event;
+
+import com.mycompany.furniplanner.model.FurnitureStore;
+import com.mycompany.furniplanner.model.Room;
+
+// Something in the scene changed. Every room's store hands out its own ids, so furniture
+// events carry the store with the id; subscribers on other threads look the piece up in
+// that store's snapshot from the batch.
+public sealed interface SceneEvent {
+    
+    record FurnitureAdded(FurnitureStore store, int furnitureId) implements SceneEvent {
+    }
+    
+    // Position, rotation or size changed
+    record FurnitureMoved(FurnitureStore store, int furnitureId) implements SceneEvent {
+    }
+    
+    record FurnitureRemoved(FurnitureStore store, int furnitureId) implements SceneEvent {
+    }
+    
+    record RoomResized(Room room, int width, int length, int height) implements SceneEvent {
+    }
+    
+    // A room was added or the plan replaced, or another room became the active one
+    record RoomsChanged(Room activeRoom) implements SceneEvent {
+    }
+    
+    record CameraChanged() implements SceneEvent {
+    }
+}
@@ -0,0 +1,139 @@
+package com.mycompany.furniplanner.event;
+
+import com.mycompany.furniplanner.model.FurnitureStore;
+import com.mycompany.furniplanner.model.Room;
+import com.mycompany.furniplanner.model.SceneSnapshot;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Collects scene events and hands them to subscribers once per frame. Bursts are
+// coalesced first: many moves of one piece become one FurnitureMoved, a piece added
+// and removed within the same frame disappears, and only the last size of each room,
+// a single change of rooms and a single camera change are kept. Ids are only unique
+// within a room's store, so pieces are told apart by store and id. UI subscribers are
+// called on the EDT, the others on a background thread in posting order.
+public class SceneEventBus {
+    public static final long FRAME_MILLIS = 16;
+    
+    public enum Delivery { EDT, BACKGROUND }
+    
+    private final List<SceneListener> edtListeners = new CopyOnWriteArrayList<>();
+    private final List<SceneListener> backgroundListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(daemon("scene-events"));
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(daemon("scene-listeners"));
+    
+    // Pending events, guarded by this
+    private final Map<FurnitureKey, SceneEvent> furnitureEvents = new LinkedHashMap<>();
+    private final Map<Room, SceneEvent.RoomResized> roomsResized = new LinkedHashMap<>();
+    private SceneEvent.RoomsChanged roomsChanged;
+    private boolean cameraChanged;
+    private boolean flushScheduled;
+    
+    public void subscribe(SceneListener listener, Delivery delivery) {
+        (delivery == Delivery.EDT ? edtListeners : backgroundListeners).add(listener);
+    }
+    
+    public void unsubscribe(SceneListener listener) {
+        edtListeners.remove(listener);
+        backgroundListeners.remove(listener);
+    }
+    
+    // Safe to call from any thread; delivery happens at the end of the current frame
+    public synchronized void post(SceneEvent event) {
+        if (event instanceof SceneEvent.FurnitureAdded added) {
+            furnitureEvents.put(new FurnitureKey(added.store(), added.furnitureId()), event);
+        } else if (event instanceof SceneEvent.FurnitureMoved moved) {
+            // An add or remove already covers the move
+            furnitureEvents.putIfAbsent(new FurnitureKey(moved.store(), moved.furnitureId()), event);
+        } else if (event instanceof SceneEvent.FurnitureRemoved removed) {
+            FurnitureKey key = new FurnitureKey(removed.store(), removed.furnitureId());
+            SceneEvent previous = furnitureEvents.remove(key);
+            if (!(previous instanceof SceneEvent.FurnitureAdded)) {
+                furnitureEvents.put(key, event);
+            }
+        } else if (event instanceof SceneEvent.RoomResized resized) {
+            roomsResized.put(resized.room(), resized);
+        } else if (event instanceof SceneEvent.RoomsChanged changed) {
+            roomsChanged = changed;
+        } else {
+            cameraChanged = true;
+        }
+        
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(this::flush, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private void flush() {
+        List<SceneEvent> events;
+        Map<FurnitureStore, SceneSnapshot> snapshots = new IdentityHashMap<>();
+        synchronized (this) {
+            flushScheduled = false;
+            events = new ArrayList<>(furnitureEvents.size() + roomsResized.size() + 2);
+            if (roomsChanged != null) {
+                events.add(roomsChanged);
+            }
+            events.addAll(roomsResized.values());
+            events.addAll(furnitureEvents.values());
+            if (cameraChanged) {
+                events.add(new SceneEvent.CameraChanged());
+            }
+            for (FurnitureKey key : furnitureEvents.keySet()) {
+                snapshots.computeIfAbsent(key.store(), FurnitureStore::snapshot);
+            }
+            furnitureEvents.clear();
+            roomsResized.clear();
+            roomsChanged = null;
+            cameraChanged = false;
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        
+        // Each room's state after the events, for the rooms whose furniture changed
+        SceneChanges changes = new SceneChanges(List.copyOf(events), snapshots);
+        if (!backgroundListeners.isEmpty()) {
+            backgroundExecutor.execute(() -> dispatch(backgroundListeners, changes));
+        }
+        if (!edtListeners.isEmpty()) {
+            SwingUtilities.invokeLater(() -> dispatch(edtListeners, changes));
+        }
+    }
+    
+    private static void dispatch(List<SceneListener> listeners, SceneChanges changes) {
+        for (SceneListener listener : listeners) {
+            try {
+                listener.sceneChanged(changes);
+            } catch (RuntimeException e) {
+                // One failing subscriber must not stop the others
+                Logger.getLogger(SceneEventBus.class.getName()).log(Level.SEVERE, "Scene listener failed", e);
+            }
+        }
+    }
+    
+    // Store identity, not equality, tells rooms apart
+    private record FurnitureKey(FurnitureStore store, int id) {
+    }
+    
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,5 @@
+package com.mycompany.furniplanner.event;
+
+public interface SceneListener {
+    void sceneChanged(SceneChanges changes);
+}
@@ -0,0 +1,43 @@
+package com.mycompany.furniplanner.layout;
+
+// Arrangement found by the optimizer, with positions and rotations per furniture id
+public final class Layout {
+    private final LayoutProblem problem;
+    private final double[] state;
+    private final double cost;
+
+    Layout(LayoutProblem problem, double[] state, double cost) {
+        this.problem = problem;
+        this.state = state;
+        this.cost = cost;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    public int size() {
+        return problem.size;
+    }
+
+    public int getId(int i) {
+        return problem.ids[i];
+    }
+
+    public boolean isFixed(int i) {
+        return problem.fixed[i];
+    }
+
+    public double getX(int i) {
+        return state[i * LayoutProblem.STRIDE];
+    }
+
+    public double getZ(int i) {
+        return state[i * LayoutProblem.STRIDE + 1];
+    }
+
+    // Y rotation in degrees
+    public double getRotation(int i) {
+        return problem.rotationOf(state, i);
+    }
+}
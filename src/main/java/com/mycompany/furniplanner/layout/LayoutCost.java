@@ -0,0 +1,199 @@
+package com.mycompany.furniplanner.layout;
+
+import com.mycompany.furniplanner.model.FurnitureType;
+
+// Scores a layout state; lower is better. The score is a sum of terms for single pieces
+// and for pairs of pieces, so the change caused by moving one piece only needs that
+// piece's terms (pieceCost). A pair term is zero once the footprints are more than
+// INTERACTION_RANGE apart, apart from door and window zones, which LayoutEvaluator
+// uses to look at nearby pieces only. Nothing here allocates, so many threads can
+// evaluate candidates at full speed.
+public final class LayoutCost {
+    // Problems found between two pieces, reported as bit flags
+    public static final int OVERLAP = 1;
+    public static final int BLOCKS_ACCESS = 2;
+    public static final int CRAMPED = 4;
+
+    // Weights, per cm or cm² as noted
+    private static final double OVERLAP_WEIGHT = 1.0; // per cm² of overlapping footprints
+    private static final double ACCESS_WEIGHT = 0.5;  // per cm² inside a door or window zone
+    private static final double OUT_OF_ROOM = 50.0;   // per cm past a wall
+    private static final double WALL = 3.0;           // per cm between a wall piece and its nearest wall
+    private static final double CLEARANCE = 0.05;     // per cm of missing walkway, squared
+    private static final double SEATING = 3.0;        // per cm a chair comes closer to a table
+
+    private static final double WALKWAY = 60;         // cm kept free between pieces
+    private static final double SEATING_RANGE = 100;  // cm beyond which a table no longer pulls a chair
+    private static final double WINDOW_SILL = 90;     // cm; lower pieces may stand under a window
+
+    // Farthest gap between two footprints at which their pair term can be non-zero
+    public static final double INTERACTION_RANGE = Math.max(WALKWAY, SEATING_RANGE);
+
+    private final LayoutProblem problem;
+
+    public LayoutCost(LayoutProblem problem) {
+        this.problem = problem;
+    }
+
+    public double total(double[] state) {
+        double sum = 0;
+        for (int i = 0; i < problem.size; i++) {
+            sum += unaryCost(state, i);
+            for (int j = i + 1; j < problem.size; j++) {
+                sum += pairCost(state, i, j);
+            }
+        }
+        return sum;
+    }
+
+    // Every term that involves piece i
+    public double pieceCost(double[] state, int i) {
+        double sum = unaryCost(state, i);
+        for (int j = 0; j < problem.size; j++) {
+            if (j != i) {
+                sum += pairCost(state, i, j);
+            }
+        }
+        return sum;
+    }
+
+    public double unaryCost(double[] state, int i) {
+        if (problem.fixed[i]) {
+            return 0;
+        }
+        double x = state[i * LayoutProblem.STRIDE];
+        double z = state[i * LayoutProblem.STRIDE + 1];
+        double hx = halfX(state, i);
+        double hz = halfZ(state, i);
+
+        // Distances from each footprint edge to the wall it faces
+        double left = x - hx + problem.halfWidth;
+        double right = problem.halfWidth - x - hx;
+        double back = z - hz + problem.halfLength;
+        double front = problem.halfLength - z - hz;
+
+        double cost = 0;
+        double outside = Math.max(0, -left) + Math.max(0, -right) + Math.max(0, -back) + Math.max(0, -front);
+        if (outside > 0) {
+            cost += OUT_OF_ROOM * outside;
+        }
+        if (standsAtWall(problem.types[i])) {
+            cost += WALL * Math.max(0, Math.min(Math.min(left, right), Math.min(back, front)));
+        }
+        return cost;
+    }
+
+    public double pairCost(double[] state, int i, int j) {
+        boolean fixedI = problem.fixed[i];
+        boolean fixedJ = problem.fixed[j];
+        if (fixedI && fixedJ) {
+            return 0;
+        }
+
+        int a = i * LayoutProblem.STRIDE;
+        int b = j * LayoutProblem.STRIDE;
+        double minXi = state[a] - halfX(state, i), maxXi = state[a] + halfX(state, i);
+        double minZi = state[a + 1] - halfZ(state, i), maxZi = state[a + 1] + halfZ(state, i);
+        double minXj = state[b] - halfX(state, j), maxXj = state[b] + halfX(state, j);
+        double minZj = state[b + 1] - halfZ(state, j), maxZj = state[b + 1] + halfZ(state, j);
+
+        double cost = 0;
+        double overlapX = Math.min(maxXi, maxXj) - Math.max(minXi, minXj);
+        double overlapZ = Math.min(maxZi, maxZj) - Math.max(minZi, minZj);
+        if (overlapX > 0 && overlapZ > 0) {
+            cost += OVERLAP_WEIGHT * overlapX * overlapZ;
+        }
+
+        // Doors and windows keep the floor in front of them clear
+        if (fixedI || fixedJ) {
+            int opening = fixedI ? i : j;
+            if (problem.types[opening] == FurnitureType.WINDOW && problem.heights[fixedI ? j : i] <= WINDOW_SILL) {
+                return cost;
+            }
+            double pieceMinX = fixedI ? minXj : minXi, pieceMaxX = fixedI ? maxXj : maxXi;
+            double pieceMinZ = fixedI ? minZj : minZi, pieceMaxZ = fixedI ? maxZj : maxZi;
+            double zoneX = Math.min(pieceMaxX, problem.zoneMaxX[opening]) - Math.max(pieceMinX, problem.zoneMinX[opening]);
+            double zoneZ = Math.min(pieceMaxZ, problem.zoneMaxZ[opening]) - Math.max(pieceMinZ, problem.zoneMinZ[opening]);
+            if (zoneX > 0 && zoneZ > 0) {
+                cost += ACCESS_WEIGHT * zoneX * zoneZ;
+            }
+            return cost;
+        }
+
+        // Gap between the footprints along the axis that separates them
+        double gap = Math.max(-overlapX, -overlapZ);
+        FurnitureType typeI = problem.types[i];
+        FurnitureType typeJ = problem.types[j];
+        if (isSeating(typeI, typeJ)) {
+            // A reward, so chairs out of range of every table add nothing
+            cost -= SEATING * (SEATING_RANGE - Math.min(Math.max(0, gap), SEATING_RANGE));
+        } else if (!(typeI == FurnitureType.CHAIR && typeJ == FurnitureType.CHAIR) && gap < WALKWAY) {
+            double missing = WALKWAY - Math.max(0, gap);
+            cost += CLEARANCE * missing * missing;
+        }
+        return cost;
+    }
+
+    // Flags for what is wrong between two pieces, for warnings rather than scoring
+    public int pairIssues(double[] state, int i, int j) {
+        if (problem.fixed[i] && problem.fixed[j]) {
+            return 0;
+        }
+
+        int a = i * LayoutProblem.STRIDE;
+        int b = j * LayoutProblem.STRIDE;
+        double minXi = state[a] - halfX(state, i), maxXi = state[a] + halfX(state, i);
+        double minZi = state[a + 1] - halfZ(state, i), maxZi = state[a + 1] + halfZ(state, i);
+        double minXj = state[b] - halfX(state, j), maxXj = state[b] + halfX(state, j);
+        double minZj = state[b + 1] - halfZ(state, j), maxZj = state[b + 1] + halfZ(state, j);
+
+        int issues = 0;
+        double overlapX = Math.min(maxXi, maxXj) - Math.max(minXi, minXj);
+        double overlapZ = Math.min(maxZi, maxZj) - Math.max(minZi, minZj);
+        if (overlapX > 0 && overlapZ > 0) {
+            issues |= OVERLAP;
+        }
+
+        if (problem.fixed[i] || problem.fixed[j]) {
+            int opening = problem.fixed[i] ? i : j;
+            int other = opening == i ? j : i;
+            if (problem.types[opening] == FurnitureType.WINDOW && problem.heights[other] <= WINDOW_SILL) {
+                return issues;
+            }
+            double pieceMinX = other == i ? minXi : minXj, pieceMaxX = other == i ? maxXi : maxXj;
+            double pieceMinZ = other == i ? minZi : minZj, pieceMaxZ = other == i ? maxZi : maxZj;
+            if (pieceMinX < problem.zoneMaxX[opening] && pieceMaxX > problem.zoneMinX[opening]
+                    && pieceMinZ < problem.zoneMaxZ[opening] && pieceMaxZ > problem.zoneMinZ[opening]) {
+                issues |= BLOCKS_ACCESS;
+            }
+            return issues;
+        }
+
+        double gap = Math.max(-overlapX, -overlapZ);
+        FurnitureType typeI = problem.types[i];
+        FurnitureType typeJ = problem.types[j];
+        if (gap > 0 && gap < WALKWAY && !isSeating(typeI, typeJ)
+                && !(typeI == FurnitureType.CHAIR && typeJ == FurnitureType.CHAIR)) {
+            issues |= CRAMPED;
+        }
+        return issues;
+    }
+
+    double halfX(double[] state, int i) {
+        return ((int) state[i * LayoutProblem.STRIDE + 2] & 1) == 0 ? problem.halfX[i] : problem.halfZ[i];
+    }
+
+    double halfZ(double[] state, int i) {
+        return ((int) state[i * LayoutProblem.STRIDE + 2] & 1) == 0 ? problem.halfZ[i] : problem.halfX[i];
+    }
+
+    private static boolean isSeating(FurnitureType a, FurnitureType b) {
+        return (a == FurnitureType.CHAIR && b == FurnitureType.TABLE) || (a == FurnitureType.TABLE && b == FurnitureType.CHAIR);
+    }
+
+    // Pieces that belong with their back to a wall
+    private static boolean standsAtWall(FurnitureType type) {
+        return type == FurnitureType.BED || type == FurnitureType.SOFA
+            || type == FurnitureType.BOOKSHELF || type == FurnitureType.CABINET;
+    }
+}
@@ -0,0 +1,265 @@
+package com.mycompany.furniplanner.layout;
+
+import com.mycompany.furniplanner.model.FurnitureState;
+import com.mycompany.furniplanner.model.SceneSnapshot;
+
+import java.util.Arrays;
+
+// Keeps the LayoutCost score of a room up to date as pieces move. Pieces are filed in
+// a uniform grid by their reach (footprint grown by half the interaction range, plus
+// the access zone for doors and windows), so two pieces can only interact if they
+// share a cell. Each piece keeps the sum of its pair terms; moving one piece takes its
+// old terms out of its neighbors' sums and adds the new ones, touching only nearby
+// pieces instead of all n² pairs.
+public class LayoutEvaluator {
+    private static final double CELL_SIZE = 100; // cm per grid cell
+
+    private final LayoutProblem problem;
+    private final LayoutCost cost;
+    private final double[] state;
+    private final FurnitureState[] states;
+    private final long roomKey;
+    private long version;
+
+    private final double[] unary;
+    private final double[] pairSums;
+    private double total;
+
+    // Grid over the room; pieces outside are filed under the nearest edge cell
+    private final double originX;
+    private final double originZ;
+    private final int columns;
+    private final int rows;
+    private final int[][] cells;
+    private final int[] cellSizes;
+    private final int[] reach; // first column, first row, last column, last row per piece
+
+    // Marks pieces already visited during one query, so none is counted twice
+    private final int[] visited;
+    private int visitStamp;
+
+    public LayoutEvaluator(SceneSnapshot snapshot, double margin) {
+        this.problem = LayoutProblem.fromSnapshot(snapshot, margin);
+        this.cost = new LayoutCost(problem);
+        this.state = problem.initialState();
+        this.states = new FurnitureState[problem.size];
+        this.roomKey = roomKey(snapshot);
+        this.version = snapshot.getVersion();
+        for (int i = 0; i < problem.size; i++) {
+            states[i] = snapshot.get(i);
+        }
+
+        this.unary = new double[problem.size];
+        this.pairSums = new double[problem.size];
+        this.reach = new int[problem.size * 4];
+        this.visited = new int[problem.size];
+
+        double extent = LayoutCost.INTERACTION_RANGE;
+        this.originX = -problem.halfWidth - extent;
+        this.originZ = -problem.halfLength - extent;
+        this.columns = Math.max(1, (int) Math.ceil((2 * problem.halfWidth + 2 * extent) / CELL_SIZE));
+        this.rows = Math.max(1, (int) Math.ceil((2 * problem.halfLength + 2 * extent) / CELL_SIZE));
+        this.cells = new int[columns * rows][];
+        this.cellSizes = new int[columns * rows];
+
+        for (int i = 0; i < problem.size; i++) {
+            file(i);
+        }
+        for (int i = 0; i < problem.size; i++) {
+            unary[i] = cost.unaryCost(state, i);
+            total += unary[i];
+            pairSums[i] = neighborSum(i);
+            total += pairSums[i] / 2; // every pair is counted from both ends
+        }
+    }
+
+    // Brings the evaluator up to date with a newer snapshot of the same room. Only pieces
+    // whose entries changed are updated. Returns false if pieces were added or removed,
+    // or the room was resized; the caller should then build a new evaluator.
+    public boolean sync(SceneSnapshot snapshot) {
+        if (snapshot.getVersion() == version) {
+            return true;
+        }
+        if (snapshot.size() != problem.size || roomKey(snapshot) != roomKey) {
+            return false;
+        }
+        for (int i = 0; i < problem.size; i++) {
+            FurnitureState entry = snapshot.get(i);
+            if (entry.id() != problem.ids[i]) {
+                return false;
+            }
+        }
+
+        // Unchanged slots keep the same entry object between snapshots
+        for (int i = 0; i < problem.size; i++) {
+            FurnitureState entry = snapshot.get(i);
+            if (entry != states[i]) {
+                states[i] = entry;
+                update(i, entry);
+            }
+        }
+        version = snapshot.getVersion();
+        return true;
+    }
+
+    private void update(int i, FurnitureState entry) {
+        // Take the piece's old terms out of its neighbors
+        int stamp = nextStamp();
+        for (int row = reach[i * 4 + 1]; row <= reach[i * 4 + 3]; row++) {
+            for (int column = reach[i * 4]; column <= reach[i * 4 + 2]; column++) {
+                int cell = row * columns + column;
+                for (int k = 0; k < cellSizes[cell]; k++) {
+                    int j = cells[cell][k];
+                    if (j != i && visited[j] != stamp) {
+                        visited[j] = stamp;
+                        pairSums[j] -= cost.pairCost(state, i, j);
+                    }
+                }
+            }
+        }
+        total -= unary[i] + pairSums[i];
+        unfile(i);
+
+        problem.setPiece(i, entry);
+        System.arraycopy(problem.initial, i * LayoutProblem.STRIDE, state, i * LayoutProblem.STRIDE, LayoutProblem.STRIDE);
+
+        file(i);
+        unary[i] = cost.unaryCost(state, i);
+        pairSums[i] = neighborSum(i);
+        total += unary[i] + pairSums[i];
+        addToNeighbors(i);
+    }
+
+    // Sum of the pair terms between i and every piece sharing a cell with it
+    private double neighborSum(int i) {
+        int stamp = nextStamp();
+        double sum = 0;
+        for (int row = reach[i * 4 + 1]; row <= reach[i * 4 + 3]; row++) {
+            for (int column = reach[i * 4]; column <= reach[i * 4 + 2]; column++) {
+                int cell = row * columns + column;
+                for (int k = 0; k < cellSizes[cell]; k++) {
+                    int j = cells[cell][k];
+                    if (j != i && visited[j] != stamp) {
+                        visited[j] = stamp;
+                        sum += cost.pairCost(state, i, j);
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    private void addToNeighbors(int i) {
+        int stamp = nextStamp();
+        for (int row = reach[i * 4 + 1]; row <= reach[i * 4 + 3]; row++) {
+            for (int column = reach[i * 4]; column <= reach[i * 4 + 2]; column++) {
+                int cell = row * columns + column;
+                for (int k = 0; k < cellSizes[cell]; k++) {
+                    int j = cells[cell][k];
+                    if (j != i && visited[j] != stamp) {
+                        visited[j] = stamp;
+                        pairSums[j] += cost.pairCost(state, i, j);
+                    }
+                }
+            }
+        }
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    // Score of the terms involving the piece in the given slot
+    public double getPieceCost(int slot) {
+        return unary[slot] + pairSums[slot];
+    }
+
+    // LayoutCost flags for everything wrong between the piece in the given slot and its neighbors
+    public int getIssues(int slot) {
+        int stamp = nextStamp();
+        int issues = 0;
+        for (int row = reach[slot * 4 + 1]; row <= reach[slot * 4 + 3]; row++) {
+            for (int column = reach[slot * 4]; column <= reach[slot * 4 + 2]; column++) {
+                int cell = row * columns + column;
+                for (int k = 0; k < cellSizes[cell]; k++) {
+                    int j = cells[cell][k];
+                    if (j != slot && visited[j] != stamp) {
+                        visited[j] = stamp;
+                        issues |= cost.pairIssues(state, slot, j);
+                    }
+                }
+            }
+        }
+        return issues;
+    }
+
+    public int size() {
+        return problem.size;
+    }
+
+    private void file(int i) {
+        int base = i * LayoutProblem.STRIDE;
+        double grow = LayoutCost.INTERACTION_RANGE / 2;
+        double minX = state[base] - cost.halfX(state, i) - grow;
+        double maxX = state[base] + cost.halfX(state, i) + grow;
+        double minZ = state[base + 1] - cost.halfZ(state, i) - grow;
+        double maxZ = state[base + 1] + cost.halfZ(state, i) + grow;
+        if (problem.fixed[i]) {
+            minX = Math.min(minX, problem.zoneMinX[i] - grow);
+            maxX = Math.max(maxX, problem.zoneMaxX[i] + grow);
+            minZ = Math.min(minZ, problem.zoneMinZ[i] - grow);
+            maxZ = Math.max(maxZ, problem.zoneMaxZ[i] + grow);
+        }
+
+        reach[i * 4] = column(minX);
+        reach[i * 4 + 1] = row(minZ);
+        reach[i * 4 + 2] = column(maxX);
+        reach[i * 4 + 3] = row(maxZ);
+        for (int row = reach[i * 4 + 1]; row <= reach[i * 4 + 3]; row++) {
+            for (int column = reach[i * 4]; column <= reach[i * 4 + 2]; column++) {
+                int cell = row * columns + column;
+                if (cells[cell] == null) {
+                    cells[cell] = new int[4];
+                } else if (cellSizes[cell] == cells[cell].length) {
+                    cells[cell] = Arrays.copyOf(cells[cell], cellSizes[cell] * 2);
+                }
+                cells[cell][cellSizes[cell]++] = i;
+            }
+        }
+    }
+
+    private void unfile(int i) {
+        for (int row = reach[i * 4 + 1]; row <= reach[i * 4 + 3]; row++) {
+            for (int column = reach[i * 4]; column <= reach[i * 4 + 2]; column++) {
+                int cell = row * columns + column;
+                int[] members = cells[cell];
+                for (int k = 0; k < cellSizes[cell]; k++) {
+                    if (members[k] == i) {
+                        members[k] = members[--cellSizes[cell]];
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - originX) / CELL_SIZE)));
+    }
+
+    private int row(double z) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((z - originZ) / CELL_SIZE)));
+    }
+
+    private int nextStamp() {
+        if (++visitStamp == 0) {
+            Arrays.fill(visited, 0);
+            visitStamp = 1;
+        }
+        return visitStamp;
+    }
+
+    private static long roomKey(SceneSnapshot snapshot) {
+        return ((long) snapshot.getRoomWidth() << 32) | snapshot.getRoomLength();
+    }
+}
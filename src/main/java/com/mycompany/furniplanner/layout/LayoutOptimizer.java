@@ -0,0 +1,227 @@
+package com.mycompany.furniplanner.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+
+// Parallel simulated annealing over furniture positions and quarter-turn rotations.
+// Several chains run side by side on a ForkJoinPool, each at its own temperature.
+// They run in short rounds; after every round the worst chain restarts from the best
+// layout found so far. Each step moves, turns or swaps one piece and is scored from
+// that piece's cost terms only, so a step costs O(n) and allocates nothing.
+public class LayoutOptimizer {
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 2000;
+
+    private static final int ROUND_ITERATIONS = 4000;
+    private static final double START_TEMPERATURE = 500;
+    private static final double END_TEMPERATURE = 0.5;
+    private static final double MIN_STEP = 2;  // cm
+
+    private final LayoutProblem problem;
+    private final LayoutCost cost;
+    private final ForkJoinPool pool;
+    private final int chainCount;
+    private final int[] movable;
+
+    public LayoutOptimizer(LayoutProblem problem) {
+        this(problem, ForkJoinPool.commonPool());
+    }
+
+    public LayoutOptimizer(LayoutProblem problem, ForkJoinPool pool) {
+        this.problem = problem;
+        this.cost = new LayoutCost(problem);
+        this.pool = pool;
+        this.chainCount = Math.max(2, pool.getParallelism());
+
+        int count = 0;
+        for (int i = 0; i < problem.size; i++) {
+            if (!problem.fixed[i]) {
+                count++;
+            }
+        }
+        this.movable = new int[count];
+        for (int i = 0, next = 0; i < problem.size; i++) {
+            if (!problem.fixed[i]) {
+                movable[next++] = i;
+            }
+        }
+    }
+
+    public Layout optimize(long timeLimitMillis) {
+        return optimize(timeLimitMillis, () -> false);
+    }
+
+    // Runs until the time is up or cancelled returns true, and returns the best layout seen.
+    // The starting arrangement is returned unchanged if nothing better turns up.
+    public Layout optimize(long timeLimitMillis, BooleanSupplier cancelled) {
+        double[] start = problem.initialState();
+        double startCost = cost.total(start);
+        if (movable.length == 0) {
+            return new Layout(problem, start, startCost);
+        }
+
+        List<Chain> chains = new ArrayList<>(chainCount);
+        for (int c = 0; c < chainCount; c++) {
+            // Chains run hotter than one another by factors of two, so some explore while others refine
+            chains.add(new Chain(start, startCost, 1 << (c % 4), c));
+        }
+
+        double[] best = start.clone();
+        double bestCost = startCost;
+        long begin = System.nanoTime();
+        long limit = Math.max(1, timeLimitMillis) * 1_000_000L;
+
+        while (!cancelled.getAsBoolean()) {
+            double progress = (System.nanoTime() - begin) / (double) limit;
+            if (progress >= 1) {
+                break;
+            }
+            double temperature = START_TEMPERATURE * Math.pow(END_TEMPERATURE / START_TEMPERATURE, progress);
+            for (Chain chain : chains) {
+                chain.temperature = temperature * chain.heat;
+            }
+            pool.invokeAll(chains);
+
+            Chain worst = chains.get(0);
+            for (Chain chain : chains) {
+                if (chain.bestCost < bestCost) {
+                    bestCost = chain.bestCost;
+                    System.arraycopy(chain.best, 0, best, 0, best.length);
+                }
+                if (chain.currentCost > worst.currentCost) {
+                    worst = chain;
+                }
+            }
+            worst.restartFrom(best, bestCost);
+        }
+        // The running totals drift a little over millions of small updates
+        return new Layout(problem, best, cost.total(best));
+    }
+
+    private class Chain implements Callable<Void> {
+        final double[] state;
+        final double[] best;
+        final double heat;
+        final SplittableRandom random;
+        double currentCost;
+        double bestCost;
+        double temperature;
+
+        Chain(double[] start, double startCost, double heat, long seed) {
+            this.state = start.clone();
+            this.best = start.clone();
+            this.heat = heat;
+            this.random = new SplittableRandom(seed);
+            this.currentCost = startCost;
+            this.bestCost = startCost;
+        }
+
+        void restartFrom(double[] layout, double layoutCost) {
+            System.arraycopy(layout, 0, state, 0, state.length);
+            currentCost = layoutCost;
+        }
+
+        @Override
+        public Void call() {
+            // Steps shrink with the temperature, from room-sized jumps to small nudges
+            double step = Math.max(MIN_STEP, Math.max(problem.halfWidth, problem.halfLength)
+                                              * Math.min(1, temperature / START_TEMPERATURE));
+            for (int iteration = 0; iteration < ROUND_ITERATIONS; iteration++) {
+                int i = movable[random.nextInt(movable.length)];
+                double choice = random.nextDouble();
+                if (choice < 0.1 && movable.length > 1) {
+                    int j = movable[random.nextInt(movable.length)];
+                    if (j != i) {
+                        trySwap(i, j);
+                    }
+                } else if (choice < 0.25) {
+                    tryTurn(i);
+                } else {
+                    tryMove(i, step);
+                }
+            }
+            return null;
+        }
+
+        private void tryMove(int i, double step) {
+            int base = i * LayoutProblem.STRIDE;
+            double oldX = state[base];
+            double oldZ = state[base + 1];
+            double before = cost.pieceCost(state, i);
+
+            state[base] = oldX + random.nextDouble(-step, step);
+            state[base + 1] = oldZ + random.nextDouble(-step, step);
+            clampToRoom(i);
+
+            if (!accept(cost.pieceCost(state, i) - before)) {
+                state[base] = oldX;
+                state[base + 1] = oldZ;
+            }
+        }
+
+        private void tryTurn(int i) {
+            int base = i * LayoutProblem.STRIDE;
+            double oldX = state[base];
+            double oldZ = state[base + 1];
+            double oldTurns = state[base + 2];
+            double before = cost.pieceCost(state, i);
+
+            state[base + 2] = ((int) oldTurns + (random.nextBoolean() ? 1 : 3)) % 4;
+            clampToRoom(i);
+
+            if (!accept(cost.pieceCost(state, i) - before)) {
+                state[base] = oldX;
+                state[base + 1] = oldZ;
+                state[base + 2] = oldTurns;
+            }
+        }
+
+        private void trySwap(int i, int j) {
+            int a = i * LayoutProblem.STRIDE;
+            int b = j * LayoutProblem.STRIDE;
+            double xi = state[a], zi = state[a + 1];
+            double xj = state[b], zj = state[b + 1];
+            // The pair term appears in both piece costs, so it is counted once
+            double before = cost.pieceCost(state, i) + cost.pieceCost(state, j) - cost.pairCost(state, i, j);
+
+            state[a] = xj;
+            state[a + 1] = zj;
+            state[b] = xi;
+            state[b + 1] = zi;
+            clampToRoom(i);
+            clampToRoom(j);
+
+            double after = cost.pieceCost(state, i) + cost.pieceCost(state, j) - cost.pairCost(state, i, j);
+            if (!accept(after - before)) {
+                state[a] = xi;
+                state[a + 1] = zi;
+                state[b] = xj;
+                state[b + 1] = zj;
+            }
+        }
+
+        // Metropolis rule; accepted steps update the running and best costs
+        private boolean accept(double delta) {
+            if (delta > 0 && random.nextDouble() >= Math.exp(-delta / temperature)) {
+                return false;
+            }
+            currentCost += delta;
+            if (currentCost < bestCost - 1e-9) {
+                bestCost = currentCost;
+                System.arraycopy(state, 0, best, 0, state.length);
+            }
+            return true;
+        }
+
+        private void clampToRoom(int i) {
+            int base = i * LayoutProblem.STRIDE;
+            double limitX = Math.max(0, problem.halfWidth - cost.halfX(state, i));
+            double limitZ = Math.max(0, problem.halfLength - cost.halfZ(state, i));
+            state[base] = Math.max(-limitX, Math.min(limitX, state[base]));
+            state[base + 1] = Math.max(-limitZ, Math.min(limitZ, state[base + 1]));
+        }
+    }
+}
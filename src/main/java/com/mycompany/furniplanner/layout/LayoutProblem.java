@@ -0,0 +1,142 @@
+package com.mycompany.furniplanner.layout;
+
+import com.mycompany.furniplanner.model.FurnitureState;
+import com.mycompany.furniplanner.model.FurnitureType;
+import com.mycompany.furniplanner.model.SceneSnapshot;
+
+// Flat, read-only description of a room to arrange, taken from a scene snapshot.
+// Doors and windows stay where they are; every other piece may move and turn in
+// quarter turns. Footprints are axis-aligned, so a quarter turn swaps width and length.
+public final class LayoutProblem {
+    // A layout state holds these values per piece: x, z and quarter turns (0-3)
+    public static final int STRIDE = 3;
+
+    final int size;
+    final double halfWidth;
+    final double halfLength;
+
+    final int[] ids;
+    final FurnitureType[] types;
+    final boolean[] fixed;
+    final double[] heights;
+    final double[] baseRotations;
+
+    // Footprint half sizes at zero quarter turns
+    final double[] halfX;
+    final double[] halfZ;
+
+    // Clear area in front of each door or window, empty for other pieces
+    final double[] zoneMinX;
+    final double[] zoneMinZ;
+    final double[] zoneMaxX;
+    final double[] zoneMaxZ;
+
+    final double[] initial;
+
+    private LayoutProblem(int size, double halfWidth, double halfLength) {
+        this.size = size;
+        this.halfWidth = halfWidth;
+        this.halfLength = halfLength;
+        this.ids = new int[size];
+        this.types = new FurnitureType[size];
+        this.fixed = new boolean[size];
+        this.heights = new double[size];
+        this.baseRotations = new double[size];
+        this.halfX = new double[size];
+        this.halfZ = new double[size];
+        this.zoneMinX = new double[size];
+        this.zoneMinZ = new double[size];
+        this.zoneMaxX = new double[size];
+        this.zoneMaxZ = new double[size];
+        this.initial = new double[size * STRIDE];
+    }
+
+    // margin keeps pieces clear of the walls, which stand inside the room's outline
+    public static LayoutProblem fromSnapshot(SceneSnapshot snapshot, double margin) {
+        LayoutProblem problem = new LayoutProblem(snapshot.size(),
+                Math.max(0, snapshot.getRoomWidth() / 2.0 - margin),
+                Math.max(0, snapshot.getRoomLength() / 2.0 - margin));
+
+        for (int i = 0; i < problem.size; i++) {
+            problem.setPiece(i, snapshot.get(i));
+        }
+        return problem;
+    }
+
+    // Takes piece i from a snapshot entry; also used to follow live edits
+    void setPiece(int i, FurnitureState state) {
+        double width = state.dimension().getWidth();
+        double length = state.dimension().getLength();
+        double rotation = state.rotation().getY();
+
+        ids[i] = state.id();
+        types[i] = state.type();
+        heights[i] = state.dimension().getHeight();
+        baseRotations[i] = rotation;
+        fixed[i] = state.type() == FurnitureType.DOOR || state.type() == FurnitureType.WINDOW;
+
+        double cos = Math.abs(Math.cos(Math.toRadians(rotation)));
+        double sin = Math.abs(Math.sin(Math.toRadians(rotation)));
+        halfX[i] = (cos * width + sin * length) / 2;
+        halfZ[i] = (sin * width + cos * length) / 2;
+
+        int base = i * STRIDE;
+        initial[base] = state.position().getX();
+        initial[base + 1] = state.position().getZ();
+        initial[base + 2] = 0;
+
+        if (fixed[i]) {
+            setAccessZone(i, Math.max(width, length));
+        }
+    }
+
+    // The zone reaches from the nearest wall into the room, as deep as the opening is wide
+    private void setAccessZone(int i, double depth) {
+        double x = initial[i * STRIDE];
+        double z = initial[i * STRIDE + 1];
+        double span = Math.max(halfX[i], halfZ[i]);
+        double toLeft = x + halfWidth;
+        double toRight = halfWidth - x;
+        double toBack = z + halfLength;
+        double toFront = halfLength - z;
+        double nearest = Math.min(Math.min(toLeft, toRight), Math.min(toBack, toFront));
+
+        if (nearest == toLeft || nearest == toRight) {
+            double inward = nearest == toLeft ? 1 : -1;
+            double start = x + inward * halfX[i];
+            zoneMinX[i] = Math.min(start, start + inward * depth);
+            zoneMaxX[i] = Math.max(start, start + inward * depth);
+            zoneMinZ[i] = z - span;
+            zoneMaxZ[i] = z + span;
+        } else {
+            double inward = nearest == toBack ? 1 : -1;
+            double start = z + inward * halfZ[i];
+            zoneMinZ[i] = Math.min(start, start + inward * depth);
+            zoneMaxZ[i] = Math.max(start, start + inward * depth);
+            zoneMinX[i] = x - span;
+            zoneMaxX[i] = x + span;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int i) {
+        return ids[i];
+    }
+
+    public boolean isFixed(int i) {
+        return fixed[i];
+    }
+
+    // Copy of the current arrangement, the usual starting point
+    public double[] initialState() {
+        return initial.clone();
+    }
+
+    // Y rotation in degrees of piece i in the given state
+    public double rotationOf(double[] state, int i) {
+        return (baseRotations[i] + 90 * state[i * STRIDE + 2]) % 360;
+    }
+}
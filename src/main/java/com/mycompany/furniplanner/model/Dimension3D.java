@@ -1,15 +1,7 @@
 package com.mycompany.furniplanner.model;
 
-public class Dimension3D {
-    private double width;
-    private double height;
-    private double length;
-    
-    public Dimension3D(double width, double height, double length) {
-        this.width = width;
-        this.height = height;
-        this.length = length;
-    }
+// Immutable furniture size in cm; replace the whole value to resize
+public record Dimension3D(double width, double height, double length) {
     
     public double getWidth() {
         return width;
@@ -22,16 +14,4 @@ public class Dimension3D {
     public double getLength() {
         return length;
     }
-    
-    public void setWidth(double width) {
-        this.width = width;
-    }
-    
-    public void setHeight(double height) {
-        this.height = height;
-    }
-    
-    public void setLength(double length) {
-        this.length = length;
-    }
-}
\ No newline at end of file
+}
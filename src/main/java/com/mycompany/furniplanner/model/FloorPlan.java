@@ -0,0 +1,104 @@
+package com.mycompany.furniplanner.model;
+
+import com.mycompany.furniplanner.event.SceneEventBus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// A set of rooms placed side by side in world space, e.g. an apartment or an office
+// floor. Each room keeps its own furniture store and bounds, so work on one room
+// never scans the others. Editing happens in the active room.
+public class FloorPlan {
+    private final List<Room> rooms = new ArrayList<>();
+    private Room activeRoom;
+    private SceneEventBus eventBus;
+    
+    public FloorPlan(Room firstRoom) {
+        addRoom(firstRoom);
+    }
+    
+    public List<Room> getRooms() {
+        return Collections.unmodifiableList(rooms);
+    }
+    
+    public int getRoomCount() {
+        return rooms.size();
+    }
+    
+    public Room getActiveRoom() {
+        return activeRoom;
+    }
+    
+    public void setActiveRoom(Room room) {
+        if (rooms.contains(room)) {
+            activeRoom = room;
+        }
+    }
+    
+    // The first room added becomes the active one
+    public void addRoom(Room room) {
+        rooms.add(room);
+        if (eventBus != null) {
+            room.setEventBus(eventBus);
+        }
+        if (activeRoom == null) {
+            activeRoom = room;
+        }
+    }
+    
+    // Replaces every room with a single new one
+    public void reset(Room room) {
+        rooms.clear();
+        activeRoom = null;
+        addRoom(room);
+    }
+    
+    // Room whose furniture lives in the given store, or null
+    public Room findRoom(FurnitureStore store) {
+        for (Room room : rooms) {
+            if (room.getFurnitureStore() == store) {
+                return room;
+            }
+        }
+        return null;
+    }
+    
+    // Detached copy of every room and its furniture, e.g. for drawing the plan on another
+    // thread while this one is edited. The copy has no event bus.
+    public FloorPlan copy() {
+        FloorPlan copy = null;
+        for (Room room : rooms) {
+            Room roomCopy = room.copy();
+            if (copy == null) {
+                copy = new FloorPlan(roomCopy);
+            } else {
+                copy.addRoom(roomCopy);
+            }
+            if (room == activeRoom) {
+                copy.setActiveRoom(roomCopy);
+            }
+        }
+        return copy;
+    }
+    
+    // Largest world X covered by any room's walls
+    public double getMaxX() {
+        double maxX = Double.NEGATIVE_INFINITY;
+        for (Room room : rooms) {
+            maxX = Math.max(maxX, room.getOriginX() + room.getWidth() / 2.0);
+        }
+        return maxX;
+    }
+    
+    public SceneEventBus getEventBus() {
+        return eventBus;
+    }
+    
+    public void setEventBus(SceneEventBus eventBus) {
+        this.eventBus = eventBus;
+        for (Room room : rooms) {
+            room.setEventBus(eventBus);
+        }
+    }
+}
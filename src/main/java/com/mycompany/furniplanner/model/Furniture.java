@@ -1,94 +1,147 @@
 package com.mycompany.furniplanner.model;
 
+// Lightweight view onto one slot of a FurnitureStore. A piece that is not part
+// of a room owns a single-slot store; Room moves it into the room's store.
 public class Furniture {
-    private String name;
-    private FurnitureType type;
-    private Vector3D position;
-    private Vector3D rotation; // in degrees
-    private Dimension3D dimension;
+    private FurnitureStore store;
+    private int id;
     
     public Furniture(String name, FurnitureType type, Vector3D position) {
-        this.name = name;
-        this.type = type;
-        this.position = position;
-        this.rotation = new Vector3D(0, 0, 0);
-        
-        // Set default dimensions based on type
+        this.store = new FurnitureStore(1);
+        this.id = store.add(this, name, type, position.getX(), position.getY(), position.getZ(),
+                            new Vector3D(0, 0, 0), defaultDimension(type));
+    }
+    
+    // Default dimensions based on type
+    private static Dimension3D defaultDimension(FurnitureType type) {
         switch (type) {
             case TABLE:
-                this.dimension = new Dimension3D(80, 75, 120); // width, height, length in cm
-                break;
+                return new Dimension3D(80, 75, 120); // width, height, length in cm
             case CHAIR:
-                this.dimension = new Dimension3D(45, 90, 45);
-                break;
+                return new Dimension3D(45, 90, 45);
             case SOFA:
-                this.dimension = new Dimension3D(90, 85, 200);
-                break;
+                return new Dimension3D(90, 85, 200);
             case BED:
-                this.dimension = new Dimension3D(160, 50, 200);
-                break;
+                return new Dimension3D(160, 50, 200);
             case WINDOW:
-                this.dimension = new Dimension3D(100, 120, 10);
-                break;
+                return new Dimension3D(100, 120, 10);
             case DOOR:
-                this.dimension = new Dimension3D(90, 200, 10);
-                break;
+                return new Dimension3D(90, 200, 10);
             case BOOKSHELF:
-                this.dimension = new Dimension3D(40, 180, 100);
-                break;
+                return new Dimension3D(40, 180, 100);
             case CABINET:
-                this.dimension = new Dimension3D(50, 100, 80);
-                break;
+                return new Dimension3D(50, 100, 80);
             default:
-                this.dimension = new Dimension3D(50, 50, 50);
+                return new Dimension3D(50, 50, 50);
         }
     }
     
+    // Moves this piece's data into another store, e.g. when it is added to a room
+    void attach(FurnitureStore target) {
+        if (target == store) {
+            return;
+        }
+        FurnitureStore source = store;
+        int sourceId = id;
+        copyInto(target);
+        source.remove(sourceId);
+    }
+    
+    // Moves this piece into its own single-slot store, e.g. when it is removed from a room
+    void detach() {
+        attach(new FurnitureStore(1));
+    }
+    
+    // Like detach(), but leaves the old slot in place for the caller to remove in bulk
+    void detachCopy() {
+        copyInto(new FurnitureStore(1));
+    }
+    
+    private void copyInto(FurnitureStore target) {
+        int slot = slot();
+        int newId = target.add(this, store.getName(slot), store.getType(slot),
+                               store.getX(slot), store.getY(slot), store.getZ(slot),
+                               store.getRotation(slot), store.getDimension(slot));
+        store = target;
+        id = newId;
+    }
+    
+    private int slot() {
+        return store.slotOf(id);
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public FurnitureStore getStore() {
+        return store;
+    }
+    
     public String getName() {
-        return name;
+        return store.getName(slot());
     }
     
     public void setName(String name) {
-        this.name = name;
+        store.setName(slot(), name);
     }
     
     public FurnitureType getType() {
-        return type;
+        return store.getType(slot());
     }
     
     public Vector3D getPosition() {
-        return position;
+        return store.getPosition(slot());
     }
     
     public void setPosition(Vector3D position) {
-        this.position = position;
+        store.setPosition(slot(), position);
+    }
+    
+    public void setPosition(double x, double y, double z) {
+        store.setPosition(slot(), x, y, z);
+    }
+    
+    // Allocation-free position access for render and drag loops
+    public double getX() {
+        return store.getX(slot());
+    }
+    
+    public double getY() {
+        return store.getY(slot());
+    }
+    
+    public double getZ() {
+        return store.getZ(slot());
     }
     
     public Vector3D getRotation() {
-        return rotation;
+        return store.getRotation(slot());
     }
     
     public void setRotation(Vector3D rotation) {
-        this.rotation = rotation;
+        store.setRotation(slot(), rotation);
     }
     
     public Dimension3D getDimension() {
-        return dimension;
+        return store.getDimension(slot());
     }
     
     public void setDimension(Dimension3D dimension) {
-        this.dimension = dimension;
+        store.setDimension(slot(), dimension);
     }
     
     public void rotate(double degrees) {
-        this.rotation = new Vector3D(rotation.getX(), rotation.getY() + degrees, rotation.getZ());
+        Vector3D rotation = getRotation();
+        setRotation(new Vector3D(rotation.getX(), rotation.getY() + degrees, rotation.getZ()));
     }
     
     public void move(Vector3D delta) {
-        this.position = new Vector3D(
-            position.getX() + delta.getX(),
-            position.getY() + delta.getY(),
-            position.getZ() + delta.getZ()
-        );
+        move(delta.getX(), delta.getY(), delta.getZ());
+    }
+    
+    public void move(double dx, double dy, double dz) {
+        int slot = slot();
+        store.setPosition(slot, store.getX(slot) + dx, store.getY(slot) + dy, store.getZ(slot) + dz);
     }
-}
\ No newline at end of file
+}
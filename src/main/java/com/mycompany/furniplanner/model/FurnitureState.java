@@ -0,0 +1,6 @@
+package com.mycompany.furniplanner.model;
+
+// Immutable copy of one furniture slot as it was when a SceneSnapshot was taken
+public record FurnitureState(int id, String name, FurnitureType type,
+                             Vector3D position, Vector3D rotation, Dimension3D dimension) {
+}
@@ -0,0 +1,511 @@
+package com.mycompany.furniplanner.model;
+
+import com.mycompany.furniplanner.event.SceneEvent;
+import com.mycompany.furniplanner.event.SceneEventBus;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Structure-of-arrays storage for furniture. Each piece occupies one slot across
+// parallel primitive arrays and keeps a stable integer id while it is in the store.
+// Furniture objects are lightweight views onto a slot.
+//
+// The store is edited from a single thread (the EDT). Every edit also publishes an
+// immutable SceneSnapshot, so other threads read a consistent scene through
+// snapshot() instead of touching the arrays.
+public class FurnitureStore {
+    private int size;
+    private int[] ids;
+    private Furniture[] views;
+    private String[] names;
+    private FurnitureType[] types;
+    private double[] x;
+    private double[] y;
+    private double[] z;
+    private double[] rotationX; // in degrees
+    private double[] rotationY;
+    private double[] rotationZ;
+    private double[] width;
+    private double[] height;
+    private double[] length;
+    
+    // Value objects handed out by the views, created on demand and dropped on change
+    private Vector3D[] positions;
+    private Vector3D[] rotations;
+    private Dimension3D[] dimensions;
+    
+    // id -> slot, -1 once the id has been removed
+    private int[] slotById = new int[16];
+    private int nextId;
+    
+    // Incremented whenever slots are added, removed or reordered
+    private int structureVersion;
+    
+    private final List<Furniture> viewList = new ViewList();
+    
+    // Latest published state; volatile so readers see fully built snapshots
+    private volatile SceneSnapshot snapshot = SceneSnapshot.EMPTY;
+    
+    // Slots changed since the last publish, one bit per slot and one int per chunk
+    private int[] dirtyChunks;
+    private int batchDepth;
+    
+    // Receives one event per changed piece; null for stores outside a room
+    private SceneEventBus eventBus;
+    
+    // World position of the owning room's center; slot positions are relative to it
+    private double originX;
+    private double originZ;
+    
+    public FurnitureStore() {
+        this(16);
+    }
+    
+    public FurnitureStore(int initialCapacity) {
+        allocate(Math.max(1, initialCapacity));
+    }
+    
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        views = new Furniture[capacity];
+        names = new String[capacity];
+        types = new FurnitureType[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        z = new double[capacity];
+        rotationX = new double[capacity];
+        rotationY = new double[capacity];
+        rotationZ = new double[capacity];
+        width = new double[capacity];
+        height = new double[capacity];
+        length = new double[capacity];
+        positions = new Vector3D[capacity];
+        rotations = new Vector3D[capacity];
+        dimensions = new Dimension3D[capacity];
+        dirtyChunks = new int[chunkCount(capacity)];
+    }
+    
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        views = Arrays.copyOf(views, newCapacity);
+        names = Arrays.copyOf(names, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        z = Arrays.copyOf(z, newCapacity);
+        rotationX = Arrays.copyOf(rotationX, newCapacity);
+        rotationY = Arrays.copyOf(rotationY, newCapacity);
+        rotationZ = Arrays.copyOf(rotationZ, newCapacity);
+        width = Arrays.copyOf(width, newCapacity);
+        height = Arrays.copyOf(height, newCapacity);
+        length = Arrays.copyOf(length, newCapacity);
+        positions = Arrays.copyOf(positions, newCapacity);
+        rotations = Arrays.copyOf(rotations, newCapacity);
+        dimensions = Arrays.copyOf(dimensions, newCapacity);
+        dirtyChunks = Arrays.copyOf(dirtyChunks, chunkCount(newCapacity));
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int getStructureVersion() {
+        return structureVersion;
+    }
+    
+    // Consistent, immutable view of the store for use on any thread
+    public SceneSnapshot snapshot() {
+        return snapshot;
+    }
+    
+    public double getOriginX() {
+        return originX;
+    }
+    
+    public double getOriginZ() {
+        return originZ;
+    }
+    
+    void setOrigin(double originX, double originZ) {
+        this.originX = originX;
+        this.originZ = originZ;
+    }
+    
+    void setEventBus(SceneEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+    
+    private void post(SceneEvent event) {
+        if (eventBus != null) {
+            eventBus.post(event);
+        }
+    }
+    
+    void setRoom(int width, int length, int height, boolean hasCeiling) {
+        snapshot = snapshot.withRoom(width, length, height, hasCeiling);
+    }
+    
+    // Runs several edits and publishes a single snapshot afterwards
+    public void runBatch(Runnable edits) {
+        batchDepth++;
+        try {
+            edits.run();
+        } finally {
+            batchDepth--;
+            publish();
+        }
+    }
+    
+    private static int chunkCount(int slots) {
+        return (slots + SceneSnapshot.CHUNK_MASK) >>> SceneSnapshot.CHUNK_SHIFT;
+    }
+    
+    private void markDirty(int fromSlot, int toSlot) {
+        for (int s = fromSlot; s < toSlot; s++) {
+            dirtyChunks[s >>> SceneSnapshot.CHUNK_SHIFT] |= 1 << (s & SceneSnapshot.CHUNK_MASK);
+        }
+    }
+    
+    // Builds the next snapshot from the dirty slots. Only chunks containing a dirty
+    // slot are copied; all others are shared with the previous snapshot.
+    private void publish() {
+        if (batchDepth > 0) {
+            return;
+        }
+        
+        FurnitureState[][] chunks = snapshot.chunks();
+        int chunkCount = chunkCount(size);
+        FurnitureState[][] nextChunks = Arrays.copyOf(chunks, chunkCount);
+        for (int c = 0; c < dirtyChunks.length; c++) {
+            int bits = dirtyChunks[c];
+            if (bits == 0) {
+                continue;
+            }
+            dirtyChunks[c] = 0;
+            if (c >= chunkCount) {
+                continue; // Chunk lies past the end and was dropped above
+            }
+            
+            FurnitureState[] states = c < chunks.length ? chunks[c].clone() : new FurnitureState[SceneSnapshot.CHUNK_SIZE];
+            int base = c << SceneSnapshot.CHUNK_SHIFT;
+            while (bits != 0) {
+                int bit = Integer.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int slot = base + bit;
+                states[bit] = slot < size ? stateAt(slot) : null;
+            }
+            nextChunks[c] = states;
+        }
+        snapshot = snapshot.withFurniture(size, nextChunks);
+    }
+    
+    private FurnitureState stateAt(int slot) {
+        return new FurnitureState(ids[slot], names[slot], types[slot],
+                                  getPosition(slot), getRotation(slot), dimensions[slot]);
+    }
+    
+    // Appends a piece and returns its id
+    int add(Furniture view, String name, FurnitureType type, double px, double py, double pz,
+            Vector3D rotation, Dimension3D dimension) {
+        ensureCapacity(size + 1);
+        
+        int id = nextId++;
+        if (id == slotById.length) {
+            slotById = Arrays.copyOf(slotById, id * 2);
+        }
+        slotById[id] = size;
+        
+        int slot = size++;
+        ids[slot] = id;
+        views[slot] = view;
+        names[slot] = name;
+        types[slot] = type;
+        x[slot] = px;
+        y[slot] = py;
+        z[slot] = pz;
+        writeRotation(slot, rotation);
+        writeDimension(slot, dimension);
+        positions[slot] = null;
+        structureVersion++;
+        markDirty(slot, slot + 1);
+        publish();
+        post(new SceneEvent.FurnitureAdded(this, id));
+        return id;
+    }
+    
+    // Removes a piece by moving the last piece into its slot, so undoing an add or
+    // redoing a remove touches two slots and at most two snapshot chunks whatever the
+    // size of the room. Slot order is therefore not insertion order; ids are.
+    void remove(int id) {
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return;
+        }
+        
+        removeSlot(slot);
+        structureVersion++;
+        publish();
+        post(new SceneEvent.FurnitureRemoved(this, id));
+    }
+    
+    // Removes several pieces, each in constant time like remove()
+    void removeAll(int[] removeIds, int count) {
+        int removed = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = slotOf(removeIds[i]);
+            if (slot >= 0) {
+                removeSlot(slot);
+                removed++;
+                post(new SceneEvent.FurnitureRemoved(this, removeIds[i]));
+            }
+        }
+        if (removed > 0) {
+            structureVersion++;
+            publish();
+        }
+    }
+    
+    private void removeSlot(int slot) {
+        int last = --size;
+        slotById[ids[slot]] = -1;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            views[slot] = views[last];
+            names[slot] = names[last];
+            types[slot] = types[last];
+            x[slot] = x[last];
+            y[slot] = y[last];
+            z[slot] = z[last];
+            rotationX[slot] = rotationX[last];
+            rotationY[slot] = rotationY[last];
+            rotationZ[slot] = rotationZ[last];
+            width[slot] = width[last];
+            height[slot] = height[last];
+            length[slot] = length[last];
+            positions[slot] = positions[last];
+            rotations[slot] = rotations[last];
+            dimensions[slot] = dimensions[last];
+            slotById[ids[slot]] = slot;
+            markDirty(slot, slot + 1);
+        }
+        clearSlot(last);
+        markDirty(last, last + 1);
+    }
+    
+    void clear() {
+        markDirty(0, size);
+        for (int s = 0; s < size; s++) {
+            slotById[ids[s]] = -1;
+            post(new SceneEvent.FurnitureRemoved(this, ids[s]));
+            clearSlot(s);
+        }
+        size = 0;
+        structureVersion++;
+        publish();
+    }
+    
+    private void clearSlot(int slot) {
+        // Drop references so removed views can be collected
+        views[slot] = null;
+        names[slot] = null;
+        types[slot] = null;
+        positions[slot] = null;
+        rotations[slot] = null;
+        dimensions[slot] = null;
+    }
+    
+    public boolean contains(int id) {
+        return slotOf(id) >= 0;
+    }
+    
+    public int slotOf(int id) {
+        return id >= 0 && id < nextId ? slotById[id] : -1;
+    }
+    
+    public int idAt(int slot) {
+        return ids[slot];
+    }
+    
+    public Furniture viewAt(int slot) {
+        return views[slot];
+    }
+    
+    // Read-only list of the views in slot order, which removals reshuffle
+    public List<Furniture> asList() {
+        return viewList;
+    }
+    
+    public String getName(int slot) {
+        return names[slot];
+    }
+    
+    public FurnitureType getType(int slot) {
+        return types[slot];
+    }
+    
+    public double getX(int slot) {
+        return x[slot];
+    }
+    
+    public double getY(int slot) {
+        return y[slot];
+    }
+    
+    public double getZ(int slot) {
+        return z[slot];
+    }
+    
+    public double getRotationY(int slot) {
+        return rotationY[slot];
+    }
+    
+    public double getWidth(int slot) {
+        return width[slot];
+    }
+    
+    public double getHeight(int slot) {
+        return height[slot];
+    }
+    
+    public double getLength(int slot) {
+        return length[slot];
+    }
+    
+    public Vector3D getPosition(int slot) {
+        Vector3D position = positions[slot];
+        if (position == null) {
+            position = new Vector3D(x[slot], y[slot], z[slot]);
+            positions[slot] = position;
+        }
+        return position;
+    }
+    
+    public Vector3D getRotation(int slot) {
+        Vector3D rotation = rotations[slot];
+        if (rotation == null) {
+            rotation = new Vector3D(rotationX[slot], rotationY[slot], rotationZ[slot]);
+            rotations[slot] = rotation;
+        }
+        return rotation;
+    }
+    
+    public Dimension3D getDimension(int slot) {
+        return dimensions[slot];
+    }
+    
+    void setName(int slot, String name) {
+        names[slot] = name;
+        markDirty(slot, slot + 1);
+        publish();
+    }
+    
+    void setPosition(int slot, double px, double py, double pz) {
+        x[slot] = px;
+        y[slot] = py;
+        z[slot] = pz;
+        positions[slot] = null;
+        moved(slot);
+    }
+    
+    void setPosition(int slot, Vector3D position) {
+        x[slot] = position.getX();
+        y[slot] = position.getY();
+        z[slot] = position.getZ();
+        positions[slot] = position;
+        moved(slot);
+    }
+    
+    void setRotation(int slot, Vector3D rotation) {
+        writeRotation(slot, rotation);
+        moved(slot);
+    }
+    
+    void setDimension(int slot, Dimension3D dimension) {
+        writeDimension(slot, dimension);
+        moved(slot);
+    }
+    
+    // Publishes a geometry change of one slot
+    private void moved(int slot) {
+        markDirty(slot, slot + 1);
+        publish();
+        post(new SceneEvent.FurnitureMoved(this, ids[slot]));
+    }
+    
+    private void writeRotation(int slot, Vector3D rotation) {
+        rotationX[slot] = rotation.getX();
+        rotationY[slot] = rotation.getY();
+        rotationZ[slot] = rotation.getZ();
+        rotations[slot] = rotation;
+    }
+    
+    private void writeDimension(int slot, Dimension3D dimension) {
+        width[slot] = dimension.getWidth();
+        height[slot] = dimension.getHeight();
+        length[slot] = dimension.getLength();
+        dimensions[slot] = dimension;
+    }
+    
+    // Column access for bulk loops over [0, size()). The arrays must not be modified
+    // and are replaced when the store grows, so they should not be kept across edits.
+    public double[] xs() {
+        return x;
+    }
+    
+    public double[] ys() {
+        return y;
+    }
+    
+    public double[] zs() {
+        return z;
+    }
+    
+    public double[] rotationsY() {
+        return rotationY;
+    }
+    
+    public double[] widths() {
+        return width;
+    }
+    
+    public double[] heights() {
+        return height;
+    }
+    
+    public double[] lengths() {
+        return length;
+    }
+    
+    // Moves every piece by the same offset
+    public void translateAll(double dx, double dy, double dz) {
+        VecMath.translate(x, y, z, 0, size, dx, dy, dz);
+        Arrays.fill(positions, 0, size, null);
+        markDirty(0, size);
+        publish();
+        for (int s = 0; s < size; s++) {
+            post(new SceneEvent.FurnitureMoved(this, ids[s]));
+        }
+    }
+    
+    private class ViewList extends AbstractList<Furniture> implements RandomAccess {
+        @Override
+        public Furniture get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return views[index];
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
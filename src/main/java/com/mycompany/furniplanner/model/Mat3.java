@@ -0,0 +1,77 @@
+package com.mycompany.furniplanner.model;
+
+// Mutable row-major 3x3 matrix for rotations. All operations work in place.
+// Rotations follow the right-hand rule; the camera and furniture conventions
+// are expressed by the sign of the angle passed in.
+public final class Mat3 {
+    public double m00, m01, m02;
+    public double m10, m11, m12;
+    public double m20, m21, m22;
+    
+    public Mat3() {
+        setIdentity();
+    }
+    
+    public Mat3 set(double m00, double m01, double m02,
+                    double m10, double m11, double m12,
+                    double m20, double m21, double m22) {
+        this.m00 = m00; this.m01 = m01; this.m02 = m02;
+        this.m10 = m10; this.m11 = m11; this.m12 = m12;
+        this.m20 = m20; this.m21 = m21; this.m22 = m22;
+        return this;
+    }
+    
+    public Mat3 setIdentity() {
+        return set(1, 0, 0,
+                   0, 1, 0,
+                   0, 0, 1);
+    }
+    
+    public Mat3 setRotationX(double radians) {
+        double c = Math.cos(radians);
+        double s = Math.sin(radians);
+        return set(1, 0, 0,
+                   0, c, -s,
+                   0, s, c);
+    }
+    
+    public Mat3 setRotationY(double radians) {
+        double c = Math.cos(radians);
+        double s = Math.sin(radians);
+        return set(c, 0, s,
+                   0, 1, 0,
+                   -s, 0, c);
+    }
+    
+    // Camera rotation used by the 3D view: yaw around Y first, then pitch around X
+    public Mat3 setViewRotation(double rotX, double rotY) {
+        double cosX = Math.cos(rotX), sinX = Math.sin(rotX);
+        double cosY = Math.cos(rotY), sinY = Math.sin(rotY);
+        return set(cosY, 0, sinY,
+                   -sinY * sinX, cosX, cosY * sinX,
+                   -sinY * cosX, -sinX, cosY * cosX);
+    }
+    
+    // this = a * b; a or b may be this
+    public Mat3 mul(Mat3 a, Mat3 b) {
+        return set(a.m00 * b.m00 + a.m01 * b.m10 + a.m02 * b.m20,
+                   a.m00 * b.m01 + a.m01 * b.m11 + a.m02 * b.m21,
+                   a.m00 * b.m02 + a.m01 * b.m12 + a.m02 * b.m22,
+                   a.m10 * b.m00 + a.m11 * b.m10 + a.m12 * b.m20,
+                   a.m10 * b.m01 + a.m11 * b.m11 + a.m12 * b.m21,
+                   a.m10 * b.m02 + a.m11 * b.m12 + a.m12 * b.m22,
+                   a.m20 * b.m00 + a.m21 * b.m10 + a.m22 * b.m20,
+                   a.m20 * b.m01 + a.m21 * b.m11 + a.m22 * b.m21,
+                   a.m20 * b.m02 + a.m21 * b.m12 + a.m22 * b.m22);
+    }
+    
+    public Vec3 transform(Vec3 v) {
+        return transform(v.x, v.y, v.z, v);
+    }
+    
+    public Vec3 transform(double x, double y, double z, Vec3 out) {
+        return out.set(m00 * x + m01 * y + m02 * z,
+                       m10 * x + m11 * y + m12 * z,
+                       m20 * x + m21 * y + m22 * z);
+    }
+}
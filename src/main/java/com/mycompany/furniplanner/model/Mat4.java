@@ -0,0 +1,79 @@
+package com.mycompany.furniplanner.model;
+
+import java.util.Arrays;
+
+// Mutable row-major 4x4 matrix for affine transforms. All operations work in place.
+public final class Mat4 {
+    public final double[] m = new double[16];
+    private final double[] temp = new double[16];
+    
+    public Mat4() {
+        setIdentity();
+    }
+    
+    public Mat4 setIdentity() {
+        Arrays.fill(m, 0);
+        m[0] = m[5] = m[10] = m[15] = 1;
+        return this;
+    }
+    
+    public Mat4 set(Mat4 other) {
+        System.arraycopy(other.m, 0, m, 0, 16);
+        return this;
+    }
+    
+    // Rotation part from a Mat3, translation from (tx, ty, tz)
+    public Mat4 set(Mat3 rotation, double tx, double ty, double tz) {
+        m[0] = rotation.m00; m[1] = rotation.m01; m[2] = rotation.m02; m[3] = tx;
+        m[4] = rotation.m10; m[5] = rotation.m11; m[6] = rotation.m12; m[7] = ty;
+        m[8] = rotation.m20; m[9] = rotation.m21; m[10] = rotation.m22; m[11] = tz;
+        m[12] = 0; m[13] = 0; m[14] = 0; m[15] = 1;
+        return this;
+    }
+    
+    public Mat4 setTranslation(double tx, double ty, double tz) {
+        setIdentity();
+        m[3] = tx;
+        m[7] = ty;
+        m[11] = tz;
+        return this;
+    }
+    
+    public Mat4 setScale(double scale) {
+        setIdentity();
+        m[0] = m[5] = m[10] = scale;
+        return this;
+    }
+    
+    // this = a * b; a or b may be this
+    public Mat4 mul(Mat4 a, Mat4 b) {
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                temp[row * 4 + col] = a.m[row * 4] * b.m[col]
+                                    + a.m[row * 4 + 1] * b.m[4 + col]
+                                    + a.m[row * 4 + 2] * b.m[8 + col]
+                                    + a.m[row * 4 + 3] * b.m[12 + col];
+            }
+        }
+        System.arraycopy(temp, 0, m, 0, 16);
+        return this;
+    }
+    
+    // Transforms a point (w = 1); the bottom row is assumed to be 0 0 0 1
+    public Vec3 transformPoint(Vec3 v) {
+        return transformPoint(v.x, v.y, v.z, v);
+    }
+    
+    public Vec3 transformPoint(double x, double y, double z, Vec3 out) {
+        return out.set(m[0] * x + m[1] * y + m[2] * z + m[3],
+                       m[4] * x + m[5] * y + m[6] * z + m[7],
+                       m[8] * x + m[9] * y + m[10] * z + m[11]);
+    }
+    
+    // Transforms a direction (w = 0), ignoring translation
+    public Vec3 transformDirection(Vec3 v) {
+        return v.set(m[0] * v.x + m[1] * v.y + m[2] * v.z,
+                     m[4] * v.x + m[5] * v.y + m[6] * v.z,
+                     m[8] * v.x + m[9] * v.y + m[10] * v.z);
+    }
+}
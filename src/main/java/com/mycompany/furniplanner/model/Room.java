@@ -1,5 +1,8 @@
 package com.mycompany.furniplanner.model;
 
+import com.mycompany.furniplanner.event.SceneEvent;
+import com.mycompany.furniplanner.event.SceneEventBus;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -7,15 +10,26 @@ public class Room {
     private int width;  // in cm
     private int length; // in cm
     private int height; // in cm
-    private List<Furniture> furnitureList;
+    private final FurnitureStore furnitureStore;
     private boolean hasCeiling; // Flag to control ceiling rendering
+    private SceneEventBus eventBus;
+    
+    // World position of the room's center on the floor plan. Furniture positions,
+    // bounds checks and the room geometry are all relative to it.
+    private double originX;
+    private double originZ;
+    
+    // World-space box around the walls and furniture, rebuilt when the scene changes
+    private final double[] bounds = new double[6];
+    private long boundsVersion = -1;
     
     public Room(int width, int length, int height) {
         this.width = width;
         this.length = length;
         this.height = height;
-        this.furnitureList = new ArrayList<>();
+        this.furnitureStore = new FurnitureStore();
         this.hasCeiling = false; // Default to no ceiling for better visibility
+        publishRoom();
     }
     
     public int getWidth() {
@@ -24,6 +38,7 @@ public class Room {
     
     public void setWidth(int width) {
         this.width = width;
+        publishRoom();
     }
     
     public int getLength() {
@@ -32,6 +47,7 @@ public class Room {
     
     public void setLength(int length) {
         this.length = length;
+        publishRoom();
     }
     
     public int getHeight() {
@@ -40,6 +56,7 @@ public class Room {
     
     public void setHeight(int height) {
         this.height = height;
+        publishRoom();
     }
     
     public boolean hasCeiling() {
@@ -48,22 +65,147 @@ public class Room {
     
     public void setHasCeiling(boolean hasCeiling) {
         this.hasCeiling = hasCeiling;
+        publishRoom();
+    }
+    
+    private void publishRoom() {
+        furnitureStore.setRoom(width, length, height, hasCeiling);
+        if (eventBus != null) {
+            eventBus.post(new SceneEvent.RoomResized(this, width, length, height));
+        }
+    }
+    
+    public double getOriginX() {
+        return originX;
+    }
+    
+    public double getOriginZ() {
+        return originZ;
+    }
+    
+    public void setOrigin(double originX, double originZ) {
+        this.originX = originX;
+        this.originZ = originZ;
+        furnitureStore.setOrigin(originX, originZ);
+        boundsVersion = -1;
+    }
+    
+    // Copies minX, minY, minZ, maxX, maxY, maxZ of the room in world space into out.
+    // Furniture reaching past the walls or above the ceiling widens the box.
+    public double[] getBounds(double[] out) {
+        SceneSnapshot snapshot = furnitureStore.snapshot();
+        if (boundsVersion != snapshot.getVersion()) {
+            computeBounds();
+            boundsVersion = snapshot.getVersion();
+        }
+        System.arraycopy(bounds, 0, out, 0, 6);
+        return out;
+    }
+    
+    private void computeBounds() {
+        double minX = -width / 2.0, minY = 0, minZ = -length / 2.0;
+        double maxX = width / 2.0, maxY = height, maxZ = length / 2.0;
+        
+        // Same conservative box per piece as the renderer's culling
+        double[] xs = furnitureStore.xs(), ys = furnitureStore.ys(), zs = furnitureStore.zs();
+        double[] widths = furnitureStore.widths(), heights = furnitureStore.heights(), lengths = furnitureStore.lengths();
+        for (int slot = 0, n = furnitureStore.size(); slot < n; slot++) {
+            double halfExtent = Math.hypot(widths[slot], lengths[slot]) / 2;
+            minX = Math.min(minX, xs[slot] - halfExtent);
+            maxX = Math.max(maxX, xs[slot] + halfExtent);
+            minY = Math.min(minY, ys[slot] - heights[slot] / 2);
+            maxY = Math.max(maxY, ys[slot] + heights[slot]);
+            minZ = Math.min(minZ, zs[slot] - halfExtent);
+            maxZ = Math.max(maxZ, zs[slot] + halfExtent);
+        }
+        
+        bounds[0] = originX + minX;
+        bounds[1] = minY;
+        bounds[2] = originZ + minZ;
+        bounds[3] = originX + maxX;
+        bounds[4] = maxY;
+        bounds[5] = originZ + maxZ;
     }
     
+    // Detached copy of the room and its furniture as they are now
+    public Room copy() {
+        Room copy = new Room(width, length, height);
+        copy.setHasCeiling(hasCeiling);
+        copy.setOrigin(originX, originZ);
+        
+        List<Furniture> pieces = new ArrayList<>();
+        for (FurnitureState state : furnitureStore.snapshot().asList()) {
+            Furniture furniture = new Furniture(state.name(), state.type(), state.position());
+            furniture.setRotation(state.rotation());
+            furniture.setDimension(state.dimension());
+            pieces.add(furniture);
+        }
+        copy.addFurniture(pieces);
+        return copy;
+    }
+    
+    public SceneEventBus getEventBus() {
+        return eventBus;
+    }
+    
+    // Furniture and room changes are posted to the bus from now on
+    public void setEventBus(SceneEventBus eventBus) {
+        this.eventBus = eventBus;
+        furnitureStore.setEventBus(eventBus);
+    }
+    
+    // Read-only view of the furniture in slot order; removals move the last piece forward
     public List<Furniture> getFurnitureList() {
-        return furnitureList;
+        return furnitureStore.asList();
+    }
+    
+    public FurnitureStore getFurnitureStore() {
+        return furnitureStore;
+    }
+    
+    // Immutable copy of the room and its furniture that background threads can read
+    public SceneSnapshot getSnapshot() {
+        return furnitureStore.snapshot();
     }
     
     public void addFurniture(Furniture furniture) {
-        furnitureList.add(furniture);
+        furniture.attach(furnitureStore);
     }
     
     public void removeFurniture(Furniture furniture) {
-        furnitureList.remove(furniture);
+        if (furniture.getStore() == furnitureStore) {
+            furniture.detach();
+        }
+    }
+    
+    // Batch versions publish one scene snapshot for the whole group
+    public void addFurniture(List<Furniture> pieces) {
+        furnitureStore.runBatch(() -> {
+            for (Furniture furniture : pieces) {
+                addFurniture(furniture);
+            }
+        });
+    }
+    
+    public void removeFurniture(List<Furniture> pieces) {
+        int[] ids = new int[pieces.size()];
+        int count = 0;
+        for (Furniture furniture : pieces) {
+            if (furniture.getStore() == furnitureStore) {
+                ids[count++] = furniture.getId();
+                furniture.detachCopy();
+            }
+        }
+        furnitureStore.removeAll(ids, count);
     }
     
     public void clearFurniture() {
-        furnitureList.clear();
+        // Removed pieces keep their data in their own stores
+        furnitureStore.runBatch(() -> {
+            for (int slot = furnitureStore.size() - 1; slot >= 0; slot--) {
+                furnitureStore.viewAt(slot).detach();
+            }
+        });
     }
     
     public boolean isWithinBounds(Vector3D position) {
@@ -0,0 +1,109 @@
+package com.mycompany.furniplanner.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Immutable, versioned state of a room and its furniture. Snapshots are published by
+// the room's FurnitureStore after every edit and can be read from any thread without
+// locking. Furniture is kept in fixed-size chunks; an edit copies only the chunk it
+// touches, so consecutive snapshots share all other chunks.
+public final class SceneSnapshot {
+    static final int CHUNK_SHIFT = 5;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    static final SceneSnapshot EMPTY = new SceneSnapshot(0, 0, 0, 0, false, 0, new FurnitureState[0][]);
+    
+    private final long version;
+    private final int roomWidth;
+    private final int roomLength;
+    private final int roomHeight;
+    private final boolean hasCeiling;
+    private final int size;
+    private final FurnitureState[][] chunks; // never modified once published
+    
+    private SceneSnapshot(long version, int roomWidth, int roomLength, int roomHeight,
+                          boolean hasCeiling, int size, FurnitureState[][] chunks) {
+        this.version = version;
+        this.roomWidth = roomWidth;
+        this.roomLength = roomLength;
+        this.roomHeight = roomHeight;
+        this.hasCeiling = hasCeiling;
+        this.size = size;
+        this.chunks = chunks;
+    }
+    
+    SceneSnapshot withRoom(int width, int length, int height, boolean ceiling) {
+        return new SceneSnapshot(version + 1, width, length, height, ceiling, size, chunks);
+    }
+    
+    SceneSnapshot withFurniture(int newSize, FurnitureState[][] newChunks) {
+        return new SceneSnapshot(version + 1, roomWidth, roomLength, roomHeight, hasCeiling, newSize, newChunks);
+    }
+    
+    FurnitureState[][] chunks() {
+        return chunks;
+    }
+    
+    // Increases with every published edit, so equal versions mean equal content
+    public long getVersion() {
+        return version;
+    }
+    
+    public int getRoomWidth() {
+        return roomWidth;
+    }
+    
+    public int getRoomLength() {
+        return roomLength;
+    }
+    
+    public int getRoomHeight() {
+        return roomHeight;
+    }
+    
+    public boolean hasCeiling() {
+        return hasCeiling;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    // Furniture in slot order
+    public FurnitureState get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+    
+    // Removals move pieces between slots, so ids are not in slot order and the
+    // pieces are searched in turn
+    public FurnitureState findById(int id) {
+        for (int i = 0; i < size; i++) {
+            FurnitureState state = get(i);
+            if (state.id() == id) {
+                return state;
+            }
+        }
+        return null;
+    }
+    
+    public List<FurnitureState> asList() {
+        return new StateList();
+    }
+    
+    private class StateList extends AbstractList<FurnitureState> implements RandomAccess {
+        @Override
+        public FurnitureState get(int index) {
+            return SceneSnapshot.this.get(index);
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
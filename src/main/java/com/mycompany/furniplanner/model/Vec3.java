@@ -0,0 +1,93 @@
+package com.mycompany.furniplanner.model;
+
+// Mutable vector meant to be kept as a scratch field and reused in hot loops.
+// Vector3D remains the value type for anything that is stored or shared.
+public final class Vec3 {
+    public double x;
+    public double y;
+    public double z;
+    
+    public Vec3() {
+    }
+    
+    public Vec3(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+    
+    public Vec3 set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+    
+    public Vec3 set(Vec3 other) {
+        return set(other.x, other.y, other.z);
+    }
+    
+    public Vec3 set(Vector3D other) {
+        return set(other.getX(), other.getY(), other.getZ());
+    }
+    
+    public Vec3 add(double dx, double dy, double dz) {
+        x += dx;
+        y += dy;
+        z += dz;
+        return this;
+    }
+    
+    public Vec3 add(Vec3 other) {
+        return add(other.x, other.y, other.z);
+    }
+    
+    // this = a - b
+    public Vec3 sub(Vec3 a, Vec3 b) {
+        return set(a.x - b.x, a.y - b.y, a.z - b.z);
+    }
+    
+    public Vec3 scale(double scalar) {
+        x *= scalar;
+        y *= scalar;
+        z *= scalar;
+        return this;
+    }
+    
+    // this = a x b; a or b may be this
+    public Vec3 cross(Vec3 a, Vec3 b) {
+        return set(a.y * b.z - a.z * b.y,
+                   a.z * b.x - a.x * b.z,
+                   a.x * b.y - a.y * b.x);
+    }
+    
+    public double dot(Vec3 other) {
+        return x * other.x + y * other.y + z * other.z;
+    }
+    
+    public double dot(double ox, double oy, double oz) {
+        return x * ox + y * oy + z * oz;
+    }
+    
+    public double length() {
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+    
+    // Zero-length vectors stay zero, like Vector3D.normalize
+    public Vec3 normalize() {
+        double len = length();
+        if (len > 0) {
+            return set(x / len, y / len, z / len);
+        }
+        return set(0, 0, 0);
+    }
+    
+    public Vector3D toVector3D() {
+        return new Vector3D(x, y, z);
+    }
+    
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ", " + z + ")";
+    }
+}
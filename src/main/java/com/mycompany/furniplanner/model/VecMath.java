@@ -0,0 +1,88 @@
+package com.mycompany.furniplanner.model;
+
+// Bulk vector operations over coordinate arrays (structure of arrays).
+// Ranges are [from, to); input and output arrays may be the same.
+public final class VecMath {
+    private VecMath() {
+    }
+    
+    public static void translate(double[] xs, double[] ys, double[] zs, int from, int to,
+                                 double dx, double dy, double dz) {
+        for (int i = from; i < to; i++) {
+            xs[i] += dx;
+            ys[i] += dy;
+            zs[i] += dz;
+        }
+    }
+    
+    public static void translate(float[] xs, float[] ys, float[] zs, int from, int to,
+                                 float dx, float dy, float dz) {
+        for (int i = from; i < to; i++) {
+            xs[i] += dx;
+            ys[i] += dy;
+            zs[i] += dz;
+        }
+    }
+    
+    public static void transform(Mat3 m, double[] xs, double[] ys, double[] zs,
+                                 double[] outX, double[] outY, double[] outZ, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double x = xs[i], y = ys[i], z = zs[i];
+            outX[i] = m.m00 * x + m.m01 * y + m.m02 * z;
+            outY[i] = m.m10 * x + m.m11 * y + m.m12 * z;
+            outZ[i] = m.m20 * x + m.m21 * y + m.m22 * z;
+        }
+    }
+    
+    public static void transformPoints(Mat4 matrix, double[] xs, double[] ys, double[] zs,
+                                       double[] outX, double[] outY, double[] outZ, int from, int to) {
+        double[] m = matrix.m;
+        for (int i = from; i < to; i++) {
+            double x = xs[i], y = ys[i], z = zs[i];
+            outX[i] = m[0] * x + m[1] * y + m[2] * z + m[3];
+            outY[i] = m[4] * x + m[5] * y + m[6] * z + m[7];
+            outZ[i] = m[8] * x + m[9] * y + m[10] * z + m[11];
+        }
+    }
+    
+    public static void transformPoints(Mat4 matrix, float[] xs, float[] ys, float[] zs,
+                                       float[] outX, float[] outY, float[] outZ, int from, int to) {
+        double[] m = matrix.m;
+        for (int i = from; i < to; i++) {
+            double x = xs[i], y = ys[i], z = zs[i];
+            outX[i] = (float) (m[0] * x + m[1] * y + m[2] * z + m[3]);
+            outY[i] = (float) (m[4] * x + m[5] * y + m[6] * z + m[7]);
+            outZ[i] = (float) (m[8] * x + m[9] * y + m[10] * z + m[11]);
+        }
+    }
+    
+    // Unit normal of the face through points i0, i1 and i2: (p1 - p0) x (p2 - p0).
+    // Degenerate faces give a zero vector.
+    public static Vec3 faceNormal(double[] xs, double[] ys, double[] zs, int i0, int i1, int i2, Vec3 out) {
+        double e1x = xs[i1] - xs[i0], e1y = ys[i1] - ys[i0], e1z = zs[i1] - zs[i0];
+        double e2x = xs[i2] - xs[i0], e2y = ys[i2] - ys[i0], e2z = zs[i2] - zs[i0];
+        out.set(e1y * e2z - e1z * e2y,
+                e1z * e2x - e1x * e2z,
+                e1x * e2y - e1y * e2x);
+        return out.normalize();
+    }
+    
+    // Unit normal of the face through a, b and c: (b - a) x (c - a)
+    public static Vec3 faceNormal(Vec3 a, Vec3 b, Vec3 c, Vec3 out) {
+        double e1x = b.x - a.x, e1y = b.y - a.y, e1z = b.z - a.z;
+        double e2x = c.x - a.x, e2y = c.y - a.y, e2z = c.z - a.z;
+        out.set(e1y * e2z - e1z * e2y,
+                e1z * e2x - e1x * e2z,
+                e1x * e2y - e1y * e2x);
+        return out.normalize();
+    }
+    
+    public static Vec3 faceNormal(Vector3D a, Vector3D b, Vector3D c, Vec3 out) {
+        double e1x = b.getX() - a.getX(), e1y = b.getY() - a.getY(), e1z = b.getZ() - a.getZ();
+        double e2x = c.getX() - a.getX(), e2y = c.getY() - a.getY(), e2z = c.getZ() - a.getZ();
+        out.set(e1y * e2z - e1z * e2y,
+                e1z * e2x - e1x * e2z,
+                e1x * e2y - e1y * e2x);
+        return out.normalize();
+    }
+}
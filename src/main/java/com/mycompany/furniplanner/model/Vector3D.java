@@ -1,15 +1,8 @@
 package com.mycompany.furniplanner.model;
 
-public class Vector3D {
-    private double x;
-    private double y;
-    private double z;
-    
-    public Vector3D(double x, double y, double z) {
-        this.x = x;
-        this.y = y;
-        this.z = z;
-    }
+// Immutable value type. The small final methods below let the JIT scalar-replace
+// temporaries in loops; use Vec3 where a reusable mutable vector is needed.
+public record Vector3D(double x, double y, double z) {
     
     public double getX() {
         return x;
@@ -58,4 +51,4 @@ public class Vector3D {
             x * other.y - y * other.x
         );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.mycompany.furniplanner.render;
+
+import java.util.Arrays;
+
+public class DepthOrder {
+    private DepthOrder() {
+    }
+    
+    // Fills order[0..count) with indices sorted by descending key (furthest first).
+    // Keys are packed with their index into a long so a primitive sort can be used.
+    public static long[] sortBackToFront(double[] keys, int count, int[] order, long[] scratch) {
+        if (scratch == null || scratch.length < count) {
+            scratch = new long[Math.max(count, 16)];
+        }
+        
+        for (int i = 0; i < count; i++) {
+            scratch[i] = ((long) sortableBits(-keys[i]) << 32) | (i & 0xFFFFFFFFL);
+        }
+        Arrays.sort(scratch, 0, count);
+        
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) scratch[i];
+        }
+        return scratch;
+    }
+    
+    // Maps a float onto an int whose signed ordering matches the float ordering
+    private static int sortableBits(double key) {
+        int bits = Float.floatToIntBits((float) key);
+        return bits >= 0 ? bits : bits ^ 0x7FFFFFFF;
+    }
+}
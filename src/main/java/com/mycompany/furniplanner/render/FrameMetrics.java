@@ -0,0 +1,106 @@
+package com.mycompany.furniplanner.render;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-frame counters collected by Canvas3D
+public class FrameMetrics {
+    private int totalFurniture;
+    private int drawnFurniture;
+    private int frustumCulled;
+    private int occlusionCulled;
+    private int totalRooms;
+    private int culledRooms;
+    private long frameTimeNanos;
+    private int qualityTier; // 0 is full quality; raised while animation frames run over budget
+    
+    // Scene event totals since startup, recorded off the EDT by a background subscriber
+    private final AtomicLong sceneBatches = new AtomicLong();
+    private final AtomicLong sceneEvents = new AtomicLong();
+    
+    public void reset(int totalFurniture) {
+        this.totalFurniture = totalFurniture;
+        this.drawnFurniture = 0;
+        this.frustumCulled = 0;
+        this.occlusionCulled = 0;
+    }
+    
+    public void setRooms(int totalRooms, int culledRooms) {
+        this.totalRooms = totalRooms;
+        this.culledRooms = culledRooms;
+    }
+    
+    public void recordDrawn() {
+        drawnFurniture++;
+    }
+    
+    public void recordFrustumCulled() {
+        frustumCulled++;
+    }
+    
+    public void recordOcclusionCulled() {
+        occlusionCulled++;
+    }
+    
+    public void setFrameTimeNanos(long frameTimeNanos) {
+        this.frameTimeNanos = frameTimeNanos;
+    }
+    
+    public void setQualityTier(int qualityTier) {
+        this.qualityTier = qualityTier;
+    }
+    
+    // Called from the scene event thread with the size of one delivered batch
+    public void recordSceneBatch(int events) {
+        sceneBatches.incrementAndGet();
+        sceneEvents.addAndGet(events);
+    }
+    
+    public int getTotalFurniture() {
+        return totalFurniture;
+    }
+    
+    public int getDrawnFurniture() {
+        return drawnFurniture;
+    }
+    
+    public int getFrustumCulled() {
+        return frustumCulled;
+    }
+    
+    public int getOcclusionCulled() {
+        return occlusionCulled;
+    }
+    
+    public int getTotalRooms() {
+        return totalRooms;
+    }
+    
+    public int getCulledRooms() {
+        return culledRooms;
+    }
+    
+    public long getFrameTimeNanos() {
+        return frameTimeNanos;
+    }
+    
+    public int getQualityTier() {
+        return qualityTier;
+    }
+    
+    public long getSceneBatches() {
+        return sceneBatches.get();
+    }
+    
+    public long getSceneEvents() {
+        return sceneEvents.get();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Drawn %d/%d, culled %d frustum, %d occluded, rooms %d/%d, %.1f ms, quality tier %d, "
+                + "scene events %d in %d batches",
+                drawnFurniture, totalFurniture, frustumCulled, occlusionCulled,
+                totalRooms - culledRooms, totalRooms, frameTimeNanos / 1e6, qualityTier,
+                sceneEvents.get(), sceneBatches.get());
+    }
+}
@@ -0,0 +1,314 @@
+package com.mycompany.furniplanner.render;
+
+import com.mycompany.furniplanner.model.Mat3;
+import com.mycompany.furniplanner.model.Vec3;
+import com.mycompany.furniplanner.model.VecMath;
+
+import java.awt.Color;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Caches each mesh's view-space vertices and its culled, sorted, shaded face list per
+// rotation bucket, so every instance that shares a mesh and rotation only needs a
+// translate and perspective scale. Shading depends only on the piece's rotation and is
+// kept for good; when the camera turns, entries are brought up to date in place the
+// first time they are drawn, reusing their arrays. Entries not drawn for a while are
+// dropped, so the cache follows the scene instead of every size and angle ever shown.
+public class InstanceCache {
+    private static final double ROTATION_BUCKET_DEGREES = 0.5;
+    private static final int BUCKET_COUNT = (int) Math.round(360 / ROTATION_BUCKET_DEGREES);
+    private static final int EVICT_INTERVAL = 256; // frames between sweeps
+    private static final int EVICT_AGE = 1024;     // frames an entry may go undrawn
+    
+    // Light direction used for shading, normalized
+    private static final double LIGHT_X = 0.5 / Math.sqrt(1.5);
+    private static final double LIGHT_Y = -1 / Math.sqrt(1.5);
+    private static final double LIGHT_Z = 0.5 / Math.sqrt(1.5);
+    
+    // Octagon outline of a marker dot with a 3 pixel radius
+    private static final int[] MARKER_OFFSET_X = new int[8];
+    private static final int[] MARKER_OFFSET_Y = new int[8];
+    static {
+        for (int i = 0; i < 8; i++) {
+            double angle = i * Math.PI / 4;
+            MARKER_OFFSET_X[i] = (int) Math.round(3 * Math.cos(angle));
+            MARKER_OFFSET_Y[i] = (int) Math.round(3 * Math.sin(angle));
+        }
+    }
+    
+    private final Map<Mesh, Entry[]> entries = new IdentityHashMap<>();
+    private final Mat3 modelRotation = new Mat3();
+    private final Mat3 viewRotation = new Mat3();
+    private final Vec3 faceNormal = new Vec3();
+    private double cameraRotX = Double.NaN;
+    private double cameraRotY = Double.NaN;
+    private int cameraVersion;
+    private int frame;
+    
+    // Scratch arrays for face culling and sorting
+    private double[] faceKeys = new double[16];
+    private int[] faceCandidates = new int[16];
+    private int[] faceOrder = new int[16];
+    private long[] sortScratch;
+    
+    // Scratch arrays for face submission
+    private int[] faceXs = new int[8];
+    private int[] faceYs = new int[8];
+    private double[] faceDepths = new double[8];
+    
+    public static class Entry {
+        public final Mesh mesh;
+        public final double[] viewX;
+        public final double[] viewY;
+        public final double[] viewZ;
+        final double rotationDegrees;
+        final double[] normalX;        // per face, turned by the piece's rotation
+        final double[] normalY;
+        final double[] normalZ;
+        final Color[] shadedColors;    // per face
+        final int[] visibleFaces;      // back-to-front, first visibleCount are valid
+        int visibleCount;
+        int cameraVersion = -1;        // camera the view-space data was built for
+        int lastUsed;                  // frame the entry was last drawn in
+        
+        Entry(Mesh mesh, double rotationDegrees) {
+            int vertexCount = mesh.getVertexCount();
+            int faceCount = mesh.getFaceCount();
+            this.mesh = mesh;
+            this.rotationDegrees = rotationDegrees;
+            this.viewX = new double[vertexCount];
+            this.viewY = new double[vertexCount];
+            this.viewZ = new double[vertexCount];
+            this.normalX = new double[faceCount];
+            this.normalY = new double[faceCount];
+            this.normalZ = new double[faceCount];
+            this.shadedColors = new Color[faceCount];
+            this.visibleFaces = new int[faceCount];
+        }
+        
+        public int getVertexCount() {
+            return viewX.length;
+        }
+    }
+    
+    // Marks all entries out of date when the camera orientation changed since the last
+    // frame, and now and then drops entries that have not been drawn for a while
+    public void beginFrame(double rotX, double rotY) {
+        if (rotX != cameraRotX || rotY != cameraRotY) {
+            cameraVersion++;
+            cameraRotX = rotX;
+            cameraRotY = rotY;
+        }
+        frame++;
+        if (frame % EVICT_INTERVAL == 0) {
+            evictUnused();
+        }
+    }
+    
+    public void clear() {
+        entries.clear();
+    }
+    
+    private void evictUnused() {
+        Iterator<Entry[]> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry[] buckets = it.next();
+            boolean empty = true;
+            for (int b = 0; b < BUCKET_COUNT; b++) {
+                if (buckets[b] != null && frame - buckets[b].lastUsed > EVICT_AGE) {
+                    buckets[b] = null;
+                }
+                empty &= buckets[b] == null;
+            }
+            if (empty) {
+                it.remove();
+            }
+        }
+    }
+    
+    public Entry getEntry(Mesh mesh, double rotationDegrees, Projection projection) {
+        int bucket = (int) Math.round(normalizeDegrees(rotationDegrees) / ROTATION_BUCKET_DEGREES) % BUCKET_COUNT;
+        
+        Entry[] buckets = entries.computeIfAbsent(mesh, m -> new Entry[BUCKET_COUNT]);
+        Entry entry = buckets[bucket];
+        if (entry == null) {
+            entry = new Entry(mesh, bucket * ROTATION_BUCKET_DEGREES);
+            shade(entry);
+            buckets[bucket] = entry;
+        }
+        if (entry.cameraVersion != cameraVersion) {
+            updateView(entry, projection);
+            entry.cameraVersion = cameraVersion;
+        }
+        entry.lastUsed = frame;
+        return entry;
+    }
+    
+    private static double normalizeDegrees(double degrees) {
+        double normalized = degrees % 360;
+        return normalized < 0 ? normalized + 360 : normalized;
+    }
+    
+    // Face normals and lighting, which only depend on the piece's rotation
+    private void shade(Entry entry) {
+        Mesh mesh = entry.mesh;
+        modelRotation.setRotationY(-Math.toRadians(entry.rotationDegrees));
+        for (int f = 0, faceCount = mesh.getFaceCount(); f < faceCount; f++) {
+            int start = mesh.faceStart[f];
+            int count = mesh.faceStart[f + 1] - start;
+            
+            Vec3 normal = faceNormal.set(0, 1, 0); // Default normal if not enough vertices
+            if (count >= 3) {
+                VecMath.faceNormal(mesh.x, mesh.y, mesh.z, mesh.faceIndices[start], mesh.faceIndices[start + 1],
+                                   mesh.faceIndices[start + count - 1], normal);
+                modelRotation.transform(normal);
+            }
+            entry.normalX[f] = normal.x;
+            entry.normalY[f] = normal.y;
+            entry.normalZ[f] = normal.z;
+            
+            Color color = mesh.faceColors[f];
+            if (mesh.faceLit[f]) {
+                double lightIntensity = Math.max(0.3, -(normal.x * LIGHT_X + normal.y * LIGHT_Y + normal.z * LIGHT_Z));
+                color = shadeColor(color, lightIntensity);
+            }
+            entry.shadedColors[f] = color;
+        }
+    }
+    
+    // Rotates the vertices into view space and culls and sorts the faces for the camera,
+    // writing into the entry's own arrays
+    private void updateView(Entry entry, Projection projection) {
+        Mesh mesh = entry.mesh;
+        
+        // Rotate around Y axis (yaw), then into view space, as one matrix
+        modelRotation.setRotationY(-Math.toRadians(entry.rotationDegrees));
+        viewRotation.mul(projection.getViewRotation(viewRotation), modelRotation);
+        VecMath.transform(viewRotation, mesh.x, mesh.y, mesh.z, entry.viewX, entry.viewY, entry.viewZ,
+                          0, entry.getVertexCount());
+        
+        int faceCount = mesh.getFaceCount();
+        if (faceKeys.length < faceCount) {
+            faceKeys = new double[faceCount];
+            faceCandidates = new int[faceCount];
+            faceOrder = new int[faceCount];
+        }
+        double viewDirX = projection.getViewDirX();
+        double viewDirY = projection.getViewDirY();
+        double viewDirZ = projection.getViewDirZ();
+        int visibleCount = 0;
+        for (int f = 0; f < faceCount; f++) {
+            // Only keep faces facing the camera (dot product < 0)
+            double facing = entry.normalX[f] * viewDirX + entry.normalY[f] * viewDirY + entry.normalZ[f] * viewDirZ;
+            if (facing >= 0) {
+                continue;
+            }
+            
+            int start = mesh.faceStart[f];
+            int count = mesh.faceStart[f + 1] - start;
+            double sumZ = 0;
+            for (int i = 0; i < count; i++) {
+                sumZ += entry.viewZ[mesh.faceIndices[start + i]];
+            }
+            faceKeys[visibleCount] = sumZ / count;
+            faceCandidates[visibleCount] = f;
+            visibleCount++;
+        }
+        
+        // Sort back-to-front once; the instance translation adds the same depth to every face
+        sortScratch = DepthOrder.sortBackToFront(faceKeys, visibleCount, faceOrder, sortScratch);
+        for (int i = 0; i < visibleCount; i++) {
+            entry.visibleFaces[i] = faceCandidates[faceOrder[i]];
+        }
+        entry.visibleCount = visibleCount;
+    }
+    
+    // Draws an instance whose vertices were projected into the buffer at bufferOffset
+    public void draw(RenderBackend backend, Entry entry, ProjectedVertices projected, int bufferOffset) {
+        Mesh mesh = entry.mesh;
+        for (int i = 0; i < entry.visibleCount; i++) {
+            int f = entry.visibleFaces[i];
+            int start = mesh.faceStart[f];
+            int count = mesh.faceStart[f + 1] - start;
+            
+            if (faceXs.length < count) {
+                faceXs = new int[count];
+                faceYs = new int[count];
+                faceDepths = new double[count];
+            }
+            for (int j = 0; j < count; j++) {
+                int index = bufferOffset + mesh.faceIndices[start + j];
+                faceXs[j] = projected.screenX[index];
+                faceYs[j] = projected.screenY[index];
+                faceDepths[j] = projected.inverseDepth[index];
+            }
+            
+            backend.fillPolygon(faceXs, faceYs, faceDepths, count, entry.shadedColors[f], mesh.faceOutlines[f]);
+        }
+        
+        for (int m = 0; m < mesh.markerVertices.length; m++) {
+            drawMarker(backend, projected, bufferOffset + mesh.markerVertices[m], mesh.markerColors[m]);
+        }
+    }
+    
+    // Inverse depth of the nearest drawn face of an instance that covers the screen point,
+    // or 0 if none does. Tests the same faces and projected vertices draw() submits.
+    public double depthAt(Entry entry, ProjectedVertices projected, int bufferOffset, int px, int py) {
+        Mesh mesh = entry.mesh;
+        double nearest = 0;
+        for (int i = 0; i < entry.visibleCount; i++) {
+            int f = entry.visibleFaces[i];
+            int start = mesh.faceStart[f];
+            int count = mesh.faceStart[f + 1] - start;
+            
+            // Even-odd crossing test; the face's depth is the mean over its corners
+            boolean inside = false;
+            double depth = 0;
+            int previous = bufferOffset + mesh.faceIndices[start + count - 1];
+            for (int j = 0; j < count; j++) {
+                int index = bufferOffset + mesh.faceIndices[start + j];
+                int x1 = projected.screenX[previous], y1 = projected.screenY[previous];
+                int x2 = projected.screenX[index], y2 = projected.screenY[index];
+                if ((y1 > py) != (y2 > py)
+                        && px < x1 + (double) (x2 - x1) * (py - y1) / (y2 - y1)) {
+                    inside = !inside;
+                }
+                depth += projected.inverseDepth[index];
+                previous = index;
+            }
+            depth /= count;
+            if (inside && depth > nearest) {
+                nearest = depth;
+            }
+        }
+        return nearest;
+    }
+    
+    private void drawMarker(RenderBackend backend, ProjectedVertices projected, int index, Color color) {
+        // Small round knob, submitted as an octagon so it is depth tested like other faces
+        if (faceXs.length < 8) {
+            faceXs = new int[8];
+            faceYs = new int[8];
+            faceDepths = new double[8];
+        }
+        for (int i = 0; i < 8; i++) {
+            faceXs[i] = projected.screenX[index] + MARKER_OFFSET_X[i];
+            faceYs[i] = projected.screenY[index] + MARKER_OFFSET_Y[i];
+            faceDepths[i] = projected.inverseDepth[index];
+        }
+        backend.fillPolygon(faceXs, faceYs, faceDepths, 8, color, null);
+    }
+    
+    private static Color shadeColor(Color baseColor, double intensity) {
+        int r = (int)(baseColor.getRed() * intensity);
+        int g = (int)(baseColor.getGreen() * intensity);
+        int b = (int)(baseColor.getBlue() * intensity);
+        
+        r = Math.min(255, Math.max(0, r));
+        g = Math.min(255, Math.max(0, g));
+        b = Math.min(255, Math.max(0, b));
+        
+        return new Color(r, g, b);
+    }
+}
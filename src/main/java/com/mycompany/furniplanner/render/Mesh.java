@@ -0,0 +1,43 @@
+package com.mycompany.furniplanner.render;
+
+import java.awt.Color;
+
+// Immutable polygon mesh in local (model) coordinates, centered on the furniture position.
+// Face f uses faceIndices[faceStart[f] .. faceStart[f + 1]).
+public class Mesh {
+    public final double[] x;
+    public final double[] y;
+    public final double[] z;
+    public final int[] faceStart;
+    public final int[] faceIndices;
+    public final Color[] faceColors;
+    public final Color[] faceOutlines; // null entries mean no outline
+    public final boolean[] faceLit;    // false for faces drawn with their flat color
+    
+    // Small fixed-size dots (such as door handles) drawn on top of the faces at these vertices
+    public final int[] markerVertices;
+    public final Color[] markerColors;
+    
+    public Mesh(double[] x, double[] y, double[] z, int[] faceStart, int[] faceIndices,
+                Color[] faceColors, Color[] faceOutlines, boolean[] faceLit,
+                int[] markerVertices, Color[] markerColors) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.faceStart = faceStart;
+        this.faceIndices = faceIndices;
+        this.faceColors = faceColors;
+        this.faceOutlines = faceOutlines;
+        this.faceLit = faceLit;
+        this.markerVertices = markerVertices;
+        this.markerColors = markerColors;
+    }
+    
+    public int getVertexCount() {
+        return x.length;
+    }
+    
+    public int getFaceCount() {
+        return faceColors.length;
+    }
+}
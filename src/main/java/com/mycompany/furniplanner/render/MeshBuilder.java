@@ -0,0 +1,75 @@
+package com.mycompany.furniplanner.render;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+public class MeshBuilder {
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private double[] z = new double[64];
+    private int vertexCount;
+    
+    private int[] faceStart = new int[33];
+    private int[] faceIndices = new int[128];
+    private Color[] faceColors = new Color[32];
+    private Color[] faceOutlines = new Color[32];
+    private boolean[] faceLit = new boolean[32];
+    private int faceCount;
+    private int indexCount;
+    
+    private int[] markerVertices = new int[4];
+    private Color[] markerColors = new Color[4];
+    private int markerCount;
+    
+    public int addVertex(double vx, double vy, double vz) {
+        if (vertexCount == x.length) {
+            x = Arrays.copyOf(x, vertexCount * 2);
+            y = Arrays.copyOf(y, vertexCount * 2);
+            z = Arrays.copyOf(z, vertexCount * 2);
+        }
+        x[vertexCount] = vx;
+        y[vertexCount] = vy;
+        z[vertexCount] = vz;
+        return vertexCount++;
+    }
+    
+    public void addFace(int[] indices, Color color, Color outline, boolean lit) {
+        if (faceCount == faceColors.length) {
+            faceColors = Arrays.copyOf(faceColors, faceCount * 2);
+            faceOutlines = Arrays.copyOf(faceOutlines, faceCount * 2);
+            faceLit = Arrays.copyOf(faceLit, faceCount * 2);
+            faceStart = Arrays.copyOf(faceStart, faceCount * 2 + 1);
+        }
+        if (indexCount + indices.length > faceIndices.length) {
+            faceIndices = Arrays.copyOf(faceIndices, Math.max(faceIndices.length * 2, indexCount + indices.length));
+        }
+        
+        faceStart[faceCount] = indexCount;
+        System.arraycopy(indices, 0, faceIndices, indexCount, indices.length);
+        indexCount += indices.length;
+        faceColors[faceCount] = color;
+        faceOutlines[faceCount] = outline;
+        faceLit[faceCount] = lit;
+        faceCount++;
+    }
+    
+    // Adds a fixed-size dot drawn at the given local position
+    public void addMarker(double vx, double vy, double vz, Color color) {
+        if (markerCount == markerVertices.length) {
+            markerVertices = Arrays.copyOf(markerVertices, markerCount * 2);
+            markerColors = Arrays.copyOf(markerColors, markerCount * 2);
+        }
+        markerVertices[markerCount] = addVertex(vx, vy, vz);
+        markerColors[markerCount] = color;
+        markerCount++;
+    }
+    
+    public Mesh build() {
+        int[] starts = Arrays.copyOf(faceStart, faceCount + 1);
+        starts[faceCount] = indexCount;
+        return new Mesh(Arrays.copyOf(x, vertexCount), Arrays.copyOf(y, vertexCount), Arrays.copyOf(z, vertexCount),
+                        starts, Arrays.copyOf(faceIndices, indexCount), Arrays.copyOf(faceColors, faceCount),
+                        Arrays.copyOf(faceOutlines, faceCount), Arrays.copyOf(faceLit, faceCount),
+                        Arrays.copyOf(markerVertices, markerCount), Arrays.copyOf(markerColors, markerCount));
+    }
+}
@@ -0,0 +1,41 @@
+package com.mycompany.furniplanner.render;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+
+public class PainterBackend implements RenderBackend {
+    private Graphics2D g2d;
+
+    @Override
+    public void beginFrame(Graphics2D g2d, int width, int height) {
+        this.g2d = g2d;
+    }
+
+    @Override
+    public void fillPolygon(int[] xs, int[] ys, double[] inverseDepths, int count, Paint fill, Color outline) {
+        // Polygons arrive sorted, so they are simply drawn in submission order
+        g2d.setPaint(fill);
+        g2d.fillPolygon(xs, ys, count);
+
+        if (outline != null) {
+            g2d.setColor(outline);
+            g2d.drawPolygon(xs, ys, count);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Everything is drawn immediately
+    }
+
+    @Override
+    public void endFrame() {
+        g2d = null;
+    }
+
+    @Override
+    public boolean requiresDepthSort() {
+        return true;
+    }
+}
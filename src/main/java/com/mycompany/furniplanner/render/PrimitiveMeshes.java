@@ -0,0 +1,213 @@
+package com.mycompany.furniplanner.render;
+
+import com.mycompany.furniplanner.model.Dimension3D;
+import com.mycompany.furniplanner.model.FurnitureType;
+
+import java.awt.Color;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Box-based meshes for furniture without a 3D model, built once per type and size.
+// Vertices are relative to the furniture position. Only the most recently used sizes of
+// each type are kept, so a plan with many different sizes does not grow the cache
+// without bound.
+public class PrimitiveMeshes {
+    private static final Color HANDLE_COLOR = new Color(200, 200, 200);
+    private static final int MAX_SIZES_PER_TYPE = 256;
+    
+    // Faces of a box, indices relative to its first corner
+    private static final int[][] BOX_FACES = {
+        {0, 1, 2, 3},  // Bottom face
+        {4, 5, 6, 7},  // Top face
+        {0, 1, 5, 4},  // Left face
+        {1, 2, 6, 5},  // Front face
+        {2, 3, 7, 6},  // Right face
+        {3, 0, 4, 7}   // Back face
+    };
+    
+    // Dimension3D is a value type, so equal sizes share a mesh without building a lookup key
+    private final Map<FurnitureType, SizeCache> meshes = new EnumMap<>(FurnitureType.class);
+    private final int[] faceScratch = new int[4];
+    
+    public Mesh getMesh(FurnitureType type, Dimension3D dimension) {
+        SizeCache bySize = meshes.computeIfAbsent(type, t -> new SizeCache());
+        Mesh mesh = bySize.get(dimension);
+        if (mesh == null) {
+            mesh = build(type, dimension.getWidth(), dimension.getHeight(), dimension.getLength());
+            bySize.put(dimension, mesh);
+        }
+        return mesh;
+    }
+    
+    private Mesh build(FurnitureType type, double width, double height, double length) {
+        MeshBuilder builder = new MeshBuilder();
+        switch (type) {
+            case TABLE:
+                addTable(builder, width, height, length);
+                break;
+            case CHAIR:
+                addChair(builder, width, height, length);
+                break;
+            case SOFA:
+                addSofa(builder, width, height, length);
+                break;
+            case BED:
+                addBed(builder, width, height, length);
+                break;
+            case WINDOW:
+                addWindow(builder, width, height);
+                break;
+            case DOOR:
+                addDoor(builder, width, height);
+                break;
+            case BOOKSHELF:
+                addBookshelf(builder, width, height, length);
+                break;
+            case CABINET:
+                addCabinet(builder, width, height, length);
+                break;
+            default:
+                // Simple box representation
+                addBox(builder, 0, 0, 0, width, height, length, Color.GRAY);
+        }
+        return builder.build();
+    }
+    
+    private void addTable(MeshBuilder builder, double width, double height, double length) {
+        // Table top, drawn flat without lighting
+        faceScratch[0] = builder.addVertex(-width/2, height/2, -length/2);
+        faceScratch[1] = builder.addVertex(-width/2, height/2, length/2);
+        faceScratch[2] = builder.addVertex(width/2, height/2, length/2);
+        faceScratch[3] = builder.addVertex(width/2, height/2, -length/2);
+        builder.addFace(faceScratch, new Color(139, 69, 19), Color.BLACK, false); // Brown
+        
+        // Table legs
+        double legWidth = 5;
+        Color legColor = new Color(120, 60, 15);
+        addBox(builder, -width/2 + legWidth, 0, -length/2 + legWidth, legWidth, height, legWidth, legColor);
+        addBox(builder, width/2 - legWidth, 0, -length/2 + legWidth, legWidth, height, legWidth, legColor);
+        addBox(builder, width/2 - legWidth, 0, length/2 - legWidth, legWidth, height, legWidth, legColor);
+        addBox(builder, -width/2 + legWidth, 0, length/2 - legWidth, legWidth, height, legWidth, legColor);
+    }
+    
+    private void addChair(MeshBuilder builder, double width, double height, double length) {
+        // Chair seat
+        addBox(builder, 0, height/6, 0, width, height/3, length, new Color(160, 82, 45));
+        
+        // Chair back
+        addBox(builder, 0, height*2/3, -length/2 + 5, width, height*2/3, 5, new Color(140, 70, 35));
+        
+        // Chair legs
+        double legWidth = 3;
+        Color legColor = new Color(120, 60, 15);
+        addBox(builder, -width/2 + legWidth, -height/6, -length/2 + legWidth, legWidth, height/3, legWidth, legColor);
+        addBox(builder, width/2 - legWidth, -height/6, -length/2 + legWidth, legWidth, height/3, legWidth, legColor);
+        addBox(builder, width/2 - legWidth, -height/6, length/2 - legWidth, legWidth, height/3, legWidth, legColor);
+        addBox(builder, -width/2 + legWidth, -height/6, length/2 - legWidth, legWidth, height/3, legWidth, legColor);
+    }
+    
+    private void addSofa(MeshBuilder builder, double width, double height, double length) {
+        // Sofa base
+        addBox(builder, 0, 0, 0, width, height/2, length, new Color(70, 130, 180));
+        
+        // Sofa back
+        addBox(builder, 0, height/4, -length/2 + 10, width, height/2, 20, new Color(60, 110, 160));
+        
+        // Sofa arms
+        addBox(builder, -width/2 + 10, height/8, 0, 20, height/4, length, new Color(50, 100, 150));
+        addBox(builder, width/2 - 10, height/8, 0, 20, height/4, length, new Color(50, 100, 150));
+    }
+    
+    private void addBed(MeshBuilder builder, double width, double height, double length) {
+        // Bed base
+        addBox(builder, 0, -height/4, 0, width, height/2, length, new Color(160, 82, 45));
+        
+        // Mattress
+        addBox(builder, 0, 0, 0, width - 10, 10, length - 10, new Color(220, 220, 220));
+        
+        // Headboard
+        addBox(builder, 0, height/4, -length/2 + 5, width, height/2, 10, new Color(140, 70, 35));
+    }
+    
+    private void addWindow(MeshBuilder builder, double width, double height) {
+        double depth = 10;
+        
+        // Window frame
+        addBox(builder, 0, 0, 0, width, height, depth, new Color(160, 82, 45));
+        
+        // Window glass
+        addBox(builder, 0, 0, 1, width - 10, height - 10, depth - 2, new Color(173, 216, 230, 150));
+    }
+    
+    private void addDoor(MeshBuilder builder, double width, double height) {
+        double depth = 5;
+        
+        // Door
+        addBox(builder, 0, 0, 0, width, height, depth, new Color(160, 82, 45));
+        
+        // Door handle
+        builder.addMarker(width/3, 0, depth/2 + 2, HANDLE_COLOR);
+    }
+    
+    private void addBookshelf(MeshBuilder builder, double width, double height, double depth) {
+        // Bookshelf frame
+        addBox(builder, 0, 0, 0, width, height, depth, new Color(160, 82, 45));
+        
+        // Shelves
+        int numShelves = 4;
+        for (int i = 1; i < numShelves; i++) {
+            double shelfY = -height/2 + (i * height / numShelves);
+            addBox(builder, 0, shelfY, 0, width - 4, 2, depth - 4, new Color(140, 70, 35));
+        }
+    }
+    
+    private void addCabinet(MeshBuilder builder, double width, double height, double depth) {
+        // Cabinet body
+        addBox(builder, 0, 0, 0, width, height, depth, new Color(160, 82, 45));
+        
+        // Cabinet doors
+        addBox(builder, -width/4, 0, depth/2 - 1, width/2, height - 4, 2, new Color(140, 70, 35));
+        addBox(builder, width/4, 0, depth/2 - 1, width/2, height - 4, 2, new Color(140, 70, 35));
+        
+        // Cabinet handles
+        builder.addMarker(-width/4, 0, depth/2 + 1, HANDLE_COLOR);
+        builder.addMarker(width/4, 0, depth/2 + 1, HANDLE_COLOR);
+    }
+    
+    private void addBox(MeshBuilder builder, double x, double y, double z,
+                        double width, double height, double depth, Color color) {
+        // Bottom vertices (counter-clockwise looking from bottom)
+        int first = builder.addVertex(x - width/2, y - height/2, z - depth/2);
+        builder.addVertex(x - width/2, y - height/2, z + depth/2);
+        builder.addVertex(x + width/2, y - height/2, z + depth/2);
+        builder.addVertex(x + width/2, y - height/2, z - depth/2);
+        
+        // Top vertices (counter-clockwise looking from top)
+        builder.addVertex(x - width/2, y + height/2, z - depth/2);
+        builder.addVertex(x - width/2, y + height/2, z + depth/2);
+        builder.addVertex(x + width/2, y + height/2, z + depth/2);
+        builder.addVertex(x + width/2, y + height/2, z - depth/2);
+        
+        // Bottom, left and right faces are slightly darker
+        Color darker = color.darker();
+        for (int f = 0; f < BOX_FACES.length; f++) {
+            for (int i = 0; i < 4; i++) {
+                faceScratch[i] = first + BOX_FACES[f][i];
+            }
+            builder.addFace(faceScratch, f % 2 == 0 ? darker : color, Color.DARK_GRAY, true);
+        }
+    }
+    
+    // Least recently used sizes beyond the limit are dropped and rebuilt when needed again
+    private static class SizeCache extends LinkedHashMap<Dimension3D, Mesh> {
+        SizeCache() {
+            super(16, 0.75f, true);
+        }
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Dimension3D, Mesh> eldest) {
+            return size() > MAX_SIZES_PER_TYPE;
+        }
+    }
+}
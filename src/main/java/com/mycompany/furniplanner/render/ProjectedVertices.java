@@ -0,0 +1,22 @@
+package com.mycompany.furniplanner.render;
+
+import java.util.Arrays;
+
+// Shared screen-space vertex buffer filled by VertexTransformStage.
+// Each mesh instance owns a contiguous range starting at its offset.
+public class ProjectedVertices {
+    public int[] screenX = new int[0];
+    public int[] screenY = new int[0];
+    public double[] inverseDepth = new double[0];
+    
+    public void ensureCapacity(int count) {
+        if (screenX.length >= count) {
+            return;
+        }
+        
+        int capacity = Math.max(count, screenX.length * 2);
+        screenX = Arrays.copyOf(screenX, capacity);
+        screenY = Arrays.copyOf(screenY, capacity);
+        inverseDepth = Arrays.copyOf(inverseDepth, capacity);
+    }
+}
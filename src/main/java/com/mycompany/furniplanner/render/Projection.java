@@ -0,0 +1,203 @@
+package com.mycompany.furniplanner.render;
+
+import com.mycompany.furniplanner.model.Mat3;
+
+// Look-at camera: the eye orbits the target at the given distance, turned by pitch (rotX)
+// and yaw (rotY). View space has the target at the origin and the eye at (0, 0, -distance);
+// focalLength is the scale in pixels per cm at one cm from the eye, before zoom.
+public class Projection {
+    // Defaults that reproduce the original fixed camera around the world origin
+    public static final double DEFAULT_DISTANCE = 1200;
+    public static final double DEFAULT_FOCAL_LENGTH = 800;
+    
+    // Rays that meet a plane further out than this are treated as missing it (cm)
+    private static final double MAX_RAY_DISTANCE = 100000;
+    
+    private final double cosX;
+    private final double sinX;
+    private final double cosY;
+    private final double sinY;
+    private final double zoom;
+    private final double targetX;
+    private final double targetY;
+    private final double targetZ;
+    private final double distance;
+    private final double focal; // pixels per cm at one cm from the eye, zoom included
+    private final int centerX;
+    private final int centerY;
+    private final int viewportWidth;
+    private final int viewportHeight;
+    
+    public Projection(double rotX, double rotY, double zoom, int viewportWidth, int viewportHeight) {
+        this(rotX, rotY, zoom, 0, 0, 0, DEFAULT_DISTANCE, DEFAULT_FOCAL_LENGTH, viewportWidth, viewportHeight);
+    }
+    
+    public Projection(double rotX, double rotY, double zoom, double targetX, double targetY, double targetZ,
+                      double distance, double focalLength, int viewportWidth, int viewportHeight) {
+        this.cosX = Math.cos(rotX);
+        this.sinX = Math.sin(rotX);
+        this.cosY = Math.cos(rotY);
+        this.sinY = Math.sin(rotY);
+        this.zoom = zoom;
+        this.targetX = targetX;
+        this.targetY = targetY;
+        this.targetZ = targetZ;
+        this.distance = distance;
+        this.focal = zoom * focalLength;
+        this.centerX = viewportWidth / 2;
+        this.centerY = viewportHeight / 2;
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+    }
+    
+    // Same camera framing an image scale times as large, cut down to the region of it
+    // that starts at (offsetX, offsetY); draws large images one tile at a time
+    public Projection forTile(double scale, int imageWidth, int imageHeight,
+                              int offsetX, int offsetY, int tileWidth, int tileHeight) {
+        return new Projection(this, scale, imageWidth / 2 - offsetX, imageHeight / 2 - offsetY, tileWidth, tileHeight);
+    }
+    
+    private Projection(Projection base, double scale, int centerX, int centerY, int viewportWidth, int viewportHeight) {
+        this.cosX = base.cosX;
+        this.sinX = base.sinX;
+        this.cosY = base.cosY;
+        this.sinY = base.sinY;
+        this.zoom = base.zoom;
+        this.targetX = base.targetX;
+        this.targetY = base.targetY;
+        this.targetZ = base.targetZ;
+        this.distance = base.distance;
+        this.focal = base.focal * scale;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+    }
+    
+    public int getViewportWidth() {
+        return viewportWidth;
+    }
+    
+    public int getViewportHeight() {
+        return viewportHeight;
+    }
+    
+    // Rotation from world space into view space
+    public Mat3 getViewRotation(Mat3 out) {
+        return out.set(cosY, 0, sinY,
+                       -sinY * sinX, cosX, cosY * sinX,
+                       -sinY * cosX, -sinX, cosY * cosX);
+    }
+    
+    public double getZoom() {
+        return zoom;
+    }
+    
+    // Pixels per cm at the given distance from the eye
+    public double scaleAt(double eyeDistance) {
+        return focal / eyeDistance;
+    }
+    
+    // World-space point moved into view space
+    public double viewX(double x, double y, double z) {
+        x -= targetX;
+        z -= targetZ;
+        return x * cosY + z * sinY;
+    }
+    
+    public double viewY(double x, double y, double z) {
+        x -= targetX;
+        y -= targetY;
+        z -= targetZ;
+        double tempZ = -x * sinY + z * cosY;
+        return y * cosX + tempZ * sinX;
+    }
+    
+    public double viewZ(double x, double y, double z) {
+        x -= targetX;
+        y -= targetY;
+        z -= targetZ;
+        double tempZ = -x * sinY + z * cosY;
+        return -y * sinX + tempZ * cosX;
+    }
+    
+    // Applies perspective to a view-space point and stores it in slot index of the buffer
+    public void projectView(double viewX, double viewY, double viewZ, ProjectedVertices out, int index) {
+        double eyeDistance = distance + viewZ;
+        double scale = focal / eyeDistance;
+        
+        out.screenX[index] = (int)(centerX + viewX * scale);
+        out.screenY[index] = (int)(centerY - viewY * scale); // Invert Y for screen coordinates
+        out.inverseDepth[index] = 1.0 / eyeDistance;
+    }
+    
+    // Projects a world-space point into out[0..2] as screen x, screen y and eye distance.
+    // A distance <= 0 means the point is behind the eye.
+    public void project(double x, double y, double z, double[] out) {
+        x -= targetX;
+        y -= targetY;
+        z -= targetZ;
+        double tempX = x * cosY + z * sinY;
+        double tempZ = -x * sinY + z * cosY;
+        double tempY = y * cosX + tempZ * sinX;
+        tempZ = -y * sinX + tempZ * cosX;
+        
+        double eyeDistance = distance + tempZ;
+        double scale = focal / eyeDistance;
+        out[0] = centerX + tempX * scale;
+        out[1] = centerY - tempY * scale;
+        out[2] = eyeDistance;
+    }
+    
+    // Inverse of project(): casts the ray from the eye through a screen point and writes
+    // where it meets the horizontal plane y = planeY into out[0] (x) and out[1] (z).
+    // Returns false if the plane lies behind the eye or is seen too close to edge-on.
+    public boolean unprojectToPlane(double screenX, double screenY, double planeY, double[] out) {
+        // View-space ray (a * d, b * d, d - distance) for eye distances d > 0
+        double a = (screenX - centerX) / focal;
+        double b = -(screenY - centerY) / focal;
+        
+        // World y along the ray, from the transposed view rotation
+        double slope = b * cosX - sinX;
+        if (slope == 0) {
+            return false;
+        }
+        double eyeDistance = (planeY - targetY - distance * sinX) / slope;
+        if (!(eyeDistance > 0 && eyeDistance < MAX_RAY_DISTANCE)) {
+            return false;
+        }
+        
+        double viewX = a * eyeDistance;
+        double viewY = b * eyeDistance;
+        double viewZ = eyeDistance - distance;
+        out[0] = targetX + viewX * cosY - viewY * sinY * sinX - viewZ * sinY * cosX;
+        out[1] = targetZ + viewX * sinY + viewY * cosY * sinX + viewZ * cosY * cosX;
+        return true;
+    }
+    
+    // Eye position in world space (view-space point (0, 0, -distance))
+    public double getEyeX() {
+        return targetX + distance * cosX * sinY;
+    }
+    
+    public double getEyeY() {
+        return targetY + distance * sinX;
+    }
+    
+    public double getEyeZ() {
+        return targetZ - distance * cosX * cosY;
+    }
+    
+    // View vector pointing into the scene, used for backface culling
+    public double getViewDirX() {
+        return -sinY * cosX;
+    }
+    
+    public double getViewDirY() {
+        return -sinX;
+    }
+    
+    public double getViewDirZ() {
+        return -cosY * cosX;
+    }
+}
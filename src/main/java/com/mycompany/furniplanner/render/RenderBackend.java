@@ -0,0 +1,24 @@
+package com.mycompany.furniplanner.render;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+
+public interface RenderBackend {
+    // Called once per paint before any geometry is submitted
+    void beginFrame(Graphics2D g2d, int width, int height);
+
+    // Submits a convex screen-space polygon. inverseDepths holds 1 / eye distance
+    // for each vertex (larger is nearer). outline may be null for no outline.
+    void fillPolygon(int[] xs, int[] ys, double[] inverseDepths, int count, Paint fill, Color outline);
+
+    // Makes everything submitted so far visible on the frame's Graphics2D.
+    // Depth information is kept until the next beginFrame.
+    void flush();
+
+    // Flushes and releases the frame's Graphics2D
+    void endFrame();
+
+    // True if polygons must be submitted back-to-front (painter's algorithm)
+    boolean requiresDepthSort();
+}
@@ -0,0 +1,89 @@
+package com.mycompany.furniplanner.render;
+
+import com.mycompany.furniplanner.model.FurnitureStore;
+
+// Draw order for the furniture in a store, kept as a permutation of slots so the
+// store itself is never reordered. Depth keys are computed once per item per frame.
+// Since the order barely changes between frames, the previous order is repaired
+// with an insertion sort and only rebuilt when the store's structure changes.
+public class RenderQueue {
+    // Above this many shifts per item the frame is treated as a large change
+    private static final int MAX_SHIFTS_PER_ITEM = 8;
+    
+    private FurnitureStore store;
+    private int structureVersion;
+    private boolean sorted;
+    private int size;
+    private int[] order = new int[16];
+    private double[] keys = new double[16];
+    private long[] sortScratch;
+    
+    // Orders the store's slots back-to-front for the projection, or in slot order
+    // when depthSort is false. Returns the number of entries in getOrder().
+    public int update(FurnitureStore store, Projection projection, boolean depthSort) {
+        int count = store.size();
+        if (keys.length < count) {
+            keys = new double[Math.max(count, keys.length * 2)];
+            order = new int[keys.length];
+            this.store = null; // force a rebuild
+        }
+        
+        boolean rebuild = store != this.store || store.getStructureVersion() != structureVersion
+                          || sorted != depthSort;
+        this.store = store;
+        this.structureVersion = store.getStructureVersion();
+        this.sorted = depthSort;
+        this.size = count;
+        
+        if (!depthSort) {
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            return count;
+        }
+        
+        // Transform Z coordinate for depth sorting
+        double[] xs = store.xs();
+        double[] ys = store.ys();
+        double[] zs = store.zs();
+        for (int slot = 0; slot < count; slot++) {
+            keys[slot] = projection.viewZ(xs[slot], ys[slot], zs[slot]);
+        }
+        
+        if (rebuild || !insertionSort(count)) {
+            sortScratch = DepthOrder.sortBackToFront(keys, count, order, sortScratch);
+        }
+        return count;
+    }
+    
+    // Repairs the previous order in place. Gives up (returning false) when the
+    // order changed too much for an insertion sort to pay off.
+    private boolean insertionSort(int count) {
+        long budget = (long) count * MAX_SHIFTS_PER_ITEM;
+        for (int i = 1; i < count; i++) {
+            int slot = order[i];
+            double key = keys[slot];
+            int j = i - 1;
+            // Furthest first; equal keys keep their previous relative order
+            while (j >= 0 && keys[order[j]] < key) {
+                order[j + 1] = order[j];
+                j--;
+                if (--budget < 0) {
+                    order[j + 1] = slot;
+                    return false;
+                }
+            }
+            order[j + 1] = slot;
+        }
+        return true;
+    }
+    
+    // Slots in draw order, valid for the count returned by update()
+    public int[] getOrder() {
+        return order;
+    }
+    
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mycompany.furniplanner.render;
+
+import java.util.Arrays;
+
+// Culls axis-aligned boxes against the viewport and against convex occluder quads
+// such as the room walls.
+public class SceneCuller {
+    private static final double NEAR_DISTANCE = 1.0;
+    
+    private Projection projection;
+    private final double[] point = new double[3];
+    private final double[] cornerX = new double[8];
+    private final double[] cornerY = new double[8];
+    private final double[] cornerZ = new double[8];
+    private final double[] quadX = new double[4];
+    private final double[] quadY = new double[4];
+    
+    // Occluder quads: 4 world-space corners (12 doubles) per occluder
+    private double[] occluders = new double[12 * 8];
+    private int occluderCount;
+    
+    public void beginFrame(Projection projection) {
+        this.projection = projection;
+        this.occluderCount = 0;
+    }
+    
+    // Adds a planar convex quad (corners in order) that hides whatever lies behind it
+    public void addOccluder(double[] quad) {
+        if ((occluderCount + 1) * 12 > occluders.length) {
+            occluders = Arrays.copyOf(occluders, occluders.length * 2);
+        }
+        System.arraycopy(quad, 0, occluders, occluderCount * 12, 12);
+        occluderCount++;
+    }
+    
+    // True if the box projects entirely outside the viewport
+    public boolean isOutsideViewport(double minX, double minY, double minZ,
+                                     double maxX, double maxY, double maxZ) {
+        double screenMinX = Double.MAX_VALUE, screenMinY = Double.MAX_VALUE;
+        double screenMaxX = -Double.MAX_VALUE, screenMaxY = -Double.MAX_VALUE;
+        
+        setCorners(minX, minY, minZ, maxX, maxY, maxZ);
+        for (int i = 0; i < 8; i++) {
+            projection.project(cornerX[i], cornerY[i], cornerZ[i], point);
+            if (point[2] < NEAR_DISTANCE) {
+                // Straddles the eye; the projected rectangle is meaningless, keep it
+                return false;
+            }
+            screenMinX = Math.min(screenMinX, point[0]);
+            screenMinY = Math.min(screenMinY, point[1]);
+            screenMaxX = Math.max(screenMaxX, point[0]);
+            screenMaxY = Math.max(screenMaxY, point[1]);
+        }
+        
+        return screenMaxX < 0 || screenMaxY < 0
+            || screenMinX > projection.getViewportWidth() || screenMinY > projection.getViewportHeight();
+    }
+    
+    // True if the box lies entirely behind one occluder and projects entirely inside it
+    public boolean isOccluded(double minX, double minY, double minZ,
+                              double maxX, double maxY, double maxZ) {
+        if (occluderCount == 0) {
+            return false;
+        }
+        
+        setCorners(minX, minY, minZ, maxX, maxY, maxZ);
+        for (int o = 0; o < occluderCount; o++) {
+            if (isBehindOccluder(o * 12)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private boolean isBehindOccluder(int base) {
+        double ax = occluders[base], ay = occluders[base + 1], az = occluders[base + 2];
+        
+        // Quad plane normal from two edges
+        double e1x = occluders[base + 3] - ax, e1y = occluders[base + 4] - ay, e1z = occluders[base + 5] - az;
+        double e2x = occluders[base + 9] - ax, e2y = occluders[base + 10] - ay, e2z = occluders[base + 11] - az;
+        double nx = e1y * e2z - e1z * e2y;
+        double ny = e1z * e2x - e1x * e2z;
+        double nz = e1x * e2y - e1y * e2x;
+        
+        double eyeSide = nx * (projection.getEyeX() - ax) + ny * (projection.getEyeY() - ay) + nz * (projection.getEyeZ() - az);
+        if (eyeSide == 0) {
+            return false;
+        }
+        
+        // Every corner must be on the far side of the plane
+        for (int i = 0; i < 8; i++) {
+            double side = nx * (cornerX[i] - ax) + ny * (cornerY[i] - ay) + nz * (cornerZ[i] - az);
+            if (side * eyeSide >= 0) {
+                return false;
+            }
+        }
+        
+        // ...and project inside the occluder's screen-space quad
+        for (int i = 0; i < 4; i++) {
+            projection.project(occluders[base + i * 3], occluders[base + i * 3 + 1], occluders[base + i * 3 + 2], point);
+            if (point[2] < NEAR_DISTANCE) {
+                return false;
+            }
+            quadX[i] = point[0];
+            quadY[i] = point[1];
+        }
+        
+        for (int i = 0; i < 8; i++) {
+            projection.project(cornerX[i], cornerY[i], cornerZ[i], point);
+            if (point[2] < NEAR_DISTANCE || !insideConvexQuad(quadX, quadY, point[0], point[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean insideConvexQuad(double[] quadX, double[] quadY, double px, double py) {
+        boolean hasPositive = false, hasNegative = false;
+        for (int i = 0; i < 4; i++) {
+            int j = (i + 1) & 3;
+            double cross = (quadX[j] - quadX[i]) * (py - quadY[i]) - (quadY[j] - quadY[i]) * (px - quadX[i]);
+            if (cross > 0) {
+                hasPositive = true;
+            } else if (cross < 0) {
+                hasNegative = true;
+            }
+        }
+        return !(hasPositive && hasNegative);
+    }
+    
+    private void setCorners(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        for (int i = 0; i < 8; i++) {
+            cornerX[i] = (i & 1) == 0 ? minX : maxX;
+            cornerY[i] = (i & 2) == 0 ? minY : maxY;
+            cornerZ[i] = (i & 4) == 0 ? minZ : maxZ;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.mycompany.furniplanner.render;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Projects the vertices of all mesh instances in a frame into one shared
+// ProjectedVertices buffer, spreading the work over a ForkJoinPool. Instances start
+// from cached view-space vertices, so each vertex is only translated and scaled.
+public class VertexTransformStage {
+    private static final int CHUNK_SIZE = 2048; // vertices per unit of work
+    private static final int PARALLEL_THRESHOLD = 8192; // below this, transform on the calling thread
+    
+    private final ForkJoinPool pool;
+    private final ProjectedVertices buffer = new ProjectedVertices();
+    private InstanceCache.Entry[] entries = new InstanceCache.Entry[16];
+    private double[] positionX = new double[16];
+    private double[] positionY = new double[16];
+    private double[] positionZ = new double[16];
+    private int[] offsets = new int[16];
+    private int instanceCount;
+    private int vertexCount;
+    
+    // Work chunks: instance index and vertex range
+    private int[] chunkInstance = new int[16];
+    private int[] chunkFrom = new int[16];
+    private int[] chunkTo = new int[16];
+    private int chunkCount;
+    
+    public VertexTransformStage() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    public VertexTransformStage(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    public void clear() {
+        Arrays.fill(entries, 0, instanceCount, null);
+        instanceCount = 0;
+        vertexCount = 0;
+        chunkCount = 0;
+    }
+    
+    // Registers an instance at a world position and returns its offset into the shared buffer
+    public int addInstance(InstanceCache.Entry entry, double x, double y, double z) {
+        int instance = instanceCount;
+        if (instance == offsets.length) {
+            int capacity = instance * 2;
+            entries = Arrays.copyOf(entries, capacity);
+            positionX = Arrays.copyOf(positionX, capacity);
+            positionY = Arrays.copyOf(positionY, capacity);
+            positionZ = Arrays.copyOf(positionZ, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+        
+        int offset = vertexCount;
+        entries[instance] = entry;
+        positionX[instance] = x;
+        positionY[instance] = y;
+        positionZ[instance] = z;
+        offsets[instance] = offset;
+        instanceCount++;
+        
+        // Large meshes are split by vertex range, small ones form a single chunk
+        int count = entry.getVertexCount();
+        for (int from = 0; from < count; from += CHUNK_SIZE) {
+            addChunk(instance, from, Math.min(count, from + CHUNK_SIZE));
+        }
+        vertexCount += count;
+        return offset;
+    }
+    
+    private void addChunk(int instance, int from, int to) {
+        if (chunkCount == chunkInstance.length) {
+            chunkInstance = Arrays.copyOf(chunkInstance, chunkCount * 2);
+            chunkFrom = Arrays.copyOf(chunkFrom, chunkCount * 2);
+            chunkTo = Arrays.copyOf(chunkTo, chunkCount * 2);
+        }
+        chunkInstance[chunkCount] = instance;
+        chunkFrom[chunkCount] = from;
+        chunkTo[chunkCount] = to;
+        chunkCount++;
+    }
+    
+    // Transforms every registered instance. Blocks until the buffer is complete.
+    public ProjectedVertices run(Projection projection) {
+        buffer.ensureCapacity(vertexCount);
+        
+        if (vertexCount < PARALLEL_THRESHOLD) {
+            transformChunks(projection, 0, chunkCount);
+        } else {
+            pool.invoke(new TransformTask(projection, 0, chunkCount));
+        }
+        return buffer;
+    }
+    
+    private void transformChunks(Projection projection, int from, int to) {
+        for (int c = from; c < to; c++) {
+            int instance = chunkInstance[c];
+            InstanceCache.Entry entry = entries[instance];
+            double x = positionX[instance];
+            double y = positionY[instance];
+            double z = positionZ[instance];
+            
+            // The instance position in view space is shared by all of its vertices
+            double centerX = projection.viewX(x, y, z);
+            double centerY = projection.viewY(x, y, z);
+            double centerZ = projection.viewZ(x, y, z);
+            
+            int offset = offsets[instance];
+            for (int v = chunkFrom[c], end = chunkTo[c]; v < end; v++) {
+                projection.projectView(centerX + entry.viewX[v], centerY + entry.viewY[v],
+                                       centerZ + entry.viewZ[v], buffer, offset + v);
+            }
+        }
+    }
+    
+    private class TransformTask extends RecursiveAction {
+        private final Projection projection;
+        private final int from;
+        private final int to;
+        
+        TransformTask(Projection projection, int from, int to) {
+            this.projection = projection;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                transformChunks(projection, from, to);
+                return;
+            }
+            
+            int mid = (from + to) >>> 1;
+            invokeAll(new TransformTask(projection, from, mid), new TransformTask(projection, mid, to));
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.mycompany.furniplanner.render;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.TexturePaint;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class ZBufferRasterizer implements RenderBackend {
+    private static final int TILE_SIZE = 64;
+    private static final int TRIANGLE_STRIDE = 9; // x, y, inverse depth for 3 vertices
+
+    private Graphics2D g2d;
+    private BufferedImage image;
+    private int[] colorBuffer;
+    private float[] depthBuffer;
+    private int width;
+    private int height;
+    private int tilesX;
+    private int tilesY;
+    private boolean clearDepth;
+
+    // Triangles submitted since the last flush
+    private float[] triangles = new float[TRIANGLE_STRIDE * 256];
+    private int[] triangleColors = new int[256];
+    private int triangleCount;
+
+    // Per-tile lists of triangle indices
+    private int[][] bins = new int[0][];
+    private int[] binSizes = new int[0];
+
+    // Texture paints are approximated by the average texture color
+    private BufferedImage lastTexture;
+    private int lastTextureColor;
+
+    @Override
+    public void beginFrame(Graphics2D g2d, int width, int height) {
+        this.g2d = g2d;
+        ensureBuffers(Math.max(1, width), Math.max(1, height));
+        triangleCount = 0;
+        clearDepth = true;
+    }
+
+    private void ensureBuffers(int width, int height) {
+        if (image != null && width == this.width && height == this.height) {
+            return;
+        }
+
+        this.width = width;
+        this.height = height;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        colorBuffer = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        depthBuffer = new float[width * height];
+
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        bins = new int[tilesX * tilesY][16];
+        binSizes = new int[tilesX * tilesY];
+    }
+
+    @Override
+    public void fillPolygon(int[] xs, int[] ys, double[] inverseDepths, int count, Paint fill, Color outline) {
+        if (count < 3) {
+            return;
+        }
+
+        // Vertices behind the eye cannot be interpolated meaningfully
+        for (int i = 0; i < count; i++) {
+            if (inverseDepths[i] <= 0) {
+                return;
+            }
+        }
+
+        int argb = toArgb(fill);
+        if ((argb >>> 24) == 0) {
+            return;
+        }
+
+        // Fan triangulation is exact for the convex faces the scene produces
+        for (int i = 1; i < count - 1; i++) {
+            addTriangle(xs[0], ys[0], inverseDepths[0],
+                        xs[i], ys[i], inverseDepths[i],
+                        xs[i + 1], ys[i + 1], inverseDepths[i + 1], argb);
+        }
+    }
+
+    private void addTriangle(float x0, float y0, double w0, float x1, float y1, double w1,
+                             float x2, float y2, double w2, int argb) {
+        if (triangleCount == triangleColors.length) {
+            triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            triangleColors = Arrays.copyOf(triangleColors, triangleColors.length * 2);
+        }
+
+        int base = triangleCount * TRIANGLE_STRIDE;
+        triangles[base] = x0;
+        triangles[base + 1] = y0;
+        triangles[base + 2] = (float) w0;
+        triangles[base + 3] = x1;
+        triangles[base + 4] = y1;
+        triangles[base + 5] = (float) w1;
+        triangles[base + 6] = x2;
+        triangles[base + 7] = y2;
+        triangles[base + 8] = (float) w2;
+        triangleColors[triangleCount] = argb;
+        triangleCount++;
+    }
+
+    private int toArgb(Paint fill) {
+        if (fill instanceof Color color) {
+            return color.getRGB();
+        }
+        if (fill instanceof TexturePaint texturePaint) {
+            BufferedImage texture = texturePaint.getImage();
+            if (texture != lastTexture) {
+                lastTexture = texture;
+                lastTextureColor = averageColor(texture);
+            }
+            return lastTextureColor;
+        }
+        return Color.GRAY.getRGB();
+    }
+
+    private static int averageColor(BufferedImage texture) {
+        long r = 0, g = 0, b = 0;
+        int w = texture.getWidth();
+        int h = texture.getHeight();
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int rgb = texture.getRGB(x, y);
+                r += (rgb >> 16) & 0xFF;
+                g += (rgb >> 8) & 0xFF;
+                b += rgb & 0xFF;
+            }
+        }
+        long n = Math.max(1, (long) w * h);
+        return 0xFF000000 | (int) (r / n) << 16 | (int) (g / n) << 8 | (int) (b / n);
+    }
+
+    @Override
+    public void flush() {
+        if (g2d == null || (triangleCount == 0 && !clearDepth)) {
+            return;
+        }
+
+        binTriangles();
+
+        // Tiles cover disjoint pixels, so they can be rasterized independently
+        IntStream.range(0, tilesX * tilesY).parallel().forEach(this::rasterizeTile);
+
+        clearDepth = false;
+        triangleCount = 0;
+        g2d.drawImage(image, 0, 0, null);
+    }
+
+    @Override
+    public void endFrame() {
+        flush();
+        g2d = null;
+    }
+
+    @Override
+    public boolean requiresDepthSort() {
+        return false;
+    }
+
+    private void binTriangles() {
+        Arrays.fill(binSizes, 0);
+
+        for (int t = 0; t < triangleCount; t++) {
+            int base = t * TRIANGLE_STRIDE;
+            float minX = Math.min(triangles[base], Math.min(triangles[base + 3], triangles[base + 6]));
+            float maxX = Math.max(triangles[base], Math.max(triangles[base + 3], triangles[base + 6]));
+            float minY = Math.min(triangles[base + 1], Math.min(triangles[base + 4], triangles[base + 7]));
+            float maxY = Math.max(triangles[base + 1], Math.max(triangles[base + 4], triangles[base + 7]));
+
+            if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) {
+                continue;
+            }
+
+            int tx0 = Math.max(0, (int) minX / TILE_SIZE);
+            int tx1 = Math.min(tilesX - 1, (int) maxX / TILE_SIZE);
+            int ty0 = Math.max(0, (int) minY / TILE_SIZE);
+            int ty1 = Math.min(tilesY - 1, (int) maxY / TILE_SIZE);
+
+            for (int ty = ty0; ty <= ty1; ty++) {
+                for (int tx = tx0; tx <= tx1; tx++) {
+                    int bin = ty * tilesX + tx;
+                    if (binSizes[bin] == bins[bin].length) {
+                        bins[bin] = Arrays.copyOf(bins[bin], bins[bin].length * 2);
+                    }
+                    bins[bin][binSizes[bin]++] = t;
+                }
+            }
+        }
+    }
+
+    private void rasterizeTile(int tile) {
+        int x0 = (tile % tilesX) * TILE_SIZE;
+        int y0 = (tile / tilesX) * TILE_SIZE;
+        int x1 = Math.min(x0 + TILE_SIZE, width);
+        int y1 = Math.min(y0 + TILE_SIZE, height);
+
+        // Color is cleared on every flush so earlier flushes stay visible underneath
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            Arrays.fill(colorBuffer, row + x0, row + x1, 0);
+            if (clearDepth) {
+                Arrays.fill(depthBuffer, row + x0, row + x1, 0f);
+            }
+        }
+
+        int[] bin = bins[tile];
+        for (int i = 0, n = binSizes[tile]; i < n; i++) {
+            rasterizeTriangle(bin[i], x0, y0, x1, y1);
+        }
+    }
+
+    private void rasterizeTriangle(int t, int tileX0, int tileY0, int tileX1, int tileY1) {
+        int base = t * TRIANGLE_STRIDE;
+        float ax = triangles[base], ay = triangles[base + 1], aw = triangles[base + 2];
+        float bx = triangles[base + 3], by = triangles[base + 4], bw = triangles[base + 5];
+        float cx = triangles[base + 6], cy = triangles[base + 7], cw = triangles[base + 8];
+
+        float area = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+        if (area == 0) {
+            return;
+        }
+        if (area < 0) {
+            // Normalize winding so all edge functions are positive inside
+            float tx = bx, ty = by, tw = bw;
+            bx = cx; by = cy; bw = cw;
+            cx = tx; cy = ty; cw = tw;
+            area = -area;
+        }
+
+        int minX = Math.max(tileX0, (int) Math.floor(Math.min(ax, Math.min(bx, cx))));
+        int maxX = Math.min(tileX1 - 1, (int) Math.ceil(Math.max(ax, Math.max(bx, cx))));
+        int minY = Math.max(tileY0, (int) Math.floor(Math.min(ay, Math.min(by, cy))));
+        int maxY = Math.min(tileY1 - 1, (int) Math.ceil(Math.max(ay, Math.max(by, cy))));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        // Edge function increments per pixel step
+        float e0dx = -(cy - by), e0dy = cx - bx;
+        float e1dx = -(ay - cy), e1dy = ax - cx;
+        float e2dx = -(by - ay), e2dy = bx - ax;
+
+        // Inverse depth is affine in screen space, so it can be stepped directly
+        float invArea = 1f / area;
+        float wdx = (e0dx * aw + e1dx * bw + e2dx * cw) * invArea;
+
+        float px = minX + 0.5f;
+        float py = minY + 0.5f;
+        float e0Row = (cx - bx) * (py - by) - (cy - by) * (px - bx);
+        float e1Row = (ax - cx) * (py - cy) - (ay - cy) * (px - cx);
+        float e2Row = (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+
+        int argb = triangleColors[t];
+        boolean opaque = (argb >>> 24) == 0xFF;
+
+        for (int y = minY; y <= maxY; y++) {
+            float e0 = e0Row, e1 = e1Row, e2 = e2Row;
+            float w = (e0 * aw + e1 * bw + e2 * cw) * invArea;
+            int index = y * width + minX;
+
+            for (int x = minX; x <= maxX; x++, index++) {
+                if (e0 >= 0 && e1 >= 0 && e2 >= 0 && w > depthBuffer[index]) {
+                    if (opaque) {
+                        colorBuffer[index] = argb;
+                        depthBuffer[index] = w;
+                    } else {
+                        // Translucent surfaces blend without occluding what lies behind
+                        colorBuffer[index] = blend(colorBuffer[index], argb);
+                    }
+                }
+                e0 += e0dx;
+                e1 += e1dx;
+                e2 += e2dx;
+                w += wdx;
+            }
+
+            e0Row += e0dy;
+            e1Row += e1dy;
+            e2Row += e2dy;
+        }
+    }
+
+    private static int blend(int dst, int src) {
+        int srcAlpha = src >>> 24;
+        int dstAlpha = dst >>> 24;
+        if (dstAlpha == 0) {
+            return src;
+        }
+
+        int inv = 255 - srcAlpha;
+        int r = (((src >> 16) & 0xFF) * srcAlpha + ((dst >> 16) & 0xFF) * inv) / 255;
+        int g = (((src >> 8) & 0xFF) * srcAlpha + ((dst >> 8) & 0xFF) * inv) / 255;
+        int b = ((src & 0xFF) * srcAlpha + (dst & 0xFF) * inv) / 255;
+        int a = srcAlpha + dstAlpha * inv / 255;
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+}
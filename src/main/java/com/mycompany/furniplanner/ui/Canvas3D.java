@@ -1,28 +1,83 @@
 package com.mycompany.furniplanner.ui;
 
+import com.mycompany.furniplanner.command.CommandHistory;
 import com.mycompany.furniplanner.controller.CameraController;
 import com.mycompany.furniplanner.controller.FurnitureController;
 import com.mycompany.furniplanner.controller.RoomController;
+import com.mycompany.furniplanner.controller.SnapEngine;
+import com.mycompany.furniplanner.event.SceneEventBus;
+import com.mycompany.furniplanner.layout.LayoutCost;
+import com.mycompany.furniplanner.layout.LayoutEvaluator;
+import com.mycompany.furniplanner.model.Dimension3D;
+import com.mycompany.furniplanner.model.FloorPlan;
 import com.mycompany.furniplanner.model.Furniture;
+import com.mycompany.furniplanner.model.FurnitureStore;
+import com.mycompany.furniplanner.model.FurnitureType;
 import com.mycompany.furniplanner.model.Room;
+import com.mycompany.furniplanner.model.SceneSnapshot;
+import com.mycompany.furniplanner.model.Vec3;
+import com.mycompany.furniplanner.model.VecMath;
 import com.mycompany.furniplanner.model.Vector3D;
 import com.mycompany.furniplanner.model.FurnitureModel;
+import com.mycompany.furniplanner.render.FrameMetrics;
+import com.mycompany.furniplanner.render.InstanceCache;
+import com.mycompany.furniplanner.render.Mesh;
+import com.mycompany.furniplanner.render.PainterBackend;
+import com.mycompany.furniplanner.render.PrimitiveMeshes;
+import com.mycompany.furniplanner.render.ProjectedVertices;
+import com.mycompany.furniplanner.render.Projection;
+import com.mycompany.furniplanner.render.RenderBackend;
+import com.mycompany.furniplanner.render.RenderQueue;
+import com.mycompany.furniplanner.render.SceneCuller;
+import com.mycompany.furniplanner.render.VertexTransformStage;
+import com.mycompany.furniplanner.render.ZBufferRasterizer;
 import com.mycompany.furniplanner.utils.FurnitureModelManager;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class Canvas3D extends JPanel {
-    private RoomController roomController;
-    private FurnitureController furnitureController;
-    private CameraController cameraController;
+    private final RoomController roomController;
+    private final FurnitureController furnitureController; // null in export copies
+    private final CameraController cameraController;       // null in export copies
     
     private Point lastMousePos;
-    private Furniture selectedFurniture;
+    
+    // Multi-selection in click order; shift-click adds or removes pieces
+    private final Set<Furniture> selection = new LinkedHashSet<>();
+    private boolean draggingSelection;
+    
+    // Layout checks for the active room, updated piece by piece while dragging
+    private LayoutEvaluator layoutEvaluator;
+    private Room evaluatedRoom;
+    private int dragIssues;
+    
+    // Snapping while dragging. The group follows the mouse from where the drag began, so
+    // a snap never builds up: dragOffset is the unsnapped offset, the anchor where it is.
+    private static final double SNAP_PIXELS = 8;
+    private final SnapEngine snapEngine = new SnapEngine();
+    private final double[] dragStartBounds = new double[4]; // minX, maxX, minZ, maxZ
+    private final Vec3 snapShift = new Vec3();
+    private double dragOffsetX;
+    private double dragOffsetZ;
+    private Furniture dragAnchor;
+    private final double[] floorHit = new double[2];
+    private boolean dragOnFloor; // false while the floor is seen edge-on
+    private double grabX;
+    private double grabZ;
+    private double anchorStartX;
+    private double anchorStartZ;
     private BufferedImage floorTexture;
+    private TexturePaint floorPaint;
     
     // Room colors
     private Color wallColor = new Color(120, 80, 60); // Brown walls
@@ -37,9 +92,93 @@ public class Canvas3D extends JPanel {
     // Wall thickness
     private double wallThickness = 15.0; // Wall thickness in cm
     
-    // Maximum room dimensions
+    // Maximum room dimensions; larger plans are built from several rooms
     public static final int MAX_ROOM_DIMENSION = 1500; // Maximum room dimension in cm
     
+    // Rendering backends (painter's algorithm by default)
+    private final RenderBackend painterBackend = new PainterBackend();
+    private final RenderBackend zBufferBackend = new ZBufferRasterizer();
+    private RenderBackend renderBackend = painterBackend;
+    
+    // Scratch arrays for face submission
+    private int[] faceXs = new int[8];
+    private int[] faceYs = new int[8];
+    private double[] faceDepths = new double[8];
+    
+    // Parallel mesh vertex projection, and each furniture's offset into its buffer
+    private final VertexTransformStage transformStage = new VertexTransformStage();
+    private int[] meshOffsets = new int[16];
+    
+    // Per-type view-space meshes shared by all instances with the same rotation
+    private final InstanceCache instanceCache = new InstanceCache();
+    private final PrimitiveMeshes primitiveMeshes = new PrimitiveMeshes();
+    private InstanceCache.Entry[] meshEntries = new InstanceCache.Entry[16];
+    
+    // Screen vertices of the last frame, which picking tests against
+    private ProjectedVertices lastProjected;
+    
+    // Culling and per-frame statistics
+    private final SceneCuller culler = new SceneCuller();
+    private final FrameMetrics frameMetrics = new FrameMetrics();
+    private final List<Furniture> visibleFurniture = new ArrayList<>();
+    private int[] visibleSlots = new int[16];
+    private int[] visibleIds = new int[16]; // Slots shift on removal; ids stay with their piece
+    private FurnitureStore[] visibleStores = new FurnitureStore[16];
+    private final double[] cullBounds = new double[6];
+    
+    // Rooms of the floor plan that reach into the view, and per-room render state
+    private final List<Room> visibleRooms = new ArrayList<>();
+    private final Map<Room, RenderQueue> renderQueues = new IdentityHashMap<>();
+    private final Map<Room, RoomGeometry> roomGeometries = new IdentityHashMap<>();
+    private final double[] roomBounds = new double[6];
+    private final double[] projectedPoint = new double[3];
+    private final double[] occluderQuad = new double[12];
+    private boolean showMetrics = false;
+    
+    // While the camera animates, frames that overrun the budget step down a quality tier:
+    // 1 drops anti-aliasing, 2 also the floor texture and the furniture names. Full
+    // quality returns with the frame after the animation ends.
+    private static final long FRAME_BUDGET_NANOS = SceneEventBus.FRAME_MILLIS * 1_000_000L;
+    private static final int LOWEST_QUALITY_TIER = 2;
+    private int qualityTier;
+    
+    // Reusable scratch objects so painting and dragging do not allocate
+    private static final Stroke DEFAULT_STROKE = new BasicStroke(1);
+    private static final Stroke SELECTION_STROKE = new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{5}, 0);
+    private static final Color SNAP_GUIDE_COLOR = new Color(0, 160, 255);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font TEXT_FONT = new Font("Arial", Font.PLAIN, 11);
+    private static final double LIGHT_X = 0.5 / Math.sqrt(1.5);
+    private static final double LIGHT_Y = -1 / Math.sqrt(1.5);
+    private static final double LIGHT_Z = 0.5 / Math.sqrt(1.5);
+    private final Vec3 wallNormal = new Vec3();
+    private final Vector3D[] wallCorners = new Vector3D[4];
+    private final Point screenPoint = new Point();
+    private final Point screenPoint2 = new Point();
+    private final Point[] boxPoints = new Point[8];
+    
+    // The frame being drawn, set by setFrame(); exported images scale text and outlines
+    private Projection frameProjection;
+    private int frameOffsetY;
+    private int frameImageHeight;
+    private double frameScale = 1;
+    private Font nameFont = TITLE_FONT;
+    private Stroke boundaryStroke = new BasicStroke(2);
+    
+    // World-space room corners, rebuilt only when the room's size or position changes
+    private static class RoomGeometry {
+        final Vector3D[] outerFloorVertices = new Vector3D[4];
+        final Vector3D[] innerFloorVertices = new Vector3D[4];
+        final Vector3D[] outerWallVertices = new Vector3D[4];
+        final Vector3D[] innerWallVertices = new Vector3D[4];
+        double width = Double.NaN;
+        double length = Double.NaN;
+        double height = Double.NaN;
+        double wallThickness = Double.NaN;
+        double originX = Double.NaN;
+        double originZ = Double.NaN;
+    }
+    
     public Canvas3D(RoomController roomController, FurnitureController furnitureController, CameraController cameraController) {
         this.roomController = roomController;
         this.furnitureController = furnitureController;
@@ -49,21 +188,68 @@ public class Canvas3D extends JPanel {
         createFloorTexture();
         setupMouseListeners();
         
+        // Undo and redo can take pieces out of the room, so drop them from the selection
+        furnitureController.getHistory().addListener(() -> {
+            FurnitureStore store = furnitureController.getFurnitureStore();
+            selection.removeIf(furniture -> furniture.getStore() != store);
+        });
+        
         // Set preferred size
         setPreferredSize(new Dimension(800, 600));
     }
     
+    // Offscreen copy for one export worker: draws the given plan the way this canvas draws
+    // its own, but takes no input. Drawing reuses per-canvas scratch state, so every
+    // thread that renders needs its own copy. The copy keeps no link to the live furniture
+    // or camera controllers, which the event thread goes on changing during the export;
+    // each tile brings its own projection, taken from the view when the export started.
+    private Canvas3D(Canvas3D source, FloorPlan plan) {
+        this.roomController = new RoomController(plan, new CommandHistory());
+        this.furnitureController = null;
+        this.cameraController = null;
+        this.wallColor = source.wallColor;
+        this.floorColor = source.floorColor;
+        this.floorTexture = source.floorTexture;
+        this.floorPaint = source.floorPaint;
+        this.showBoundary = source.showBoundary;
+        this.wallThickness = source.wallThickness;
+        this.renderBackend = source.isZBufferEnabled() ? zBufferBackend : painterBackend;
+    }
+    
+    // Called on the event thread; the copy keeps the scene as it is now
+    public Canvas3D createExportRenderer() {
+        return new Canvas3D(this, roomController.getFloorPlan().copy());
+    }
+    
+    // The camera's projection for this canvas's current size, for framing an export
+    public Projection getViewProjection() {
+        return getProjection();
+    }
+    
     public void setWallColor(Color color) {
         this.wallColor = color;
         repaint();
     }
     
+    public Color getWallColor() {
+        return wallColor;
+    }
+    
     public void setFloorColor(Color color) {
         this.floorColor = color;
         createFloorTexture(); // Recreate texture with new color
         repaint();
     }
     
+    public Color getFloorColor() {
+        return floorColor;
+    }
+    
+    // The floor plan as drawn; exports take a copy of it
+    public FloorPlan getFloorPlan() {
+        return roomController.getFloorPlan();
+    }
+    
     public void setShowBoundary(boolean show) {
         this.showBoundary = show;
         repaint();
@@ -78,6 +264,32 @@ public class Canvas3D extends JPanel {
         return wallThickness;
     }
     
+    public void setRenderBackend(RenderBackend backend) {
+        this.renderBackend = backend;
+        repaint();
+    }
+    
+    public RenderBackend getRenderBackend() {
+        return renderBackend;
+    }
+    
+    public void setZBufferEnabled(boolean enabled) {
+        setRenderBackend(enabled ? zBufferBackend : painterBackend);
+    }
+    
+    public boolean isZBufferEnabled() {
+        return renderBackend == zBufferBackend;
+    }
+    
+    public FrameMetrics getFrameMetrics() {
+        return frameMetrics;
+    }
+    
+    public void setShowMetrics(boolean show) {
+        this.showMetrics = show;
+        repaint();
+    }
+    
     private void createFloorTexture() {
         // Create a wood-like texture for the floor
         floorTexture = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
@@ -100,6 +312,7 @@ public class Canvas3D extends JPanel {
         }
         
         g.dispose();
+        floorPaint = new TexturePaint(floorTexture, new Rectangle(0, 0, floorTexture.getWidth(), floorTexture.getHeight()));
     }
     
     private void setupMouseListeners() {
@@ -109,29 +322,60 @@ public class Canvas3D extends JPanel {
                 lastMousePos = e.getPoint();
                 requestFocusInWindow(); // For keyboard events
                 
+                if (isPanButton(e)) {
+                    return; // Right or middle drag pans the view
+                }
                 if (furnitureController.isDeleteMode()) {
                     Furniture furniture = getFurnitureAt(e.getPoint());
                     if (furniture != null) {
-                        furnitureController.removeFurniture(furniture);
-                        repaint();
+                        // Clicking a selected piece deletes the whole selection
+                        if (selection.contains(furniture)) {
+                            deleteSelection();
+                        } else {
+                            furnitureController.removeFurniture(furniture);
+                            repaint();
+                        }
                     }
                     furnitureController.setDeleteMode(false);
                     setCursor(Cursor.getDefaultCursor());
                 } else if (furnitureController.isMoveMode()) {
-                    selectedFurniture = getFurnitureAt(e.getPoint());
-                    if (selectedFurniture != null) {
+                    Furniture furniture = getFurnitureAt(e.getPoint());
+                    if (e.isShiftDown()) {
+                        if (furniture != null && !selection.remove(furniture)) {
+                            selection.add(furniture);
+                        }
+                    } else if (furniture == null) {
+                        selection.clear();
+                    } else if (!selection.contains(furniture)) {
+                        selection.clear();
+                        selection.add(furniture);
+                    }
+                    
+                    draggingSelection = furniture != null && selection.contains(furniture);
+                    if (draggingSelection) {
+                        beginSelectionDrag(e.getPoint());
                         setCursor(Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR));
                     }
+                    repaint();
                 }
             }
             
             @Override
             public void mouseReleased(MouseEvent e) {
-                if (selectedFurniture != null) {
-                    selectedFurniture = null;
+                if (isPanButton(e)) {
+                    return;
+                }
+                if (draggingSelection) {
+                    furnitureController.endMove(); // One undo step per drag
+                    draggingSelection = false;
+                    dragIssues = 0;
+                    snapEngine.clearGuides();
                     setCursor(Cursor.getDefaultCursor());
                 }
-                furnitureController.setMoveMode(false);
+                // Holding shift keeps move mode on so more pieces can be picked
+                if (!e.isShiftDown()) {
+                    furnitureController.setMoveMode(false);
+                }
             }
             
             @Override
@@ -139,12 +383,14 @@ public class Canvas3D extends JPanel {
                 int dx = e.getX() - lastMousePos.x;
                 int dy = e.getY() - lastMousePos.y;
                 
-                if (cameraController.isRotateMode()) {
+                if (isPanButton(e)) {
+                    cameraController.panCamera(dx, dy);
+                } else if (cameraController.isRotateMode()) {
                     // Rotate the view - invert dx for more intuitive rotation
                     cameraController.rotateCamera(-dx, -dy);
-                } else if (selectedFurniture != null) {
-                    // Move the furniture
-                    moveFurnitureWithMouse(selectedFurniture, e.getPoint(), lastMousePos);
+                } else if (draggingSelection) {
+                    // Move the selected furniture as one group; Alt drags without snapping
+                    moveSelectionWithMouse(e.getPoint(), lastMousePos, !e.isAltDown());
                 }
                 
                 lastMousePos = e.getPoint();
@@ -192,6 +438,39 @@ public class Canvas3D extends JPanel {
                         showBoundary = !showBoundary;
                         repaint();
                         break;
+                    case KeyEvent.VK_Z:
+                        // Toggle depth-buffered rendering; Ctrl+Z is left to the Undo menu item
+                        if (e.getModifiersEx() == 0) {
+                            setZBufferEnabled(!isZBufferEnabled());
+                        }
+                        break;
+                    case KeyEvent.VK_M:
+                        // Toggle frame metrics
+                        setShowMetrics(!showMetrics);
+                        break;
+                    case KeyEvent.VK_N:
+                        // Make the next room of the floor plan active
+                        roomController.nextRoom();
+                        clearSelection();
+                        
+                        // Center the view on it
+                        roomController.getRoom().getBounds(roomBounds);
+                        cameraController.lookAt((roomBounds[0] + roomBounds[3]) / 2, 0, (roomBounds[2] + roomBounds[5]) / 2);
+                        break;
+                    case KeyEvent.VK_DELETE:
+                        deleteSelection();
+                        break;
+                    case KeyEvent.VK_OPEN_BRACKET:
+                        // Turn the selection in 15 degree steps
+                        rotateSelection(-15);
+                        break;
+                    case KeyEvent.VK_CLOSE_BRACKET:
+                        rotateSelection(15);
+                        break;
+                    case KeyEvent.VK_ESCAPE:
+                        cameraController.stopAnimation();
+                        clearSelection();
+                        break;
                     case KeyEvent.VK_LEFT:
                         // Rotate left
                         cameraController.rotateCamera(10, 0);
@@ -217,180 +496,480 @@ public class Canvas3D extends JPanel {
         });
     }
     
-    private void moveFurnitureWithMouse(Furniture furniture, Point currentPos, Point lastPos) {
-        // Convert screen coordinates to world coordinates
-        Vector3D worldDelta = screenToWorldDelta(currentPos, lastPos);
-        
-        // Apply the delta to the furniture position
-        furniture.move(worldDelta);
-        
-        // Ensure furniture stays within room bounds
-        Room room = roomController.getRoom();
-        if (room != null) {
-            Vector3D pos = furniture.getPosition();
-            double width = room.getWidth() / 2.0;
-            double length = room.getLength() / 2.0;
-            
-            // Clamp position to room bounds
-            double x = Math.max(-width + wallThickness, Math.min(width - wallThickness, pos.getX()));
-            double z = Math.max(-length + wallThickness, Math.min(length - wallThickness, pos.getZ()));
-            
-            furniture.setPosition(new Vector3D(x, pos.getY(), z));
+    // Indexes everything the dragged group can snap to and notes where the group starts
+    private void beginSelectionDrag(Point point) {
+        Set<Integer> draggedIds = new HashSet<>();
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minZ = Double.POSITIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (Furniture furniture : selection) {
+            draggedIds.add(furniture.getId());
+            double rotation = Math.toRadians(furniture.getRotation().getY());
+            double cos = Math.abs(Math.cos(rotation));
+            double sin = Math.abs(Math.sin(rotation));
+            double width = furniture.getDimension().getWidth();
+            double length = furniture.getDimension().getLength();
+            double halfX = (cos * width + sin * length) / 2;
+            double halfZ = (sin * width + cos * length) / 2;
+            minX = Math.min(minX, furniture.getX() - halfX);
+            maxX = Math.max(maxX, furniture.getX() + halfX);
+            minZ = Math.min(minZ, furniture.getZ() - halfZ);
+            maxZ = Math.max(maxZ, furniture.getZ() + halfZ);
         }
+        dragStartBounds[0] = minX;
+        dragStartBounds[1] = maxX;
+        dragStartBounds[2] = minZ;
+        dragStartBounds[3] = maxZ;
+        
+        FurnitureStore store = furnitureController.getFurnitureStore();
+        snapEngine.index(store.snapshot(), draggedIds, store.getOriginX(), store.getOriginZ(), wallThickness);
+        dragOffsetX = 0;
+        dragOffsetZ = 0;
+        dragAnchor = selection.iterator().next();
+        anchorStartX = dragAnchor.getX();
+        anchorStartZ = dragAnchor.getZ();
+        
+        // The floor point under the cursor is grabbed and from then on follows it
+        dragOnFloor = getProjection().unprojectToPlane(point.x, point.y, 0, floorHit);
+        grabX = floorHit[0];
+        grabZ = floorHit[1];
     }
     
-    private Vector3D screenToWorldDelta(Point currentPos, Point lastPos) {
-        // Convert screen movement to world space movement
-        double rotY = cameraController.getRotationY();
+    private void moveSelectionWithMouse(Point currentPos, Point lastPos, boolean snap) {
+        if (dragOnFloor) {
+            if (!getProjection().unprojectToPlane(currentPos.x, currentPos.y, 0, floorHit)) {
+                return; // Cursor above the horizon; the group stays where it is
+            }
+            dragOffsetX = floorHit[0] - grabX;
+            dragOffsetZ = floorHit[1] - grabZ;
+        } else {
+            addEdgeOnDragDelta(currentPos, lastPos);
+        }
         
-        double dx = currentPos.x - lastPos.x;
-        double dz = currentPos.y - lastPos.y;
+        double targetX = dragOffsetX;
+        double targetZ = dragOffsetZ;
+        if (snap) {
+            // SNAP_PIXELS on screen, in cm at the depth of the group's center
+            FurnitureStore store = dragAnchor.getStore();
+            getProjection().project(store.getOriginX() + (dragStartBounds[0] + dragStartBounds[1]) / 2 + targetX, 0,
+                                    store.getOriginZ() + (dragStartBounds[2] + dragStartBounds[3]) / 2 + targetZ,
+                                    projectedPoint);
+            double tolerance = projectedPoint[2] > 0 ? SNAP_PIXELS / getProjection().scaleAt(projectedPoint[2]) : 0;
+            snapEngine.snap(dragStartBounds[0] + targetX, dragStartBounds[1] + targetX,
+                            dragStartBounds[2] + targetZ, dragStartBounds[3] + targetZ,
+                            tolerance, snapShift);
+            targetX += snapShift.x;
+            targetZ += snapShift.z;
+        } else {
+            snapEngine.clearGuides();
+        }
         
-        // Scale factor based on zoom
-        double scale = 1.0 / cameraController.getZoom();
+        // The controller keeps the whole group inside the walls and records the drag for undo
+        double dx = targetX - (dragAnchor.getX() - anchorStartX);
+        double dz = targetZ - (dragAnchor.getZ() - anchorStartZ);
+        furnitureController.moveFurniture(getSelection(), dx, 0, dz, wallThickness);
         
-        // Apply rotation to get world space delta
-        // Fixed the direction to match mouse movement
-        double worldDx = (dx * Math.cos(rotY) + dz * Math.sin(rotY)) * scale;
-        double worldDz = (dz * Math.cos(rotY) - dx * Math.sin(rotY)) * scale;
+        // Only the moved pieces and their neighbors are scored again
+        dragIssues = 0;
+        updateLayoutEvaluator();
+        for (Furniture furniture : selection) {
+            dragIssues |= getLayoutIssues(furniture);
+        }
+    }
+    
+    // Brings the layout checks up to date with the active room, rebuilding them when
+    // pieces were added or removed, the room was resized or another room became active
+    private void updateLayoutEvaluator() {
+        Room room = furnitureController.getRoom();
+        SceneSnapshot snapshot = room.getSnapshot();
+        if (layoutEvaluator == null || evaluatedRoom != room || !layoutEvaluator.sync(snapshot)) {
+            layoutEvaluator = new LayoutEvaluator(snapshot, wallThickness);
+            evaluatedRoom = room;
+        }
+    }
+    
+    // LayoutCost issue flags for a piece of the active room, 0 for other rooms
+    private int getLayoutIssues(Furniture furniture) {
+        FurnitureStore store = furniture.getStore();
+        if (evaluatedRoom == null || store != evaluatedRoom.getFurnitureStore()) {
+            return 0;
+        }
+        int slot = store.slotOf(furniture.getId());
+        return slot < 0 || slot >= layoutEvaluator.size() ? 0 : layoutEvaluator.getIssues(slot);
+    }
+    
+    // Selected pieces in the order they were picked
+    public List<Furniture> getSelection() {
+        return new ArrayList<>(selection);
+    }
+    
+    public void clearSelection() {
+        selection.clear();
+        repaint();
+    }
+    
+    public void selectAll() {
+        selection.addAll(furnitureController.getAllFurniture());
+        repaint();
+    }
+    
+    public void deleteSelection() {
+        furnitureController.removeFurniture(getSelection());
+        selection.clear();
+        repaint();
+    }
+    
+    public void rotateSelection(double degrees) {
+        if (furnitureController.rotateFurniture(getSelection(), degrees)) {
+            repaint();
+        }
+    }
+    
+    public void alignSelection(FurnitureController.Alignment alignment) {
+        if (furnitureController.alignFurniture(getSelection(), alignment)) {
+            repaint();
+        }
+    }
+    
+    public void distributeSelection(FurnitureController.Axis axis) {
+        if (furnitureController.distributeFurniture(getSelection(), axis)) {
+            repaint();
+        }
+    }
+    
+    // With the floor seen edge-on no ray meets it, so sideways mouse movement slides the
+    // group across the view and vertical movement pushes it away, at the anchor's depth
+    private void addEdgeOnDragDelta(Point currentPos, Point lastPos) {
+        FurnitureStore store = dragAnchor.getStore();
+        getProjection().project(store.getOriginX() + dragAnchor.getX(), dragAnchor.getY(),
+                                store.getOriginZ() + dragAnchor.getZ(), projectedPoint);
+        double scale = 1 / getProjection().scaleAt(projectedPoint[2]); // cm per pixel
+        double right = (currentPos.x - lastPos.x) * scale;
+        double away = (currentPos.y - lastPos.y) * scale;
         
-        return new Vector3D(worldDx, 0, worldDz);
+        double rotY = cameraController.getRotationY();
+        dragOffsetX += right * Math.cos(rotY) - away * Math.sin(rotY);
+        dragOffsetZ += right * Math.sin(rotY) + away * Math.cos(rotY);
     }
     
-        // Update the getFurnitureAt method in Canvas3D.java
+    private static boolean isPanButton(MouseEvent e) {
+        return SwingUtilities.isRightMouseButton(e) || SwingUtilities.isMiddleMouseButton(e);
+    }
+    
+    // The camera rebuilds it only when it or the panel size has changed
+    private Projection getProjection() {
+        return cameraController.getProjection(getWidth(), getHeight());
+    }
+    
+        // Picks from the vertices the last frame drew, so what is hit is what is on screen
         private Furniture getFurnitureAt(Point point) {
-    // Get all furniture
-    List<Furniture> furnitureList = furnitureController.getAllFurniture();
+    ProjectedVertices projected = lastProjected;
+    int hit = -1;
+    double hitDepth = 0;
     
-    // Check furniture in reverse order (top to bottom) for better selection
-    for (int i = furnitureList.size() - 1; i >= 0; i--) {
-        Furniture furniture = furnitureList.get(i);
-        
-        // Convert 3D position to 2D screen position
-        Point screenPos = worldToScreen(furniture.getPosition());
-        
-        // Get furniture dimensions
-        double width = furniture.getDimension().getWidth() * cameraController.getZoom();
-        double length = furniture.getDimension().getLength() * cameraController.getZoom();
-        double height = furniture.getDimension().getHeight() * cameraController.getZoom();
-        
-        // Create a larger bounding rectangle for better hit detection
-        // Increase the hit area by 20% for easier selection
-        int halfWidth = (int)(width / 2 * 1.2);
-        int halfLength = (int)(length / 2 * 1.2);
-        
-        Rectangle bounds = new Rectangle(
-            screenPos.x - halfWidth, 
-            screenPos.y - halfLength,
-            halfWidth * 2,
-            halfLength * 2
-        );
+    for (int i = 0; projected != null && i < visibleFurniture.size(); i++) {
+        if (!visibleStores[i].contains(visibleIds[i])) {
+            continue; // Removed since the frame was drawn
+        }
         
-        if (bounds.contains(point)) {
-            System.out.println("Selected furniture: " + furniture.getName());
-            return furniture;
+        // The piece whose drawn faces cover the point nearest to the eye wins
+        double depth = instanceCache.depthAt(meshEntries[i], projected, meshOffsets[i], point.x, point.y);
+        if (depth > hitDepth) {
+            hit = i;
+            hitDepth = depth;
         }
     }
     
-    System.out.println("No furniture selected at point: " + point);
-    return null;
+    if (hit < 0) {
+        System.out.println("No furniture selected at point: " + point);
+        return null;
+    }
+    
+    // Looked up by id: removals since the frame may have moved the piece to another slot
+    FurnitureStore store = visibleStores[hit];
+    Furniture furniture = store.viewAt(store.slotOf(visibleIds[hit]));
+    System.out.println("Selected furniture: " + furniture.getName());
+    
+    // Editing follows the picked piece into its room
+    for (Room room : roomController.getFloorPlan().getRooms()) {
+        if (room.getFurnitureStore() == store && room != roomController.getRoom()) {
+            roomController.setActiveRoom(room);
+            selection.clear();
+        }
+    }
+    return furniture;
 }
     
-    private Point worldToScreen(Vector3D worldPos) {
-        // Convert 3D world coordinates to 2D screen coordinates
-        double rotX = cameraController.getRotationX();
-        double rotY = cameraController.getRotationY();
-        double zoom = cameraController.getZoom();
-        
-        // Apply rotation
-        double x = worldPos.getX();
-        double y = worldPos.getY();
-        double z = worldPos.getZ();
-        
-        // Rotate around Y axis (yaw)
-        double tempX = x * Math.cos(rotY) + z * Math.sin(rotY);
-        double tempZ = -x * Math.sin(rotY) + z * Math.cos(rotY);
-        
-        // Rotate around X axis (pitch)
-        double tempY = y * Math.cos(rotX) + tempZ * Math.sin(rotX);
-        tempZ = -y * Math.sin(rotX) + tempZ * Math.cos(rotX);
-        
-        // Apply perspective projection
-        double scale = zoom * 800 / (1200 + tempZ);
-        
-        // Convert to screen coordinates
-        int screenX = (int)(getWidth() / 2 + tempX * scale);
-        int screenY = (int)(getHeight() / 2 - tempY * scale); // Invert Y for screen coordinates
-        
-        return new Point(screenX, screenY);
+    private Point worldToScreen(double x, double y, double z, Point out) {
+        // Convert 3D world coordinates to 2D screen coordinates with the frame's projection
+        frameProjection.project(x, y, z, projectedPoint);
+        out.setLocation((int) projectedPoint[0], (int) projectedPoint[1]);
+        return out;
     }
     
     @Override
 protected void paintComponent(Graphics g) {
+    long frameStart = System.nanoTime();
     super.paintComponent(g);
     Graphics2D g2d = (Graphics2D) g;
     
-    // Enable anti-aliasing
-    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-    g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+    // Enable anti-aliasing unless the camera animation needs faster frames
+    updateQualityTier();
+    if (qualityTier == 0) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+    } else {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+    }
+    
+    setFrame(getProjection(), 0, getHeight(), 1);
+    instanceCache.beginFrame(cameraController.getRotationX(), cameraController.getRotationY());
+    List<Furniture> visible = drawScene(g2d);
     
+    // Second pass: Draw selection highlight and names on top of the geometry
+    if (!selection.isEmpty()) {
+        updateLayoutEvaluator();
+    }
+    if (draggingSelection) {
+        drawSnapGuides(g2d);
+    }
+    for (Furniture furniture : visible) {
+        if (selection.contains(furniture)) {
+            drawSelectionHighlight(g2d, furniture, getLayoutIssues(furniture));
+        }
+        if (qualityTier < LOWEST_QUALITY_TIER) {
+            drawFurnitureName(g2d, furniture);
+        }
+    }
+    
+    // Draw UI overlays
+    drawOverlays(g2d);
+    frameMetrics.setFrameTimeNanos(System.nanoTime() - frameStart);
+}
+    
+    // Draws one tile of an exported image: the scene and the furniture names, without the
+    // selection or the on-screen overlays. The projection comes from Projection.forTile.
+    // Called on an export worker thread, so only on a copy from createExportRenderer().
+    public void renderTile(Graphics2D g2d, Projection tileProjection, int offsetY, int imageHeight, double scale) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        
+        // The camera does not turn during an export, so cached meshes stay valid across tiles
+        setFrame(tileProjection, offsetY, imageHeight, scale);
+        for (Furniture furniture : drawScene(g2d)) {
+            drawFurnitureName(g2d, furniture);
+        }
+    }
+    
+    // Everything later drawing code needs to know about the frame being drawn. The frame
+    // may be one tile of a larger image, offsetY pixels down from its top edge.
+    private void setFrame(Projection projection, int offsetY, int imageHeight, double scale) {
+        frameProjection = projection;
+        frameOffsetY = offsetY;
+        frameImageHeight = imageHeight;
+        if (scale != frameScale) {
+            frameScale = scale;
+            nameFont = TITLE_FONT.deriveFont((float) (TITLE_FONT.getSize2D() * scale));
+            boundaryStroke = new BasicStroke((float) (2 * scale));
+        }
+    }
+    
+    // Draws background, grid, rooms and furniture; returns the furniture that was drawn
+    private List<Furniture> drawScene(Graphics2D g2d) {
     // Draw background
     drawBackground(g2d);
     
     // Draw grid
     drawGrid(g2d);
     
-    // Draw room
-    Room room = roomController.getRoom();
-    if (room != null) {
+    Projection projection = frameProjection;
+    culler.beginFrame(projection);
+    renderBackend.beginFrame(g2d, projection.getViewportWidth(), projection.getViewportHeight());
+    
+    // Skip whole rooms of the floor plan that lie outside the view
+    FloorPlan floorPlan = roomController.getFloorPlan();
+    List<Room> rooms = collectVisibleRooms(floorPlan, projection);
+    
+    // Draw rooms (also registers the walls as occluders)
+    for (Room room : rooms) {
         drawRoom(g2d, room);
     }
     
-    // Draw furniture
-    List<Furniture> furnitureList = furnitureController.getAllFurniture();
+    // Draw furniture, room by room
+    visibleFurniture.clear();
+    for (Room room : rooms) {
+        FurnitureStore store = room.getFurnitureStore();
+        
+        // Order furniture back-to-front for proper rendering (not needed with a depth buffer).
+        // The queue sorts slot indices, so the room's furniture is never reordered.
+        RenderQueue renderQueue = renderQueues.computeIfAbsent(room, r -> new RenderQueue());
+        int count = renderQueue.update(store, projection, renderBackend.requiresDepthSort());
+        
+        // Skip furniture that is off-screen or hidden behind a wall
+        cullFurniture(store, renderQueue.getOrder(), count, projection);
+    }
+    List<Furniture> visible = visibleFurniture;
     
-    // Sort furniture by Z-order for proper rendering
-    furnitureList.sort((f1, f2) -> {
-        double z1 = transformZ(f1.getPosition());
-        double z2 = transformZ(f2.getPosition());
-        return Double.compare(z2, z1); // Draw back-to-front
-    });
+    // Project all mesh vertices up front so only polygon submission runs per face here
+    ProjectedVertices projected = transformMeshes(visible.size(), projection);
+    lastProjected = projected;
     
     // First pass: Draw all furniture models/shapes
-    for (Furniture furniture : furnitureList) {
-        drawFurniture(g2d, furniture);
+    for (int i = 0; i < visible.size(); i++) {
+        drawFurniture(g2d, visible.get(i), projected, meshEntries[i], meshOffsets[i]);
     }
-    
-    // Draw UI overlays
-    drawOverlays(g2d);
+    renderBackend.endFrame();
+    return visible;
 }
     
-    private double transformZ(Vector3D position) {
-        // Transform Z coordinate for depth sorting
-        double rotY = cameraController.getRotationY();
-        double rotX = cameraController.getRotationX();
-        double x = position.getX();
-        double y = position.getY();
-        double z = position.getZ();
+    // Uses the previous frame's time, the best guess for the frame about to be drawn
+    private void updateQualityTier() {
+        if (!cameraController.isAnimating()) {
+            qualityTier = 0;
+        } else if (frameMetrics.getFrameTimeNanos() > FRAME_BUDGET_NANOS && qualityTier < LOWEST_QUALITY_TIER) {
+            qualityTier++;
+        }
+        frameMetrics.setQualityTier(qualityTier);
+    }
+    
+    private List<Room> collectVisibleRooms(FloorPlan floorPlan, Projection projection) {
+        visibleRooms.clear();
+        int totalFurniture = 0;
+        int culledRooms = 0;
+        for (Room room : floorPlan.getRooms()) {
+            totalFurniture += room.getFurnitureStore().size();
+            room.getBounds(roomBounds);
+            if (culler.isOutsideViewport(roomBounds[0], roomBounds[1], roomBounds[2],
+                                         roomBounds[3], roomBounds[4], roomBounds[5])) {
+                culledRooms++;
+            } else {
+                visibleRooms.add(room);
+            }
+        }
+        frameMetrics.reset(totalFurniture);
+        frameMetrics.setRooms(floorPlan.getRoomCount(), culledRooms);
+        
+        // The painter draws farther rooms first; furniture inside is sorted per room
+        if (renderBackend.requiresDepthSort() && visibleRooms.size() > 1) {
+            visibleRooms.sort((r1, r2) -> Double.compare(
+                projection.viewZ(r2.getOriginX(), 0, r2.getOriginZ()),
+                projection.viewZ(r1.getOriginX(), 0, r1.getOriginZ())));
+        }
+        return visibleRooms;
+    }
+    
+    // Appends the visible pieces of one room to visibleFurniture
+    private void cullFurniture(FurnitureStore store, int[] order, int count, Projection projection) {
+        int needed = visibleFurniture.size() + count;
+        if (visibleSlots.length < needed) {
+            visibleSlots = java.util.Arrays.copyOf(visibleSlots, Math.max(needed, visibleSlots.length * 2));
+            visibleIds = java.util.Arrays.copyOf(visibleIds, visibleSlots.length);
+            visibleStores = java.util.Arrays.copyOf(visibleStores, visibleSlots.length);
+        }
+        
+        // Walls only hide furniture with a depth buffer; the painter draws furniture over them
+        boolean occlusionCulling = !renderBackend.requiresDepthSort();
         
-        // Apply rotation to get view space Z
-        double tempX = x * Math.cos(rotY) + z * Math.sin(rotY);
-        double tempZ = -x * Math.sin(rotY) + z * Math.cos(rotY);
+        // Seen from above, whatever sinks below the floor is hidden by the floor itself
+        boolean eyeAboveFloor = projection.getEyeY() > 0;
         
-        // Apply X rotation
-        double finalZ = -y * Math.sin(rotX) + tempZ * Math.cos(rotX);
+        for (int i = 0; i < count; i++) {
+            int slot = order[i];
+            computeCullingBounds(store, slot, cullBounds);
+            double occlusionMinY = eyeAboveFloor ? Math.max(0, cullBounds[1]) : cullBounds[1];
+            
+            if (culler.isOutsideViewport(cullBounds[0], cullBounds[1], cullBounds[2],
+                                         cullBounds[3], cullBounds[4], cullBounds[5])) {
+                frameMetrics.recordFrustumCulled();
+            } else if (occlusionCulling && occlusionMinY < cullBounds[4]
+                       && culler.isOccluded(cullBounds[0], occlusionMinY, cullBounds[2],
+                                            cullBounds[3], cullBounds[4], cullBounds[5])) {
+                frameMetrics.recordOcclusionCulled();
+            } else {
+                visibleSlots[visibleFurniture.size()] = slot;
+                visibleIds[visibleFurniture.size()] = store.idAt(slot);
+                visibleStores[visibleFurniture.size()] = store;
+                visibleFurniture.add(store.viewAt(slot));
+                frameMetrics.recordDrawn();
+            }
+        }
+    }
+    
+    private void computeCullingBounds(FurnitureStore store, int slot, double[] bounds) {
+        // Conservative box: covers any rotation around Y, and the chair back
+        // which reaches a full height above the position
+        double halfExtent = Math.hypot(store.getWidth(slot), store.getLength(slot)) / 2;
+        double height = store.getHeight(slot);
+        double x = store.getX(slot) + store.getOriginX();
+        double z = store.getZ(slot) + store.getOriginZ();
+        
+        bounds[0] = x - halfExtent;
+        bounds[1] = store.getY(slot) - height / 2;
+        bounds[2] = z - halfExtent;
+        bounds[3] = x + halfExtent;
+        bounds[4] = store.getY(slot) + height;
+        bounds[5] = z + halfExtent;
+    }
+    
+    // Registers the first count entries of visibleSlots with the vertex stage
+    private ProjectedVertices transformMeshes(int count, Projection projection) {
+        FurnitureModelManager modelManager = FurnitureModelManager.getInstance();
+        if (meshOffsets.length < count) {
+            meshOffsets = new int[count];
+            meshEntries = new InstanceCache.Entry[count];
+        }
         
-        return finalZ;
+        transformStage.clear();
+        for (int i = 0; i < count; i++) {
+            int slot = visibleSlots[i];
+            FurnitureStore store = visibleStores[i];
+            FurnitureType type = store.getType(slot);
+            
+            // Use 3D model if available, otherwise fall back to the primitive shape
+            Mesh mesh;
+            if (modelManager.hasModel(type)) {
+                mesh = modelManager.getModel(type).getMesh();
+            } else {
+                mesh = primitiveMeshes.getMesh(type, store.getDimension(slot));
+            }
+            
+            InstanceCache.Entry entry = instanceCache.getEntry(mesh, store.getRotationY(slot), projection);
+            meshEntries[i] = entry;
+            meshOffsets[i] = transformStage.addInstance(entry, store.getX(slot) + store.getOriginX(), store.getY(slot),
+                                                        store.getZ(slot) + store.getOriginZ());
+        }
+        return transformStage.run(projection);
+    }
+    
+    private void submitFace(Vector3D[] vertices, Paint fill, Color outline) {
+        ensureFaceCapacity(vertices.length);
+        Projection projection = frameProjection;
+        for (int i = 0; i < vertices.length; i++) {
+            Vector3D v = vertices[i];
+            projection.project(v.getX(), v.getY(), v.getZ(), projectedPoint);
+            faceXs[i] = (int) projectedPoint[0];
+            faceYs[i] = (int) projectedPoint[1];
+            faceDepths[i] = 1.0 / projectedPoint[2]; // Reciprocal of the distance used by the perspective divide
+        }
+        renderBackend.fillPolygon(faceXs, faceYs, faceDepths, vertices.length, fill, outline);
+    }
+    
+    private void ensureFaceCapacity(int count) {
+        if (faceXs.length < count) {
+            faceXs = new int[count];
+            faceYs = new int[count];
+            faceDepths = new double[count];
+        }
     }
     
     private void drawBackground(Graphics2D g2d) {
         // Draw a gradient background
         GradientPaint gradient = new GradientPaint(
-            0, 0, new Color(230, 230, 240),
-            0, getHeight(), new Color(200, 200, 220)
+            0, -frameOffsetY, new Color(230, 230, 240),
+            0, frameImageHeight - frameOffsetY, new Color(200, 200, 220)
         );
         g2d.setPaint(gradient);
-        g2d.fillRect(0, 0, getWidth(), getHeight());
+        g2d.fillRect(0, 0, frameProjection.getViewportWidth(), frameProjection.getViewportHeight());
     }
     
     private void drawGrid(Graphics2D g2d) {
@@ -398,25 +977,30 @@ protected void paintComponent(Graphics g) {
         Room room = roomController.getRoom();
         if (room == null) return;
         
-        double zoom = cameraController.getZoom();
-        double rotX = cameraController.getRotationX();
-        double rotY = cameraController.getRotationY();
-        
-        int gridSize = 50;
+        int gridSize = (int) SnapEngine.GRID_SIZE;
         int gridExtent = 2000; // How far the grid extends
         
+        // Rooms placed further out in the floor plan stay on the grid
+        for (Room planRoom : roomController.getFloorPlan().getRooms()) {
+            planRoom.getBounds(roomBounds);
+            double reach = Math.max(Math.max(-roomBounds[0], roomBounds[3]), Math.max(-roomBounds[2], roomBounds[5]));
+            while (gridExtent < reach) {
+                gridExtent += gridSize;
+            }
+        }
+        
         g2d.setColor(gridColor);
         
         // Draw grid lines
         for (int x = -gridExtent; x <= gridExtent; x += gridSize) {
-            Point p1 = worldToScreen(new Vector3D(x, 0, -gridExtent));
-            Point p2 = worldToScreen(new Vector3D(x, 0, gridExtent));
+            Point p1 = worldToScreen(x, 0, -gridExtent, screenPoint);
+            Point p2 = worldToScreen(x, 0, gridExtent, screenPoint2);
             g2d.drawLine(p1.x, p1.y, p2.x, p2.y);
         }
         
         for (int z = -gridExtent; z <= gridExtent; z += gridSize) {
-            Point p1 = worldToScreen(new Vector3D(-gridExtent, 0, z));
-            Point p2 = worldToScreen(new Vector3D(gridExtent, 0, z));
+            Point p1 = worldToScreen(-gridExtent, 0, z, screenPoint);
+            Point p2 = worldToScreen(gridExtent, 0, z, screenPoint2);
             g2d.drawLine(p1.x, p1.y, p2.x, p2.y);
         }
     }
@@ -426,53 +1010,22 @@ protected void paintComponent(Graphics g) {
         double length = room.getLength();
         double height = room.getHeight();
         
-        // Calculate inner dimensions (accounting for wall thickness)
-        double innerWidth = width - (wallThickness * 2);
-        double innerLength = length - (wallThickness * 2);
-        
-        // Floor vertices (clockwise order for correct normal)
-        Vector3D[] outerFloorVertices = {
-            new Vector3D(-width/2, 0, -length/2),
-            new Vector3D(-width/2, 0, length/2),
-            new Vector3D(width/2, 0, length/2),
-            new Vector3D(width/2, 0, -length/2)
-        };
-        
-        Vector3D[] innerFloorVertices = {
-            new Vector3D(-innerWidth/2, 0, -innerLength/2),
-            new Vector3D(-innerWidth/2, 0, innerLength/2),
-            new Vector3D(innerWidth/2, 0, innerLength/2),
-            new Vector3D(innerWidth/2, 0, -innerLength/2)
-        };
-        
-        // Wall vertices (clockwise order for correct normal)
-        Vector3D[] outerWallVertices = {
-            new Vector3D(-width/2, height, -length/2),
-            new Vector3D(-width/2, height, length/2),
-            new Vector3D(width/2, height, length/2),
-            new Vector3D(width/2, height, -length/2)
-        };
-        
-        Vector3D[] innerWallVertices = {
-            new Vector3D(-innerWidth/2, height, -innerLength/2),
-            new Vector3D(-innerWidth/2, height, innerLength/2),
-            new Vector3D(innerWidth/2, height, innerLength/2),
-            new Vector3D(innerWidth/2, height, -innerLength/2)
-        };
+        RoomGeometry geometry = roomGeometries.computeIfAbsent(room, r -> new RoomGeometry());
+        updateRoomGeometry(geometry, width, length, height, room.getOriginX(), room.getOriginZ());
+        Vector3D[] outerFloorVertices = geometry.outerFloorVertices;
+        Vector3D[] innerFloorVertices = geometry.innerFloorVertices;
+        Vector3D[] outerWallVertices = geometry.outerWallVertices;
+        Vector3D[] innerWallVertices = geometry.innerWallVertices;
         
         // Draw floor with texture
-        Polygon floor = new Polygon();
-        for (Vector3D v : innerFloorVertices) {
-            Point p = worldToScreen(v);
-            floor.addPoint(p.x, p.y);
-        }
+        submitFace(innerFloorVertices, qualityTier < LOWEST_QUALITY_TIER ? floorPaint : floorColor, null);
         
-        // Create a TexturePaint for the floor
-        TexturePaint texturePaint = new TexturePaint(floorTexture, 
-            new Rectangle(0, 0, floorTexture.getWidth(), floorTexture.getHeight()));
-        
-        g2d.setPaint(texturePaint);
-        g2d.fill(floor);
+        // Both faces of every wall can hide furniture behind them
+        for (int i = 0; i < 4; i++) {
+            int next = (i + 1) % 4;
+            addWallOccluder(outerFloorVertices[i], outerFloorVertices[next], outerWallVertices[next], outerWallVertices[i]);
+            addWallOccluder(innerFloorVertices[i], innerFloorVertices[next], innerWallVertices[next], innerWallVertices[i]);
+        }
         
         // Draw walls with thickness
         // Left wall (outer and inner)
@@ -499,56 +1052,99 @@ protected void paintComponent(Graphics g) {
             innerFloorVertices[3], innerFloorVertices[0], innerWallVertices[0], innerWallVertices[3],
             wallColor);
         
+        // Make the room visible before drawing boundary lines over it
+        renderBackend.flush();
+        
         // Draw room boundary if enabled
         if (showBoundary) {
             g2d.setColor(boundaryColor);
-            g2d.setStroke(new BasicStroke(2));
+            g2d.setStroke(boundaryStroke);
             
             // Draw inner floor boundary
-            g2d.draw(floor);
+            drawOutline(g2d, innerFloorVertices);
             
             // Draw inner wall top edges
-            Polygon innerWallTop = new Polygon();
-            for (Vector3D v : innerWallVertices) {
-                Point p = worldToScreen(v);
-                innerWallTop.addPoint(p.x, p.y);
-            }
-            g2d.draw(innerWallTop);
+            drawOutline(g2d, innerWallVertices);
             
             // Draw outer floor boundary
-            Polygon outerFloor = new Polygon();
-            for (Vector3D v : outerFloorVertices) {
-                Point p = worldToScreen(v);
-                outerFloor.addPoint(p.x, p.y);
-            }
-            g2d.draw(outerFloor);
+            drawOutline(g2d, outerFloorVertices);
             
             // Draw outer wall top edges
-            Polygon outerWallTop = new Polygon();
-            for (Vector3D v : outerWallVertices) {
-                Point p = worldToScreen(v);
-                outerWallTop.addPoint(p.x, p.y);
-            }
-            g2d.draw(outerWallTop);
+            drawOutline(g2d, outerWallVertices);
             
             // Draw vertical edges
             for (int i = 0; i < 4; i++) {
                 // Inner vertical edges
-                Point innerBottom = worldToScreen(innerFloorVertices[i]);
-                Point innerTop = worldToScreen(innerWallVertices[i]);
-                g2d.drawLine(innerBottom.x, innerBottom.y, innerTop.x, innerTop.y);
+                drawEdge(g2d, innerFloorVertices[i], innerWallVertices[i]);
                 
                 // Outer vertical edges
-                Point outerBottom = worldToScreen(outerFloorVertices[i]);
-                Point outerTop = worldToScreen(outerWallVertices[i]);
-                g2d.drawLine(outerBottom.x, outerBottom.y, outerTop.x, outerTop.y);
+                drawEdge(g2d, outerFloorVertices[i], outerWallVertices[i]);
             }
             
             // Reset stroke
-            g2d.setStroke(new BasicStroke(1));
+            g2d.setStroke(DEFAULT_STROKE);
+        }
+    }
+    
+    private void updateRoomGeometry(RoomGeometry geometry, double width, double length, double height,
+                                    double originX, double originZ) {
+        if (width == geometry.width && length == geometry.length && height == geometry.height
+                && wallThickness == geometry.wallThickness
+                && originX == geometry.originX && originZ == geometry.originZ) {
+            return;
+        }
+        geometry.width = width;
+        geometry.length = length;
+        geometry.height = height;
+        geometry.wallThickness = wallThickness;
+        geometry.originX = originX;
+        geometry.originZ = originZ;
+        
+        // Calculate inner dimensions (accounting for wall thickness)
+        double innerWidth = width - (wallThickness * 2);
+        double innerLength = length - (wallThickness * 2);
+        
+        // Floor and wall top vertices (clockwise order for correct normal)
+        setRectangle(geometry.outerFloorVertices, originX, originZ, width, length, 0);
+        setRectangle(geometry.innerFloorVertices, originX, originZ, innerWidth, innerLength, 0);
+        setRectangle(geometry.outerWallVertices, originX, originZ, width, length, height);
+        setRectangle(geometry.innerWallVertices, originX, originZ, innerWidth, innerLength, height);
+    }
+    
+    private static void setRectangle(Vector3D[] vertices, double centerX, double centerZ,
+                                     double width, double length, double y) {
+        vertices[0] = new Vector3D(centerX - width/2, y, centerZ - length/2);
+        vertices[1] = new Vector3D(centerX - width/2, y, centerZ + length/2);
+        vertices[2] = new Vector3D(centerX + width/2, y, centerZ + length/2);
+        vertices[3] = new Vector3D(centerX + width/2, y, centerZ - length/2);
+    }
+    
+    private void drawOutline(Graphics2D g2d, Vector3D[] vertices) {
+        for (int i = 0; i < vertices.length; i++) {
+            drawEdge(g2d, vertices[i], vertices[(i + 1) % vertices.length]);
         }
     }
     
+    private void drawEdge(Graphics2D g2d, Vector3D from, Vector3D to) {
+        Point p1 = worldToScreen(from.getX(), from.getY(), from.getZ(), screenPoint);
+        Point p2 = worldToScreen(to.getX(), to.getY(), to.getZ(), screenPoint2);
+        g2d.drawLine(p1.x, p1.y, p2.x, p2.y);
+    }
+    
+    private void addWallOccluder(Vector3D v1, Vector3D v2, Vector3D v3, Vector3D v4) {
+        setOccluderCorner(0, v1);
+        setOccluderCorner(1, v2);
+        setOccluderCorner(2, v3);
+        setOccluderCorner(3, v4);
+        culler.addOccluder(occluderQuad);
+    }
+    
+    private void setOccluderCorner(int corner, Vector3D v) {
+        occluderQuad[corner * 3] = v.getX();
+        occluderQuad[corner * 3 + 1] = v.getY();
+        occluderQuad[corner * 3 + 2] = v.getZ();
+    }
+    
     private void drawThickWall(Graphics2D g2d, 
                               Vector3D outerBottom1, Vector3D outerBottom2, Vector3D outerTop2, Vector3D outerTop1,
                               Vector3D innerBottom1, Vector3D innerBottom2, Vector3D innerTop2, Vector3D innerTop1,
@@ -568,49 +1164,25 @@ protected void paintComponent(Graphics g) {
     }
     
     private void drawWall(Graphics2D g2d, Vector3D v1, Vector3D v2, Vector3D v3, Vector3D v4, Color color) {
-        // Convert 3D vertices to 2D points
-        Point p1 = worldToScreen(v1);
-        Point p2 = worldToScreen(v2);
-        Point p3 = worldToScreen(v3);
-        Point p4 = worldToScreen(v4);
-        
-        // Create polygon for the wall
-        Polygon wall = new Polygon();
-        wall.addPoint(p1.x, p1.y);
-        wall.addPoint(p2.x, p2.y);
-        wall.addPoint(p3.x, p3.y);
-        wall.addPoint(p4.x, p4.y);
-        
         // Calculate normal for backface culling
-        Vector3D edge1 = v2.subtract(v1);
-        Vector3D edge2 = v4.subtract(v1);
-        Vector3D normal = edge1.cross(edge2).normalize();
+        Vec3 normal = VecMath.faceNormal(v1, v2, v4, wallNormal);
         
-        // Calculate view vector based on camera position
-        double rotX = cameraController.getRotationX();
-        double rotY = cameraController.getRotationY();
-        
-        // Create a view vector pointing into the scene
-        Vector3D viewDir = new Vector3D(
-            -Math.sin(rotY) * Math.cos(rotX),
-            -Math.sin(rotX),
-            -Math.cos(rotY) * Math.cos(rotX)
-        );
+        // View vector pointing into the scene
+        Projection projection = frameProjection;
+        double facing = normal.dot(projection.getViewDirX(), projection.getViewDirY(), projection.getViewDirZ());
         
         // Only draw if facing camera (dot product < 0)
-        if (normal.dot(viewDir) < 0) {
+        if (facing < 0) {
             // Apply lighting
-            double lightIntensity = Math.max(0.3, -normal.dot(new Vector3D(0.5, -1, 0.5).normalize()));
+            double lightIntensity = Math.max(0.3, -normal.dot(LIGHT_X, LIGHT_Y, LIGHT_Z));
             Color shadedColor = shadeColor(color, lightIntensity);
             
-            g2d.setColor(shadedColor);
-            g2d.fill(wall);
-            
             // Draw outline if boundary is shown
-            if (showBoundary) {
-                g2d.setColor(boundaryColor);
-                g2d.draw(wall);
-            }
+            wallCorners[0] = v1;
+            wallCorners[1] = v2;
+            wallCorners[2] = v3;
+            wallCorners[3] = v4;
+            submitFace(wallCorners, shadedColor, showBoundary ? boundaryColor : null);
         }
     }
     
@@ -629,68 +1201,20 @@ protected void paintComponent(Graphics g) {
     // The rest of the furniture drawing methods remain the same...
     
     // Modify the drawFurniture method in Canvas3D.java
-private void drawFurniture(Graphics2D g2d, Furniture furniture) {
-    Vector3D position = furniture.getPosition();
-    Vector3D rotation = furniture.getRotation();
-    
-    // Try to use 3D model if available
-    FurnitureModelManager modelManager = FurnitureModelManager.getInstance();
-    if (modelManager.hasModel(furniture.getType())) {
-        FurnitureModel model = modelManager.getModel(furniture.getType());
-        model.render(g2d, position, rotation, 
-                    cameraController.getRotationX(), 
-                    cameraController.getRotationY(), 
-                    cameraController.getZoom());
-    } else {
-        // Fallback to primitive shape rendering if model not available
-        switch (furniture.getType()) {
-            case TABLE:
-                drawTable(g2d, furniture);
-                break;
-            case CHAIR:
-                drawChair(g2d, furniture);
-                break;
-            case SOFA:
-                drawSofa(g2d, furniture);
-                break;
-            case BED:
-                drawBed(g2d, furniture);
-                break;
-            case WINDOW:
-                drawWindow(g2d, furniture);
-                break;
-            case DOOR:
-                drawDoor(g2d, furniture);
-                break;
-            case BOOKSHELF:
-                drawBookshelf(g2d, furniture);
-                break;
-            case CABINET:
-                drawCabinet(g2d, furniture);
-                break;
-            default:
-                drawGenericFurniture(g2d, furniture);
-        }
-    }
-    
-    // Draw selection highlight if this furniture is selected
-    if (furniture == selectedFurniture) {
-        drawSelectionHighlight(g2d, furniture);
-    }
-    
-    // Draw furniture name - CHANGE THIS LINE to avoid recursion
-    drawFurnitureName(g2d, furniture, position);
+private void drawFurniture(Graphics2D g2d, Furniture furniture, ProjectedVertices projected,
+                           InstanceCache.Entry meshEntry, int meshOffset) {
+    // Models and primitive shapes share cached meshes whose vertices are already projected
+    instanceCache.draw(renderBackend, meshEntry, projected, meshOffset);
 }
     // Add this new method with an additional parameter to avoid recursion
-private void drawFurnitureName(Graphics2D g2d, Furniture furniture, Vector3D position) {
+private void drawFurnitureName(Graphics2D g2d, Furniture furniture, double x, double y, double z) {
     double height = furniture.getDimension().getHeight();
     
     // Position the name above the furniture
-    Vector3D namePos = new Vector3D(position.getX(), position.getY() + height/2 + 10, position.getZ());
-    Point screenPos = worldToScreen(namePos);
+    Point screenPos = worldToScreen(x, y + height/2 + 10, z, screenPoint);
     
     // Draw name with shadow for better visibility
-    g2d.setFont(new Font("Arial", Font.BOLD, 12));
+    g2d.setFont(nameFont);
     FontMetrics fm = g2d.getFontMetrics();
     int textWidth = fm.stringWidth(furniture.getName());
     
@@ -700,326 +1224,37 @@ private void drawFurnitureName(Graphics2D g2d, Furniture furniture, Vector3D pos
     g2d.drawString(furniture.getName(), screenPos.x - textWidth/2, screenPos.y);
 }
     
-    private void drawTable(Graphics2D g2d, Furniture furniture) {
-        Vector3D position = furniture.getPosition();
-        double width = furniture.getDimension().getWidth();
-        double height = furniture.getDimension().getHeight();
-        double length = furniture.getDimension().getLength();
-        
-        // Table top vertices
-        Vector3D[] topVertices = {
-            new Vector3D(position.getX() - width/2, position.getY() + height/2, position.getZ() - length/2),
-            new Vector3D(position.getX() - width/2, position.getY() + height/2, position.getZ() + length/2),
-            new Vector3D(position.getX() + width/2, position.getY() + height/2, position.getZ() + length/2),
-            new Vector3D(position.getX() + width/2, position.getY() + height/2, position.getZ() - length/2)
-        };
-        
-        // Table legs
-        double legWidth = 5;
-        Vector3D[] legPositions = {
-            new Vector3D(position.getX() - width/2 + legWidth, position.getY(), position.getZ() - length/2 + legWidth),
-            new Vector3D(position.getX() + width/2 - legWidth, position.getY(), position.getZ() - length/2 + legWidth),
-            new Vector3D(position.getX() + width/2 - legWidth, position.getY(), position.getZ() + length/2 - legWidth),
-            new Vector3D(position.getX() - width/2 + legWidth, position.getY(), position.getZ() + length/2 - legWidth)
-        };
-        
-        // Draw table top
-        Polygon top = new Polygon();
-        for (Vector3D v : topVertices) {
-            Point p = worldToScreen(v);
-            top.addPoint(p.x, p.y);
-        }
-        
-        // Calculate normal for backface culling
-        Vector3D edge1 = topVertices[1].subtract(topVertices[0]);
-        Vector3D edge2 = topVertices[3].subtract(topVertices[0]);
-        Vector3D normal = edge1.cross(edge2).normalize();
-        
-        // Calculate view vector
-        double rotX = cameraController.getRotationX();
-        double rotY = cameraController.getRotationY();
-        Vector3D viewDir = new Vector3D(
-            -Math.sin(rotY) * Math.cos(rotX),
-            -Math.sin(rotX),
-            -Math.cos(rotY) * Math.cos(rotX)
-        );
-        
-        // Only draw if facing camera
-        if (normal.dot(viewDir) < 0) {
-            g2d.setColor(new Color(139, 69, 19)); // Brown
-            g2d.fill(top);
-            g2d.setColor(Color.BLACK);
-            g2d.draw(top);
-        }
-        
-        // Draw table legs
-        for (Vector3D legPos : legPositions) {
-            drawBox(g2d, legPos, legWidth, height, legWidth, new Color(120, 60, 15));
-        }
-    }
-    
-    private void drawChair(Graphics2D g2d, Furniture furniture) {
-        Vector3D position = furniture.getPosition();
-        double width = furniture.getDimension().getWidth();
-        double height = furniture.getDimension().getHeight();
-        double length = furniture.getDimension().getLength();
-        
-        // Chair seat
-        drawBox(g2d, new Vector3D(position.getX(), position.getY() + height/6, position.getZ()), 
-                width, height/3, length, new Color(160, 82, 45));
-        
-        // Chair back
-        drawBox(g2d, new Vector3D(position.getX(), position.getY() + height*2/3, position.getZ() - length/2 + 5), 
-                width, height*2/3, 5, new Color(140, 70, 35));
-        
-        // Chair legs
-        double legWidth = 3;
-        Vector3D[] legPositions = {
-            new Vector3D(position.getX() - width/2 + legWidth, position.getY() - height/6, position.getZ() - length/2 + legWidth),
-            new Vector3D(position.getX() + width/2 - legWidth, position.getY() - height/6, position.getZ() - length/2 + legWidth),
-            new Vector3D(position.getX() + width/2 - legWidth, position.getY() - height/6, position.getZ() + length/2 - legWidth),
-            new Vector3D(position.getX() - width/2 + legWidth, position.getY() - height/6, position.getZ() + length/2 - legWidth)
-        };
-        
-        for (Vector3D legPos : legPositions) {
-            drawBox(g2d, legPos, legWidth, height/3, legWidth, new Color(120, 60, 15));
-        }
-    }
-    
-    private void drawSofa(Graphics2D g2d, Furniture furniture) {
-        Vector3D position = furniture.getPosition();
-        double width = furniture.getDimension().getWidth();
-        double height = furniture.getDimension().getHeight();
-        double length = furniture.getDimension().getLength();
-        
-        // Sofa base
-        drawBox(g2d, new Vector3D(position.getX(), position.getY(), position.getZ()), 
-                width, height/2, length, new Color(70, 130, 180));
-        
-        // Sofa back
-        drawBox(g2d, new Vector3D(position.getX(), position.getY() + height/4, position.getZ() - length/2 + 10), 
-                width, height/2, 20, new Color(60, 110, 160));
-        
-        // Sofa arms
-        drawBox(g2d, new Vector3D(position.getX() - width/2 + 10, position.getY() + height/8, position.getZ()), 
-                20, height/4, length, new Color(50, 100, 150));
-        drawBox(g2d, new Vector3D(position.getX() + width/2 - 10, position.getY() + height/8, position.getZ()), 
-                20, height/4, length, new Color(50, 100, 150));
-    }
-    
-    private void drawBed(Graphics2D g2d, Furniture furniture) {
-        Vector3D position = furniture.getPosition();
-        double width = furniture.getDimension().getWidth();
-        double height = furniture.getDimension().getHeight();
-        double length = furniture.getDimension().getLength();
-        
-        // Bed base
-        drawBox(g2d, new Vector3D(position.getX(), position.getY() - height/4, position.getZ()), 
-                width, height/2, length, new Color(160, 82, 45));
-        
-        // Mattress
-        drawBox(g2d, new Vector3D(position.getX(), position.getY(), position.getZ()), 
-                width - 10, 10, length - 10, new Color(220, 220, 220));
-        
-        // Headboard
-        drawBox(g2d, new Vector3D(position.getX(), position.getY() + height/4, position.getZ() - length/2 + 5), 
-                width, height/2, 10, new Color(140, 70, 35));
-    }
-    
-    private void drawWindow(Graphics2D g2d, Furniture furniture) {
-        Vector3D position = furniture.getPosition();
-        double width = furniture.getDimension().getWidth();
-        double height = furniture.getDimension().getHeight();
-        double depth = 10;
-        
-        // Window frame
-        drawBox(g2d, position, width, height, depth, new Color(160, 82, 45));
-        
-        // Window glass
-        drawBox(g2d, new Vector3D(position.getX(), position.getY(), position.getZ() + 1), 
-                width - 10, height - 10, depth - 2, new Color(173, 216, 230, 150));
-    }
-    
-    private void drawDoor(Graphics2D g2d, Furniture furniture) {
-        Vector3D position = furniture.getPosition();
-        double width = furniture.getDimension().getWidth();
-        double height = furniture.getDimension().getHeight();
-        double depth = 5;
-        
-        // Door
-        drawBox(g2d, position, width, height, depth, new Color(160, 82, 45));
-        
-        // Door handle
-        Point handlePos = worldToScreen(new Vector3D(
-            position.getX() + width/3, 
-            position.getY(), 
-            position.getZ() + depth/2 + 2
-        ));
-        g2d.setColor(new Color(200, 200, 200));
-        g2d.fillOval(handlePos.x - 3, handlePos.y - 3, 6, 6);
-    }
-    
-    private void drawBookshelf(Graphics2D g2d, Furniture furniture) {
-        Vector3D position = furniture.getPosition();
-        double width = furniture.getDimension().getWidth();
-        double height = furniture.getDimension().getHeight();
-        double depth = furniture.getDimension().getLength();
-        
-        // Bookshelf frame
-        drawBox(g2d, position, width, height, depth, new Color(160, 82, 45));
-        
-        // Shelves
-        int numShelves = 4;
-        for (int i = 1; i < numShelves; i++) {
-            double shelfY = position.getY() - height/2 + (i * height / numShelves);
-            drawBox(g2d, new Vector3D(position.getX(), shelfY, position.getZ()), 
-                    width - 4, 2, depth - 4, new Color(140, 70, 35));
-        }
-    }
-    
-    private void drawCabinet(Graphics2D g2d, Furniture furniture) {
-        Vector3D position = furniture.getPosition();
-        double width = furniture.getDimension().getWidth();
-        double height = furniture.getDimension().getHeight();
-        double depth = furniture.getDimension().getLength();
-        
-        // Cabinet body
-        drawBox(g2d, position, width, height, depth, new Color(160, 82, 45));
-        
-        // Cabinet doors
-        drawBox(g2d, new Vector3D(position.getX() - width/4, position.getY(), position.getZ() + depth/2 - 1), 
-                width/2, height - 4, 2, new Color(140, 70, 35));
-        drawBox(g2d, new Vector3D(position.getX() + width/4, position.getY(), position.getZ() + depth/2 - 1), 
-                width/2, height - 4, 2, new Color(140, 70, 35));
-        
-        // Cabinet handles
-        Point handle1Pos = worldToScreen(new Vector3D(
-            position.getX() - width/4, 
-            position.getY(), 
-            position.getZ() + depth/2 + 1
-        ));
-        Point handle2Pos = worldToScreen(new Vector3D(
-            position.getX() + width/4, 
-            position.getY(), 
-            position.getZ() + depth/2 + 1
-        ));
-        g2d.setColor(new Color(200, 200, 200));
-        g2d.fillOval(handle1Pos.x - 3, handle1Pos.y - 3, 6, 6);
-        g2d.fillOval(handle2Pos.x - 3, handle2Pos.y - 3, 6, 6);
-    }
-    
-    private void drawGenericFurniture(Graphics2D g2d, Furniture furniture) {
-        Vector3D position = furniture.getPosition();
+    private void drawSelectionHighlight(Graphics2D g2d, Furniture furniture, int issues) {
+        FurnitureStore store = furniture.getStore();
+        double originX = store.getOriginX();
+        double originZ = store.getOriginZ();
         double width = furniture.getDimension().getWidth();
         double height = furniture.getDimension().getHeight();
         double depth = furniture.getDimension().getLength();
         
-        // Simple box representation
-        drawBox(g2d, position, width, height, depth, Color.GRAY);
-    }
-    
-    private void drawBox(Graphics2D g2d, Vector3D position, double width, double height, double depth, Color color) {
-        // Calculate vertices for a box centered at position
-        Vector3D[] vertices = new Vector3D[8];
-        
-        // Bottom vertices (counter-clockwise looking from bottom)
-        vertices[0] = new Vector3D(position.getX() - width/2, position.getY() - height/2, position.getZ() - depth/2);
-        vertices[1] = new Vector3D(position.getX() - width/2, position.getY() - height/2, position.getZ() + depth/2);
-        vertices[2] = new Vector3D(position.getX() + width/2, position.getY() - height/2, position.getZ() + depth/2);
-        vertices[3] = new Vector3D(position.getX() + width/2, position.getY() - height/2, position.getZ() - depth/2);
-        
-        // Top vertices (counter-clockwise looking from top)
-        vertices[4] = new Vector3D(position.getX() - width/2, position.getY() + height/2, position.getZ() - depth/2);
-        vertices[5] = new Vector3D(position.getX() - width/2, position.getY() + height/2, position.getZ() + depth/2);
-        vertices[6] = new Vector3D(position.getX() + width/2, position.getY() + height/2, position.getZ() + depth/2);
-        vertices[7] = new Vector3D(position.getX() + width/2, position.getY() + height/2, position.getZ() - depth/2);
-        
-        // Define the faces of the box (each face is defined by 4 vertices)
-        int[][] faces = {
-            {0, 1, 2, 3},  // Bottom face
-            {4, 5, 6, 7},  // Top face
-            {0, 1, 5, 4},  // Left face
-            {1, 2, 6, 5},  // Front face
-            {2, 3, 7, 6},  // Right face
-            {3, 0, 4, 7}   // Back face
-        };
-        
-        // Colors for each face (slightly different shades)
-        Color[] faceColors = {
-            color.darker(),       // Bottom - darker
-            color,                // Top - normal
-            color.darker(),       // Left - darker
-            color,                // Front - normal
-            color.darker(),       // Right - darker
-            color                 // Back - normal
-        };
-        
-        // Calculate view vector for backface culling
-        double rotX = cameraController.getRotationX();
-        double rotY = cameraController.getRotationY();
-        Vector3D viewDir = new Vector3D(
-            -Math.sin(rotY) * Math.cos(rotX),
-            -Math.sin(rotX),
-            -Math.cos(rotY) * Math.cos(rotX)
-        );
-        
-        // Draw each face with backface culling
-        for (int i = 0; i < faces.length; i++) {
-            int[] face = faces[i];
-            
-            // Calculate face normal
-            Vector3D edge1 = vertices[face[1]].subtract(vertices[face[0]]);
-            Vector3D edge2 = vertices[face[3]].subtract(vertices[face[0]]);
-            Vector3D normal = edge1.cross(edge2).normalize();
-            
-            // Only draw if facing camera (dot product < 0)
-            if (normal.dot(viewDir) < 0) {
-                // Create polygon for the face
-                Polygon poly = new Polygon();
-                for (int j = 0; j < 4; j++) {
-                    Point p = worldToScreen(vertices[face[j]]);
-                    poly.addPoint(p.x, p.y);
-                }
-                
-                // Apply lighting
-                double lightIntensity = Math.max(0.3, -normal.dot(new Vector3D(0.5, -1, 0.5).normalize()));
-                Color shadedColor = shadeColor(faceColors[i], lightIntensity);
-                
-                g2d.setColor(shadedColor);
-                g2d.fill(poly);
-                g2d.setColor(Color.DARK_GRAY);
-                g2d.draw(poly);
-            }
-        }
-    }
-    
-    private void drawSelectionHighlight(Graphics2D g2d, Furniture furniture) {
-        Vector3D position = furniture.getPosition();
-        double width = furniture.getDimension().getWidth();
-        double height = furniture.getDimension().getHeight();
-        double depth = furniture.getDimension().getLength();
+        // Turned like the piece's mesh, see InstanceCache
+        double angle = -Math.toRadians(furniture.getRotation().getY());
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
         
         // Draw a bounding box around the selected furniture
-        Vector3D[] vertices = {
-            new Vector3D(position.getX() - width/2, position.getY() - height/2, position.getZ() - depth/2),
-            new Vector3D(position.getX() + width/2, position.getY() - height/2, position.getZ() - depth/2),
-            new Vector3D(position.getX() + width/2, position.getY() - height/2, position.getZ() + depth/2),
-            new Vector3D(position.getX() - width/2, position.getY() - height/2, position.getZ() + depth/2),
-            new Vector3D(position.getX() - width/2, position.getY() + height/2, position.getZ() - depth/2),
-            new Vector3D(position.getX() + width/2, position.getY() + height/2, position.getZ() - depth/2),
-            new Vector3D(position.getX() + width/2, position.getY() + height/2, position.getZ() + depth/2),
-            new Vector3D(position.getX() - width/2, position.getY() + height/2, position.getZ() + depth/2)
-        };
-        
-        // Convert to screen coordinates
-        Point[] points = new Point[8];
+        Point[] points = boxPoints;
         for (int i = 0; i < 8; i++) {
-            points[i] = worldToScreen(vertices[i]);
+            // Corners 0-3 are the bottom face, 4-7 the top face
+            double localX = (i & 3) == 1 || (i & 3) == 2 ? width/2 : -width/2;
+            double localZ = (i & 3) >= 2 ? depth/2 : -depth/2;
+            double x = originX + furniture.getX() + localX * cos + localZ * sin;
+            double y = furniture.getY() + (i < 4 ? -height/2 : height/2);
+            double z = originZ + furniture.getZ() - localX * sin + localZ * cos;
+            if (points[i] == null) {
+                points[i] = new Point();
+            }
+            worldToScreen(x, y, z, points[i]);
         }
         
-        // Draw edges
-        g2d.setColor(Color.GREEN);
-        g2d.setStroke(new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{5}, 0));
+        // Draw edges, colored by the worst problem with the piece's placement
+        g2d.setColor(highlightColor(issues));
+        g2d.setStroke(SELECTION_STROKE);
         
         // Bottom face
         g2d.drawLine(points[0].x, points[0].y, points[1].x, points[1].y);
@@ -1040,7 +1275,53 @@ private void drawFurnitureName(Graphics2D g2d, Furniture furniture, Vector3D pos
         g2d.drawLine(points[3].x, points[3].y, points[7].x, points[7].y);
         
         // Reset stroke
-        g2d.setStroke(new BasicStroke());
+        g2d.setStroke(DEFAULT_STROKE);
+    }
+    
+    // Lines across the room that the dragged group has snapped onto
+    private void drawSnapGuides(Graphics2D g2d) {
+        Room room = furnitureController.getRoom();
+        FurnitureStore store = room.getFurnitureStore();
+        double originX = store.getOriginX();
+        double originZ = store.getOriginZ();
+        double halfWidth = room.getWidth() / 2.0;
+        double halfLength = room.getLength() / 2.0;
+        
+        g2d.setColor(SNAP_GUIDE_COLOR);
+        g2d.setStroke(SELECTION_STROKE);
+        double guideX = snapEngine.getGuideX();
+        if (!Double.isNaN(guideX)) {
+            Point p1 = worldToScreen(originX + guideX, 0, originZ - halfLength, screenPoint);
+            Point p2 = worldToScreen(originX + guideX, 0, originZ + halfLength, screenPoint2);
+            g2d.drawLine(p1.x, p1.y, p2.x, p2.y);
+        }
+        double guideZ = snapEngine.getGuideZ();
+        if (!Double.isNaN(guideZ)) {
+            Point p1 = worldToScreen(originX - halfWidth, 0, originZ + guideZ, screenPoint);
+            Point p2 = worldToScreen(originX + halfWidth, 0, originZ + guideZ, screenPoint2);
+            g2d.drawLine(p1.x, p1.y, p2.x, p2.y);
+        }
+        g2d.setStroke(DEFAULT_STROKE);
+    }
+    
+    private static Color highlightColor(int issues) {
+        if ((issues & LayoutCost.OVERLAP) != 0) {
+            return Color.RED;
+        } else if ((issues & LayoutCost.BLOCKS_ACCESS) != 0) {
+            return Color.ORANGE;
+        } else if ((issues & LayoutCost.CRAMPED) != 0) {
+            return Color.YELLOW;
+        }
+        return Color.GREEN;
+    }
+    
+    private static String issueMessage(int issues) {
+        if ((issues & LayoutCost.OVERLAP) != 0) {
+            return "Overlaps another piece";
+        } else if ((issues & LayoutCost.BLOCKS_ACCESS) != 0) {
+            return "Blocks a door or window";
+        }
+        return "Too little room to walk past";
     }
     
 
@@ -1048,24 +1329,30 @@ private void drawFurnitureName(Graphics2D g2d, Furniture furniture, Vector3D pos
 // Modify the original drawFurnitureName method to call the new one
 private void drawFurnitureName(Graphics2D g2d, Furniture furniture) {
     // This method is kept for backward compatibility
-    // It now calls the new method with the position parameter
-    drawFurnitureName(g2d, furniture, furniture.getPosition());
+    // It now calls the new method with the world position, offset by the room origin
+    FurnitureStore store = furniture.getStore();
+    drawFurnitureName(g2d, furniture, store.getOriginX() + furniture.getX(), furniture.getY(),
+                      store.getOriginZ() + furniture.getZ());
 }
     
     private void drawOverlays(Graphics2D g2d) {
         // Draw camera controls help
         g2d.setColor(new Color(0, 0, 0, 180));
-        g2d.fillRoundRect(10, 10, 200, 120, 10, 10);
+        g2d.fillRoundRect(10, 10, 200, 180, 10, 10);
         
         g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 12));
+        g2d.setFont(TITLE_FONT);
         g2d.drawString("Camera Controls:", 20, 30);
-        g2d.setFont(new Font("Arial", Font.PLAIN, 11));
+        g2d.setFont(TEXT_FONT);
         g2d.drawString("Drag - Rotate View", 20, 50);
-        g2d.drawString("Mouse Wheel - Zoom", 20, 65);
-        g2d.drawString("Arrow Keys - Rotate", 20, 80);
-        g2d.drawString("R - Reset View", 20, 95);
-        g2d.drawString("T/F/S - Top/Front/Side View", 20, 110);
+        g2d.drawString("Right Drag - Pan", 20, 65);
+        g2d.drawString("Mouse Wheel - Zoom", 20, 80);
+        g2d.drawString("Arrow Keys - Rotate", 20, 95);
+        g2d.drawString("R - Reset View", 20, 110);
+        g2d.drawString("T/F/S - Top/Front/Side View", 20, 125);
+        g2d.drawString("Z - Toggle Depth Buffer", 20, 140);
+        g2d.drawString("M - Toggle Frame Metrics", 20, 155);
+        g2d.drawString("N - Next Room", 20, 170);
         
         // Draw view mode indicator
         String viewMode = "Free View";
@@ -1081,7 +1368,32 @@ private void drawFurnitureName(Graphics2D g2d, Furniture furniture) {
         g2d.fillRoundRect(getWidth() - 110, 10, 100, 25, 10, 10);
         
         g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 12));
+        g2d.setFont(TITLE_FONT);
         g2d.drawString(viewMode, getWidth() - 100, 27);
+        
+        // Warn about the dragged pieces' placement
+        if (draggingSelection && dragIssues != 0) {
+            String warning = issueMessage(dragIssues);
+            g2d.setFont(TITLE_FONT);
+            int textWidth = g2d.getFontMetrics().stringWidth(warning);
+            int x = (getWidth() - textWidth) / 2;
+            
+            g2d.setColor(new Color(0, 0, 0, 180));
+            g2d.fillRoundRect(x - 10, getHeight() - 35, textWidth + 20, 25, 10, 10);
+            g2d.setColor(highlightColor(dragIssues));
+            g2d.drawString(warning, x, getHeight() - 18);
+        }
+        
+        // Draw frame metrics if enabled (values from the previous frame)
+        if (showMetrics) {
+            String metrics = frameMetrics.toString();
+            g2d.setFont(TEXT_FONT);
+            int textWidth = g2d.getFontMetrics().stringWidth(metrics);
+            
+            g2d.setColor(new Color(0, 0, 0, 180));
+            g2d.fillRoundRect(10, getHeight() - 35, textWidth + 20, 25, 10, 10);
+            g2d.setColor(Color.WHITE);
+            g2d.drawString(metrics, 20, getHeight() - 18);
+        }
     }
 }
@@ -0,0 +1,236 @@
+package com.mycompany.furniplanner.ui;
+
+import com.mycompany.furniplanner.controller.FurnitureController;
+import com.mycompany.furniplanner.controller.FurniturePlacer;
+import com.mycompany.furniplanner.model.Dimension3D;
+import com.mycompany.furniplanner.model.Furniture;
+import com.mycompany.furniplanner.model.Room;
+import com.mycompany.furniplanner.model.SceneSnapshot;
+import com.mycompany.furniplanner.model.Vector3D;
+import com.mycompany.furniplanner.utils.LayoutReader;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.Component;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+// Imports a CSV or JSON inventory list into the active room. Parsing and placement run
+// in the background; placed pieces reach the room in chunks on the event thread, so the
+// scene fills in while the file is still being read. Cancelling keeps what was already
+// added, and the whole import is a single undo step.
+public class FurnitureImportWorker extends SwingWorker<Void, List<Furniture>> {
+    private static final int CHUNK_SIZE = 256;
+
+    private final File file;
+    private final FurnitureController furnitureController;
+    private final Room target;
+    private final SceneSnapshot snapshot;
+    private final double wallThickness;
+    private final Component parent;
+    private final ProgressMonitor monitor;
+
+    // Written in the background, read in done()
+    private volatile int skipped;
+    private volatile int unplaced;
+
+    // Only touched on the event thread
+    private int imported;
+
+    // Created on the event thread; the target room and what it holds are fixed here
+    private FurnitureImportWorker(File file, FurnitureController furnitureController, double wallThickness,
+                                  Component parent) {
+        this.file = file;
+        this.furnitureController = furnitureController;
+        this.target = furnitureController.getRoom();
+        this.snapshot = target.getSnapshot();
+        this.wallThickness = wallThickness;
+        this.parent = parent;
+        this.monitor = new ProgressMonitor(parent, "Importing " + file.getName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+    }
+
+    // Asks for a file and runs the import with a cancellable progress dialog
+    public static void importFile(Component parent, FurnitureController furnitureController, double wallThickness) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Import Furniture");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Furniture lists (*.csv, *.json)", "csv", "json"));
+        if (fileChooser.showOpenDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        FurnitureImportWorker worker = new FurnitureImportWorker(fileChooser.getSelectedFile(), furnitureController,
+                                                                 wallThickness, parent);
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                worker.updateMonitor();
+            }
+        });
+        furnitureController.beginImport();
+        worker.execute();
+    }
+
+    @Override
+    protected Void doInBackground() throws IOException {
+        FurniturePlacer placer = new FurniturePlacer(snapshot, wallThickness);
+        long length = Math.max(1, file.length());
+
+        try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)));
+             Reader reader = new InputStreamReader(counter, StandardCharsets.UTF_8)) {
+            LayoutReader layoutReader = new LayoutReader(reader);
+            List<Furniture> chunk = new ArrayList<>(CHUNK_SIZE);
+
+            LayoutReader.ItemHandler handler = item -> {
+                if (isCancelled()) {
+                    return false;
+                }
+                Furniture furniture = createFurniture(item);
+                if (placer.place(furniture, item.hasPosition())) {
+                    chunk.add(furniture);
+                    if (chunk.size() == CHUNK_SIZE) {
+                        publish(new ArrayList<>(chunk));
+                        chunk.clear();
+                    }
+                } else {
+                    unplaced++;
+                }
+                setProgress((int) Math.min(99, counter.getCount() * 100 / length));
+                return true;
+            };
+
+            if (LayoutReader.isJson(file.getName())) {
+                layoutReader.readJson(handler);
+            } else {
+                layoutReader.readCsv(handler);
+            }
+
+            if (!chunk.isEmpty() && !isCancelled()) {
+                publish(chunk);
+            }
+            skipped = layoutReader.getSkipped();
+        }
+        return null;
+    }
+
+    private static Furniture createFurniture(LayoutReader.Item item) {
+        Furniture furniture = new Furniture(item.name(), item.type(),
+                new Vector3D(orZero(item.x()), orZero(item.y()), orZero(item.z())));
+        if (!Double.isNaN(item.rotation())) {
+            furniture.setRotation(new Vector3D(0, item.rotation(), 0));
+        }
+
+        // Sizes missing from the file keep the type's default
+        Dimension3D dimension = furniture.getDimension();
+        if (!Double.isNaN(item.width()) || !Double.isNaN(item.height()) || !Double.isNaN(item.length())) {
+            furniture.setDimension(new Dimension3D(
+                    Double.isNaN(item.width()) ? dimension.getWidth() : item.width(),
+                    Double.isNaN(item.height()) ? dimension.getHeight() : item.height(),
+                    Double.isNaN(item.length()) ? dimension.getLength() : item.length()));
+        }
+        return furniture;
+    }
+
+    private static double orZero(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    @Override
+    protected void process(List<List<Furniture>> chunks) {
+        if (isCancelled()) {
+            return;
+        }
+
+        // Chunks that queued up while the event thread was busy go in as one batch
+        List<Furniture> pieces = chunks.size() == 1 ? chunks.get(0) : new ArrayList<>();
+        if (chunks.size() > 1) {
+            for (List<Furniture> chunk : chunks) {
+                pieces.addAll(chunk);
+            }
+        }
+        furnitureController.importFurniture(target, pieces);
+        imported += pieces.size();
+        updateMonitor();
+    }
+
+    // Runs on the event thread after every published chunk has been processed
+    @Override
+    protected void done() {
+        furnitureController.endImport();
+        monitor.close();
+        showSummary();
+    }
+
+    private void updateMonitor() {
+        if (monitor.isCanceled()) {
+            cancel(false);
+            return;
+        }
+        monitor.setNote(imported + " pieces added");
+        monitor.setProgress(getProgress());
+    }
+
+    private void showSummary() {
+        String message = imported + " pieces imported";
+        if (unplaced > 0) {
+            message += "\n" + unplaced + " pieces did not fit into the room";
+        }
+        if (skipped > 0) {
+            message += "\n" + skipped + " entries could not be read";
+        }
+
+        try {
+            get();
+            JOptionPane.showMessageDialog(parent, message, "Import Finished", JOptionPane.INFORMATION_MESSAGE);
+        } catch (CancellationException e) {
+            JOptionPane.showMessageDialog(parent, "Import cancelled\n" + message, "Import Cancelled",
+                                          JOptionPane.INFORMATION_MESSAGE);
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.out.println("Import of " + file + " failed: " + cause.getMessage());
+            JOptionPane.showMessageDialog(parent, "Import failed: " + cause.getMessage() + "\n" + message,
+                                          "Import Failed", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Counts the bytes read so far, which gives the progress through the file
+    private static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -53,7 +53,6 @@ public class FurniturePanel extends JPanel {
                 // Add furniture at center of room
                 Vector3D position = new Vector3D(0, 0, 0);
                 furnitureController.addFurniture(itemName, type, position);
-                canvas3D.repaint();
             }
         });
         
@@ -0,0 +1,203 @@
+package com.mycompany.furniplanner.ui;
+
+import com.mycompany.furniplanner.render.Projection;
+import com.mycompany.furniplanner.utils.PngWriter;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.GridLayout;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Saves the current view as a PNG of any size, e.g. 8000x6000 for print. The image is
+// drawn in square tiles by worker threads, each with its own offscreen copy of the
+// canvas and the scene, and written out one band of tiles at a time: while one band is
+// compressed the next is drawn, and no more than two bands are ever held in memory.
+public class ImageExportWorker extends SwingWorker<Void, Void> {
+    private static final int TILE_SIZE = 512;
+    private static final int MAX_DIMENSION = 20000; // px per side
+
+    private final File file;
+    private final int width;
+    private final int height;
+    private final double scale;
+    private final Projection view;
+    private final Canvas3D[] renderers;
+    private final Component parent;
+    private final ProgressMonitor monitor;
+
+    // Created on the event thread; the scene and camera are fixed here
+    private ImageExportWorker(File file, Canvas3D canvas, int width, int height, Component parent) {
+        this.file = file;
+        this.width = width;
+        this.height = height;
+        this.view = canvas.getViewProjection();
+
+        // Shows at least what the canvas shows, enlarged to fill the image
+        this.scale = Math.min(width / (double) Math.max(1, canvas.getWidth()),
+                              height / (double) Math.max(1, canvas.getHeight()));
+
+        int tilesAcross = (width + TILE_SIZE - 1) / TILE_SIZE;
+        this.renderers = new Canvas3D[Math.max(1, Math.min(tilesAcross, Runtime.getRuntime().availableProcessors()))];
+        for (int i = 0; i < renderers.length; i++) {
+            renderers[i] = canvas.createExportRenderer();
+        }
+
+        this.parent = parent;
+        this.monitor = new ProgressMonitor(parent, "Exporting " + file.getName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+    }
+
+    // Asks for the image size and a file, then exports with a cancellable progress dialog
+    public static void exportImage(Component parent, Canvas3D canvas) {
+        JSpinner widthSpinner = new JSpinner(new SpinnerNumberModel(canvas.getWidth() * 4, 1, MAX_DIMENSION, 100));
+        JSpinner heightSpinner = new JSpinner(new SpinnerNumberModel(canvas.getHeight() * 4, 1, MAX_DIMENSION, 100));
+        JPanel sizePanel = new JPanel(new GridLayout(2, 2, 5, 5));
+        sizePanel.add(new JLabel("Width (px):"));
+        sizePanel.add(widthSpinner);
+        sizePanel.add(new JLabel("Height (px):"));
+        sizePanel.add(heightSpinner);
+        if (JOptionPane.showConfirmDialog(parent, sizePanel, "Export Image", JOptionPane.OK_CANCEL_OPTION,
+                                          JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Image");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("PNG images (*.png)", "png"));
+        if (fileChooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        if (!file.getName().toLowerCase().endsWith(".png")) {
+            file = new File(file.getParentFile(), file.getName() + ".png");
+        }
+
+        ImageExportWorker worker = new ImageExportWorker(file, canvas, (Integer) widthSpinner.getValue(),
+                                                         (Integer) heightSpinner.getValue(), parent);
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                worker.updateMonitor();
+            }
+        });
+        worker.execute();
+    }
+
+    @Override
+    protected Void doInBackground() throws IOException, InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        int bands = (height + TILE_SIZE - 1) / TILE_SIZE;
+        int[] ready = new int[width * TILE_SIZE];
+        int[] drawing = new int[width * TILE_SIZE];
+        ExecutorService pool = Executors.newFixedThreadPool(renderers.length);
+
+        try (OutputStream stream = new FileOutputStream(file)) {
+            PngWriter png = new PngWriter(stream, width, height);
+            List<Future<?>> pending = renderBand(pool, 0, drawing);
+            for (int band = 0; band < bands; band++) {
+                for (Future<?> tile : pending) {
+                    tile.get();
+                }
+                int[] swap = ready;
+                ready = drawing;
+                drawing = swap;
+
+                // Draw the next band while this one is compressed
+                if (band + 1 < bands && !isCancelled()) {
+                    pending = renderBand(pool, band + 1, drawing);
+                }
+                if (isCancelled()) {
+                    break;
+                }
+                int rows = Math.min(TILE_SIZE, height - band * TILE_SIZE);
+                png.writeRows(ready, 0, width, rows);
+                setProgress((band + 1) * 100 / bands);
+            }
+            if (!isCancelled()) {
+                png.close();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (isCancelled()) {
+            file.delete();
+        } else {
+            System.out.println("Exported " + width + "x" + height + " image to " + file + " in "
+                               + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return null;
+    }
+
+    // Starts drawing one band of tiles into the buffer; each renderer takes tiles until none are left
+    private List<Future<?>> renderBand(ExecutorService pool, int band, int[] buffer) {
+        int top = band * TILE_SIZE;
+        int tilesAcross = (width + TILE_SIZE - 1) / TILE_SIZE;
+        AtomicInteger nextTile = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>(renderers.length);
+        for (Canvas3D renderer : renderers) {
+            tasks.add(pool.submit(() -> {
+                BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+                int[] pixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+                for (int t = nextTile.getAndIncrement(); t < tilesAcross && !isCancelled(); t = nextTile.getAndIncrement()) {
+                    int left = t * TILE_SIZE;
+                    Graphics2D g2d = tile.createGraphics();
+                    try {
+                        renderer.renderTile(g2d, view.forTile(scale, width, height, left, top, TILE_SIZE, TILE_SIZE),
+                                            top, height, scale);
+                    } finally {
+                        g2d.dispose();
+                    }
+
+                    // Only the part inside the image is kept
+                    int columns = Math.min(TILE_SIZE, width - left);
+                    int rows = Math.min(TILE_SIZE, height - top);
+                    for (int y = 0; y < rows; y++) {
+                        System.arraycopy(pixels, y * TILE_SIZE, buffer, y * width + left, columns);
+                    }
+                }
+            }));
+        }
+        return tasks;
+    }
+
+    // Runs on the event thread once the export has finished, failed or been cancelled
+    @Override
+    protected void done() {
+        monitor.close();
+        try {
+            get();
+            JOptionPane.showMessageDialog(parent, "Image saved to " + file, "Export Finished",
+                                          JOptionPane.INFORMATION_MESSAGE);
+        } catch (CancellationException e) {
+            System.out.println("Image export cancelled");
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.out.println("Export to " + file + " failed: " + cause.getMessage());
+            JOptionPane.showMessageDialog(parent, "Export failed: " + cause.getMessage(), "Export Failed",
+                                          JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void updateMonitor() {
+        if (monitor.isCanceled()) {
+            cancel(false);
+            return;
+        }
+        monitor.setProgress(getProgress());
+    }
+}
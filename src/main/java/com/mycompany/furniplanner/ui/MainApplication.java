@@ -1,11 +1,19 @@
 // Updated MainApplication.java with fixed controller initialization and new UI layout
 package com.mycompany.furniplanner.ui;
 
+import com.mycompany.furniplanner.command.CommandHistory;
 import com.mycompany.furniplanner.controller.CameraController;
 import com.mycompany.furniplanner.controller.FurnitureController;
 import com.mycompany.furniplanner.controller.RoomController;
 import com.mycompany.furniplanner.controller.UserController;
+import com.mycompany.furniplanner.event.SceneEvent;
+import com.mycompany.furniplanner.event.SceneEventBus;
+import com.mycompany.furniplanner.layout.Layout;
+import com.mycompany.furniplanner.layout.LayoutOptimizer;
+import com.mycompany.furniplanner.layout.LayoutProblem;
+import com.mycompany.furniplanner.model.Furniture;
 import com.mycompany.furniplanner.model.FurnitureType;
+import com.mycompany.furniplanner.model.FloorPlan;
 import com.mycompany.furniplanner.model.Room;
 import com.mycompany.furniplanner.model.Vector3D;
 
@@ -13,8 +21,13 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
 
 public class MainApplication extends JFrame {
     private UserController userController;
@@ -23,6 +36,7 @@ public class MainApplication extends JFrame {
     private CameraController cameraController;
     private Canvas3D canvas3D;
     private Room room;
+    private final SceneEventBus eventBus = new SceneEventBus();
     
     public MainApplication() {
         userController = UserController.getInstance();
@@ -46,16 +60,26 @@ public class MainApplication extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
         
-        // Create default room first
+        // Create default room first; further rooms are added to the same floor plan
         room = new Room(500, 300, 250);
+        FloorPlan floorPlan = new FloorPlan(room);
         
-        // Initialize controllers with the room
-        roomController = new RoomController(room);
-        furnitureController = new FurnitureController(room);
+        // Initialize controllers with the floor plan; both record into one undo history
+        CommandHistory history = new CommandHistory();
+        roomController = new RoomController(floorPlan, history);
+        furnitureController = new FurnitureController(floorPlan, history);
         cameraController = new CameraController();
         
+        // Model and camera changes are announced on the bus instead of each caller repainting
+        floorPlan.setEventBus(eventBus);
+        cameraController.setEventBus(eventBus);
+        
         // Initialize UI components
         initializeUI();
+        eventBus.subscribe(changes -> canvas3D.repaint(), SceneEventBus.Delivery.EDT);
+        // Event counts for the metrics overlay are kept off the EDT
+        eventBus.subscribe(changes -> canvas3D.getFrameMetrics().recordSceneBatch(changes.events().size()),
+                           SceneEventBus.Delivery.BACKGROUND);
         
         // Add window listener to handle application close
         addWindowListener(new WindowAdapter() {
@@ -103,12 +127,34 @@ public class MainApplication extends JFrame {
         JMenuItem newProjectItem = new JMenuItem("New Project");
         JMenuItem openProjectItem = new JMenuItem("Open Project");
         JMenuItem saveProjectItem = new JMenuItem("Save Project");
+        JMenuItem importFurnitureItem = new JMenuItem("Import Furniture...");
+        JMenuItem exportImageItem = new JMenuItem("Export Image...");
+        JMenuItem exportSceneItem = new JMenuItem("Export Scene...");
+        JMenuItem exportPlanItem = new JMenuItem("Export Floor Plan...");
         JMenuItem exitItem = new JMenuItem("Exit");
         
+        // Bulk-loads a CSV or JSON inventory list into the active room
+        importFurnitureItem.addActionListener(e ->
+            FurnitureImportWorker.importFile(this, furnitureController, canvas3D.getWallThickness()));
+        
+        // Renders the current view to a PNG of any size
+        exportImageItem.addActionListener(e -> ImageExportWorker.exportImage(this, canvas3D));
+        
+        // Hands the rooms and furniture to other 3D tools as glTF or OBJ
+        exportSceneItem.addActionListener(e -> SceneExportWorker.exportScene(this, canvas3D));
+        
+        // Top-down plan for contractors as PDF or SVG
+        exportPlanItem.addActionListener(e -> PlanExportWorker.exportPlan(this, canvas3D));
+        
         fileMenu.add(newProjectItem);
         fileMenu.add(openProjectItem);
         fileMenu.add(saveProjectItem);
         fileMenu.addSeparator();
+        fileMenu.add(importFurnitureItem);
+        fileMenu.add(exportImageItem);
+        fileMenu.add(exportSceneItem);
+        fileMenu.add(exportPlanItem);
+        fileMenu.addSeparator();
         fileMenu.add(exitItem);
         
         // Edit menu
@@ -116,8 +162,43 @@ public class MainApplication extends JFrame {
         JMenuItem undoItem = new JMenuItem("Undo");
         JMenuItem redoItem = new JMenuItem("Redo");
         
+        undoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK));
+        redoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK));
+        
         editMenu.add(undoItem);
         editMenu.add(redoItem);
+        editMenu.addSeparator();
+        
+        // Selection commands; canvas3D is created after the menu bar, so it is looked up on use
+        JMenuItem selectAllItem = new JMenuItem("Select All");
+        selectAllItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_A, InputEvent.CTRL_DOWN_MASK));
+        selectAllItem.addActionListener(e -> canvas3D.selectAll());
+        JMenuItem deleteSelectedItem = new JMenuItem("Delete Selected");
+        deleteSelectedItem.addActionListener(e -> canvas3D.deleteSelection());
+        
+        JMenu alignMenu = new JMenu("Align");
+        for (FurnitureController.Alignment alignment : FurnitureController.Alignment.values()) {
+            JMenuItem alignItem = new JMenuItem(menuLabel(alignment.name()));
+            alignItem.addActionListener(e -> canvas3D.alignSelection(alignment));
+            alignMenu.add(alignItem);
+        }
+        
+        JMenu distributeMenu = new JMenu("Distribute");
+        for (FurnitureController.Axis axis : FurnitureController.Axis.values()) {
+            JMenuItem distributeItem = new JMenuItem("Along " + axis.name());
+            distributeItem.addActionListener(e -> canvas3D.distributeSelection(axis));
+            distributeMenu.add(distributeItem);
+        }
+        
+        editMenu.add(selectAllItem);
+        editMenu.add(deleteSelectedItem);
+        editMenu.add(alignMenu);
+        editMenu.add(distributeMenu);
+        editMenu.addSeparator();
+        
+        JMenuItem autoArrangeItem = new JMenuItem("Auto Arrange");
+        autoArrangeItem.addActionListener(e -> autoArrange());
+        editMenu.add(autoArrangeItem);
         
         // View menu
         JMenu viewMenu = new JMenu("View");
@@ -147,11 +228,33 @@ public class MainApplication extends JFrame {
             }
         });
         
+        CommandHistory history = furnitureController.getHistory();
+        undoItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                history.undo();
+            }
+        });
+        
+        redoItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                history.redo();
+            }
+        });
+        
+        // Keep the items in step with the history so disabled shortcuts do nothing
+        Runnable updateUndoItems = () -> {
+            undoItem.setEnabled(history.canUndo());
+            redoItem.setEnabled(history.canRedo());
+        };
+        history.addListener(updateUndoItems);
+        updateUndoItems.run();
+        
         resetViewItem.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.resetCamera();
-                canvas3D.repaint();
             }
         });
         
@@ -159,7 +262,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.setTopView();
-                canvas3D.repaint();
             }
         });
         
@@ -167,7 +269,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.setFrontView();
-                canvas3D.repaint();
             }
         });
         
@@ -175,7 +276,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.setSideView();
-                canvas3D.repaint();
             }
         });
         
@@ -200,6 +300,37 @@ public class MainApplication extends JFrame {
         return menuBar;
     }
     
+    // Searches for a better arrangement of the active room in the background.
+    // The result is applied as one undo step.
+    private void autoArrange() {
+        Room target = furnitureController.getRoom();
+        LayoutProblem problem = LayoutProblem.fromSnapshot(target.getSnapshot(), canvas3D.getWallThickness());
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        
+        new SwingWorker<Layout, Void>() {
+            @Override
+            protected Layout doInBackground() {
+                return new LayoutOptimizer(problem).optimize(LayoutOptimizer.DEFAULT_TIME_LIMIT_MILLIS);
+            }
+            
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                try {
+                    furnitureController.applyLayout(target, get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("Auto arrange failed: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+    
+    // CENTER_X -> "Center x"
+    private static String menuLabel(String constant) {
+        String label = constant.replace('_', ' ').toLowerCase();
+        return Character.toUpperCase(label.charAt(0)) + label.substring(1);
+    }
+    
     private JToolBar createToolBar() {
         JToolBar toolBar = new JToolBar();
         toolBar.setFloatable(false);
@@ -215,7 +346,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 furnitureController.addFurniture("Table", FurnitureType.TABLE, new Vector3D(0, 0, 0));
-                canvas3D.repaint();
             }
         });
         
@@ -223,7 +353,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 furnitureController.addFurniture("Chair", FurnitureType.CHAIR, new Vector3D(0, 0, 0));
-                canvas3D.repaint();
             }
         });
         
@@ -231,7 +360,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 furnitureController.addFurniture("Sofa", FurnitureType.SOFA, new Vector3D(0, 0, 0));
-                canvas3D.repaint();
             }
         });
         
@@ -239,7 +367,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 furnitureController.addFurniture("Bed", FurnitureType.BED, new Vector3D(0, 0, 0));
-                canvas3D.repaint();
             }
         });
         
@@ -306,7 +433,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.resetCamera();
-                canvas3D.repaint();
             }
         });
         
@@ -314,7 +440,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.setTopView();
-                canvas3D.repaint();
             }
         });
         
@@ -322,7 +447,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.setFrontView();
-                canvas3D.repaint();
             }
         });
         
@@ -330,7 +454,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.setSideView();
-                canvas3D.repaint();
             }
         });
         
@@ -353,7 +476,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.rotateCamera(0, -10);
-                canvas3D.repaint();
             }
         });
         
@@ -361,7 +483,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.rotateCamera(0, 10);
-                canvas3D.repaint();
             }
         });
         
@@ -369,7 +490,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.rotateCamera(10, 0);
-                canvas3D.repaint();
             }
         });
         
@@ -377,7 +497,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.rotateCamera(-10, 0);
-                canvas3D.repaint();
             }
         });
         
@@ -385,7 +504,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.resetCamera();
-                canvas3D.repaint();
             }
         });
         
@@ -410,7 +528,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.zoom(-1);
-                canvas3D.repaint();
             }
         });
         
@@ -418,7 +535,6 @@ public class MainApplication extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 cameraController.zoom(1);
-                canvas3D.repaint();
             }
         });
         
@@ -436,6 +552,17 @@ public class MainApplication extends JFrame {
         return cameraPanel;
     }
     
+    // Names in the order the pieces were added. Removals reorder the store's slots, but
+    // ids keep growing with each add.
+    private void fillFurnitureList(DefaultListModel<String> listModel) {
+        ArrayList<Furniture> pieces = new ArrayList<>(furnitureController.getAllFurniture());
+        pieces.sort(Comparator.comparingInt(Furniture::getId));
+        listModel.clear();
+        for (Furniture furniture : pieces) {
+            listModel.addElement(furniture.getName());
+        }
+    }
+    
     private JPanel createFurniturePanel() {
         JPanel furniturePanel = new JPanel();
         furniturePanel.setLayout(new BoxLayout(furniturePanel, BoxLayout.Y_AXIS));
@@ -472,7 +599,19 @@ public class MainApplication extends JFrame {
                 int height = (Integer) heightSpinner.getValue();
                 
                 roomController.resizeRoom(width, length, height);
-                canvas3D.repaint();
+            }
+        });
+        
+        // Add another room with these settings next to the existing ones
+        JButton addRoomButton = new JButton("Add Room");
+        addRoomButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int width = (Integer) widthSpinner.getValue();
+                int length = (Integer) lengthSpinner.getValue();
+                int height = (Integer) heightSpinner.getValue();
+                
+                roomController.addRoom(width, length, height);
             }
         });
         
@@ -484,15 +623,21 @@ public class MainApplication extends JFrame {
         JList<String> furnitureList = new JList<>(listModel);
         JScrollPane listScrollPane = new JScrollPane(furnitureList);
         
+        // Keep the list current as pieces come and go; the button stays for renames
+        eventBus.subscribe(changes -> {
+            // Switching rooms shows another room's furniture
+            if (changes.contains(SceneEvent.FurnitureAdded.class) || changes.contains(SceneEvent.FurnitureRemoved.class)
+                    || changes.contains(SceneEvent.RoomsChanged.class)) {
+                fillFurnitureList(listModel);
+            }
+        }, SceneEventBus.Delivery.EDT);
+        
         JButton refreshListButton = new JButton("Refresh List");
         refreshListButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 // Update the furniture list
-                listModel.clear();
-                for (int i = 0; i < furnitureController.getAllFurniture().size(); i++) {
-                    listModel.addElement(furnitureController.getAllFurniture().get(i).getName());
-                }
+                fillFurnitureList(listModel);
             }
         });
         
@@ -540,6 +685,8 @@ public class MainApplication extends JFrame {
         furniturePanel.add(roomPanel);
         furniturePanel.add(Box.createVerticalStrut(10));
         furniturePanel.add(applyRoomButton);
+        furniturePanel.add(Box.createVerticalStrut(5));
+        furniturePanel.add(addRoomButton);
         furniturePanel.add(Box.createVerticalStrut(20));
         furniturePanel.add(furnitureListPanel);
         furniturePanel.add(Box.createVerticalStrut(10));
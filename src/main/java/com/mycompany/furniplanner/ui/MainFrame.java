@@ -1,8 +1,11 @@
 package com.mycompany.furniplanner.ui;
 
+import com.mycompany.furniplanner.command.CommandHistory;
 import com.mycompany.furniplanner.controller.CameraController;
 import com.mycompany.furniplanner.controller.FurnitureController;
 import com.mycompany.furniplanner.controller.RoomController;
+import com.mycompany.furniplanner.event.SceneEventBus;
+import com.mycompany.furniplanner.model.FloorPlan;
 import com.mycompany.furniplanner.model.Room;
 
 import javax.swing.*;
@@ -24,12 +27,23 @@ public class MainFrame extends JFrame {
         
         // Initialize controllers
         Room room = new Room(500, 300, 250); // Default room size
-        roomController = new RoomController(room);
-        furnitureController = new FurnitureController(room);
+        FloorPlan floorPlan = new FloorPlan(room);
+        CommandHistory history = new CommandHistory();
+        roomController = new RoomController(floorPlan, history);
+        furnitureController = new FurnitureController(floorPlan, history);
         cameraController = new CameraController();
         
+        // Model and camera changes repaint the canvas through the bus
+        SceneEventBus eventBus = new SceneEventBus();
+        floorPlan.setEventBus(eventBus);
+        cameraController.setEventBus(eventBus);
+        
         // Initialize UI components
         initComponents();
+        eventBus.subscribe(changes -> canvas3D.repaint(), SceneEventBus.Delivery.EDT);
+        // Event counts for the metrics overlay are kept off the EDT
+        eventBus.subscribe(changes -> canvas3D.getFrameMetrics().recordSceneBatch(changes.events().size()),
+                           SceneEventBus.Delivery.BACKGROUND);
         
         // Set menu bar
         setJMenuBar(new MenuBar(this, roomController, furnitureController));
@@ -0,0 +1,93 @@
+package com.mycompany.furniplanner.ui;
+
+import com.mycompany.furniplanner.model.FloorPlan;
+import com.mycompany.furniplanner.utils.PdfPlanWriter;
+import com.mycompany.furniplanner.utils.PlanDrawing;
+import com.mycompany.furniplanner.utils.SvgPlanWriter;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.Component;
+import java.awt.Cursor;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+
+// Exports the top-down floor plan for contractors as SVG or PDF, drawn to a standard
+// scale. Works on a copy of the plan taken when the export starts, like SceneExportWorker.
+public class PlanExportWorker extends SwingWorker<Void, Void> {
+    private static final FileNameExtensionFilter SVG_FILTER = new FileNameExtensionFilter("SVG drawings (*.svg)", "svg");
+    private static final FileNameExtensionFilter PDF_FILTER = new FileNameExtensionFilter("PDF documents (*.pdf)", "pdf");
+
+    private final File file;
+    private final FloorPlan plan;
+    private final double wallThickness;
+    private final Component parent;
+
+    // Created on the event thread; the plan is fixed here
+    private PlanExportWorker(File file, Canvas3D canvas, Component parent) {
+        this.file = file;
+        this.plan = canvas.getFloorPlan().copy();
+        this.wallThickness = canvas.getWallThickness();
+        this.parent = parent;
+    }
+
+    // Asks for a file; its type follows the chosen filter unless the name has an extension
+    public static void exportPlan(Component parent, Canvas3D canvas) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Floor Plan");
+        fileChooser.addChoosableFileFilter(PDF_FILTER);
+        fileChooser.addChoosableFileFilter(SVG_FILTER);
+        fileChooser.setFileFilter(PDF_FILTER);
+        if (fileChooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File file = fileChooser.getSelectedFile();
+        String name = file.getName().toLowerCase();
+        if (!name.endsWith(".svg") && !name.endsWith(".pdf")) {
+            String extension = fileChooser.getFileFilter() == SVG_FILTER ? ".svg" : ".pdf";
+            file = new File(file.getParentFile(), file.getName() + extension);
+        }
+
+        parent.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new PlanExportWorker(file, canvas, parent).execute();
+    }
+
+    @Override
+    protected Void doInBackground() throws IOException {
+        long start = System.nanoTime();
+        PlanDrawing drawing = PlanDrawing.fromFloorPlan(plan, wallThickness);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (file.getName().toLowerCase().endsWith(".svg")) {
+                SvgPlanWriter.write(drawing, channel);
+            } else {
+                PdfPlanWriter.write(drawing, channel);
+            }
+        }
+
+        System.out.println("Exported plan of " + drawing.getPieceCount() + " pieces (" + drawing.getFurniture().size()
+                           + " outlines) at 1:" + drawing.getScale() + " to " + file + " in "
+                           + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return null;
+    }
+
+    @Override
+    protected void done() {
+        parent.setCursor(Cursor.getDefaultCursor());
+        try {
+            get();
+            JOptionPane.showMessageDialog(parent, "Floor plan saved to " + file, "Export Finished",
+                                          JOptionPane.INFORMATION_MESSAGE);
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.out.println("Export to " + file + " failed: " + cause.getMessage());
+            JOptionPane.showMessageDialog(parent, "Export failed: " + cause.getMessage(), "Export Failed",
+                                          JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
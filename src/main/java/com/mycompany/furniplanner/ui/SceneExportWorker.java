@@ -0,0 +1,106 @@
+package com.mycompany.furniplanner.ui;
+
+import com.mycompany.furniplanner.model.FloorPlan;
+import com.mycompany.furniplanner.utils.GltfWriter;
+import com.mycompany.furniplanner.utils.ObjWriter;
+import com.mycompany.furniplanner.utils.SceneGeometry;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Cursor;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+
+// Exports the rooms and furniture for other 3D tools, as binary glTF (.glb) or as OBJ
+// with an MTL file beside it. Works on a copy of the plan taken when the export starts,
+// so the scene can be edited while the file is written.
+public class SceneExportWorker extends SwingWorker<Void, Void> {
+    private static final FileNameExtensionFilter GLTF_FILTER = new FileNameExtensionFilter("glTF binary (*.glb)", "glb");
+    private static final FileNameExtensionFilter OBJ_FILTER = new FileNameExtensionFilter("Wavefront OBJ (*.obj)", "obj");
+
+    private final File file;
+    private final FloorPlan plan;
+    private final double wallThickness;
+    private final Color wallColor;
+    private final Color floorColor;
+    private final Component parent;
+
+    // Created on the event thread; the scene is fixed here
+    private SceneExportWorker(File file, Canvas3D canvas, Component parent) {
+        this.file = file;
+        this.plan = canvas.getFloorPlan().copy();
+        this.wallThickness = canvas.getWallThickness();
+        this.wallColor = canvas.getWallColor();
+        this.floorColor = canvas.getFloorColor();
+        this.parent = parent;
+    }
+
+    // Asks for a file; its type follows the chosen filter unless the name has an extension
+    public static void exportScene(Component parent, Canvas3D canvas) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Scene");
+        fileChooser.addChoosableFileFilter(GLTF_FILTER);
+        fileChooser.addChoosableFileFilter(OBJ_FILTER);
+        fileChooser.setFileFilter(GLTF_FILTER);
+        if (fileChooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File file = fileChooser.getSelectedFile();
+        String name = file.getName().toLowerCase();
+        if (!name.endsWith(".glb") && !name.endsWith(".obj")) {
+            String extension = fileChooser.getFileFilter() == OBJ_FILTER ? ".obj" : ".glb";
+            file = new File(file.getParentFile(), file.getName() + extension);
+        }
+
+        parent.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SceneExportWorker(file, canvas, parent).execute();
+    }
+
+    @Override
+    protected Void doInBackground() throws IOException {
+        long start = System.nanoTime();
+        SceneGeometry geometry = SceneGeometry.fromFloorPlan(plan, wallThickness, wallColor, floorColor);
+
+        if (file.getName().toLowerCase().endsWith(".obj")) {
+            String baseName = file.getName().substring(0, file.getName().length() - 4);
+            File mtlFile = new File(file.getParentFile(), baseName + ".mtl");
+            try (FileChannel objChannel = open(file); FileChannel mtlChannel = open(mtlFile)) {
+                ObjWriter.write(geometry, objChannel, mtlFile.getName(), mtlChannel);
+            }
+        } else {
+            try (FileChannel channel = open(file)) {
+                GltfWriter.write(geometry, channel);
+            }
+        }
+
+        System.out.println("Exported " + geometry.getInstanceCount() + " objects (" + geometry.getMeshes().size()
+                           + " meshes) to " + file + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return null;
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    protected void done() {
+        parent.setCursor(Cursor.getDefaultCursor());
+        try {
+            get();
+            JOptionPane.showMessageDialog(parent, "Scene saved to " + file, "Export Finished",
+                                          JOptionPane.INFORMATION_MESSAGE);
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.out.println("Export to " + file + " failed: " + cause.getMessage());
+            JOptionPane.showMessageDialog(parent, "Export failed: " + cause.getMessage(), "Export Failed",
+                                          JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
@@ -98,7 +98,6 @@ public class ToolPanel extends JPanel {
         freeViewBtn.addActionListener(e -> {
             if (freeViewBtn.isSelected()) {
                 cameraController.resetCamera();
-                canvas3D.repaint();
             }
         });
         freeViewBtn.setSelected(true);
@@ -109,7 +108,6 @@ public class ToolPanel extends JPanel {
         topViewBtn.addActionListener(e -> {
             if (topViewBtn.isSelected()) {
                 cameraController.setTopView();
-                canvas3D.repaint();
             }
         });
         viewGroup.add(topViewBtn);
@@ -119,7 +117,6 @@ public class ToolPanel extends JPanel {
         frontViewBtn.addActionListener(e -> {
             if (frontViewBtn.isSelected()) {
                 cameraController.setFrontView();
-                canvas3D.repaint();
             }
         });
         viewGroup.add(frontViewBtn);
@@ -129,7 +126,6 @@ public class ToolPanel extends JPanel {
         sideViewBtn.addActionListener(e -> {
             if (sideViewBtn.isSelected()) {
                 cameraController.setSideView();
-                canvas3D.repaint();
             }
         });
         viewGroup.add(sideViewBtn);
@@ -194,7 +190,6 @@ public class ToolPanel extends JPanel {
                 int height = Integer.parseInt(heightField.getText());
                 
                 roomController.createRoom(width, length, height);
-                canvas3D.repaint();
                 dialog.dispose();
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter valid numbers", "Error", JOptionPane.ERROR_MESSAGE);
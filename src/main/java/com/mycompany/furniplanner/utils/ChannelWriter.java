@@ -0,0 +1,85 @@
+package com.mycompany.furniplanner.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+// Little-endian binary and ASCII output gathered in one direct buffer and written to a
+// file channel whenever the buffer fills, so exports never build their files in memory.
+public class ChannelWriter implements Closeable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long written;
+
+    public ChannelWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public void putByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    public void putShort(int value) throws IOException {
+        ensure(2);
+        buffer.putShort((short) value);
+    }
+
+    public void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    public void putFloat(float value) throws IOException {
+        ensure(4);
+        buffer.putFloat(value);
+    }
+
+    public void putBytes(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(1);
+            int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    // Characters outside ASCII are written as '?'
+    public void putAscii(CharSequence text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            ensure(1);
+            char c = text.charAt(i);
+            buffer.put((byte) (c < 128 ? c : '?'));
+        }
+    }
+
+    // Bytes written so far, including any still in the buffer
+    public long position() {
+        return written + buffer.position();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Writes what is left; the channel stays open
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
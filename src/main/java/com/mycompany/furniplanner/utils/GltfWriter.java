@@ -0,0 +1,310 @@
+package com.mycompany.furniplanner.utils;
+
+import com.mycompany.furniplanner.render.Mesh;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Writes a SceneGeometry as binary glTF 2.0 (.glb). Each distinct mesh is stored once,
+// with one primitive per face color, and every room or piece is a node that places it,
+// so repeated furniture costs a few bytes per copy. The layout of the binary chunk is
+// worked out first, which lets the JSON go ahead of it and the vertex data stream
+// straight to the channel. glTF is right-handed and in meters: z is mirrored (with the
+// winding reversed to keep faces pointing out) and a root node scales cm to m.
+public class GltfWriter {
+    private static final int GLB_MAGIC = 0x46546C67;       // "glTF"
+    private static final int CHUNK_JSON = 0x4E4F534A;      // "JSON"
+    private static final int CHUNK_BIN = 0x004E4942;       // "BIN"
+    private static final int FLOAT = 5126;
+    private static final int UNSIGNED_SHORT = 5123;
+    private static final int UNSIGNED_INT = 5125;
+    private static final int ARRAY_BUFFER = 34962;
+    private static final int ELEMENT_ARRAY_BUFFER = 34963;
+
+    private final SceneGeometry geometry;
+    private final List<Mesh> meshes;
+
+    // Triangle count per face color (ARGB), per mesh, in first-seen order
+    private final List<Map<Integer, Integer>> colorGroups = new ArrayList<>();
+    private final Map<Integer, Integer> materials = new LinkedHashMap<>();
+    private final int[] gltfMeshes; // glTF mesh per geometry mesh, -1 if it has no triangles
+    private long binaryLength;
+
+    private GltfWriter(SceneGeometry geometry) {
+        this.geometry = geometry;
+        this.meshes = geometry.getMeshes();
+        this.gltfMeshes = new int[meshes.size()];
+    }
+
+    public static void write(SceneGeometry geometry, FileChannel channel) throws IOException {
+        new GltfWriter(geometry).write(channel);
+    }
+
+    private void write(FileChannel channel) throws IOException {
+        byte[] json = buildJson().getBytes(StandardCharsets.UTF_8);
+        int jsonLength = pad(json.length);
+        long total = 12 + 8 + jsonLength + (binaryLength > 0 ? 8 + binaryLength : 0);
+        if (total > 0xFFFFFFFFL) {
+            throw new IOException("Scene too large for a .glb file");
+        }
+
+        ChannelWriter out = new ChannelWriter(channel);
+        out.putInt(GLB_MAGIC);
+        out.putInt(2);
+        out.putInt((int) total);
+        out.putInt(jsonLength);
+        out.putInt(CHUNK_JSON);
+        for (byte b : json) {
+            out.putByte(b);
+        }
+        for (int i = json.length; i < jsonLength; i++) {
+            out.putByte(' ');
+        }
+
+        // A scene without geometry has no binary chunk
+        if (binaryLength > 0) {
+            out.putInt((int) binaryLength);
+            out.putInt(CHUNK_BIN);
+        }
+        for (int m = 0; m < meshes.size(); m++) {
+            if (gltfMeshes[m] >= 0) {
+                writeMeshData(out, meshes.get(m), colorGroups.get(m));
+            }
+        }
+        out.close();
+    }
+
+    // Describes the whole file and works out where each mesh's data goes in the binary chunk
+    private String buildJson() {
+        StringBuilder bufferViews = new StringBuilder();
+        StringBuilder accessors = new StringBuilder();
+        StringBuilder gltfMeshJson = new StringBuilder();
+        int views = 0;
+        int gltfMeshCount = 0;
+        long offset = 0;
+
+        for (int m = 0; m < meshes.size(); m++) {
+            Mesh mesh = meshes.get(m);
+            Map<Integer, Integer> groups = countTriangles(mesh);
+            colorGroups.add(groups);
+            if (groups.isEmpty()) {
+                gltfMeshes[m] = -1;
+                continue;
+            }
+            gltfMeshes[m] = gltfMeshCount++;
+
+            // Positions, with the bounds glTF requires
+            int vertexCount = mesh.getVertexCount();
+            double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+            double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+            for (int v = 0; v < vertexCount; v++) {
+                double[] p = {(float) mesh.x[v], (float) mesh.y[v], (float) -mesh.z[v]};
+                for (int k = 0; k < 3; k++) {
+                    min[k] = Math.min(min[k], p[k]);
+                    max[k] = Math.max(max[k], p[k]);
+                }
+            }
+            int positionAccessor = views;
+            appendView(bufferViews, offset, vertexCount * 12L, ARRAY_BUFFER);
+            appendAccessor(accessors, views++, FLOAT, vertexCount, "VEC3",
+                           "[" + min[0] + "," + min[1] + "," + min[2] + "]",
+                           "[" + max[0] + "," + max[1] + "," + max[2] + "]");
+            offset += vertexCount * 12L;
+
+            // One primitive per color
+            int indexSize = vertexCount > 0xFFFF ? 4 : 2;
+            if (gltfMeshJson.length() > 0) {
+                gltfMeshJson.append(',');
+            }
+            gltfMeshJson.append("{\"primitives\":[");
+            boolean first = true;
+            for (Map.Entry<Integer, Integer> group : groups.entrySet()) {
+                int indexCount = group.getValue() * 3;
+                appendView(bufferViews, offset, (long) indexCount * indexSize, ELEMENT_ARRAY_BUFFER);
+                appendAccessor(accessors, views, indexSize == 4 ? UNSIGNED_INT : UNSIGNED_SHORT, indexCount,
+                               "SCALAR", null, null);
+                offset += pad((long) indexCount * indexSize);
+
+                Integer material = materials.computeIfAbsent(group.getKey(), color -> materials.size());
+                gltfMeshJson.append(first ? "" : ",")
+                            .append("{\"attributes\":{\"POSITION\":").append(positionAccessor)
+                            .append("},\"indices\":").append(views++)
+                            .append(",\"material\":").append(material).append('}');
+                first = false;
+            }
+            gltfMeshJson.append("]}");
+        }
+        binaryLength = offset;
+
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\"asset\":{\"version\":\"2.0\",\"generator\":\"3D Furniture Planner\"}");
+        json.append(",\"scene\":0,\"scenes\":[{\"nodes\":[0]}]");
+        appendNodes(json);
+        if (gltfMeshCount > 0) {
+            json.append(",\"meshes\":[").append(gltfMeshJson).append(']');
+            json.append(",\"materials\":[");
+            boolean first = true;
+            for (int argb : materials.keySet()) {
+                json.append(first ? "" : ",");
+                appendMaterial(json, new Color(argb, true));
+                first = false;
+            }
+            json.append(']');
+            json.append(",\"accessors\":[").append(accessors).append(']');
+            json.append(",\"bufferViews\":[").append(bufferViews).append(']');
+            json.append(",\"buffers\":[{\"byteLength\":").append(binaryLength).append("}]");
+        }
+        json.append('}');
+        return json.toString();
+    }
+
+    // A root node that turns cm into m, with one child per instance
+    private void appendNodes(StringBuilder json) {
+        int count = geometry.getInstanceCount();
+        json.append(",\"nodes\":[{\"name\":\"Floor plan\",\"scale\":[0.01,0.01,0.01]");
+        if (count > 0) {
+            json.append(",\"children\":[");
+            for (int i = 0; i < count; i++) {
+                json.append(i == 0 ? "" : ",").append(i + 1);
+            }
+            json.append(']');
+        }
+        json.append('}');
+
+        for (int i = 0; i < count; i++) {
+            json.append(",{\"name\":");
+            appendString(json, geometry.getName(i));
+            int mesh = gltfMeshes[geometry.getMeshIndex(i)];
+            if (mesh >= 0) {
+                json.append(",\"mesh\":").append(mesh);
+            }
+            json.append(",\"translation\":[").append(geometry.getX(i)).append(',').append(geometry.getY(i))
+                .append(',').append(-geometry.getZ(i)).append(']');
+
+            // The renderer turns by -rotation; mirroring z makes that +rotation here
+            double half = Math.toRadians(geometry.getRotationY(i)) / 2;
+            if (half != 0) {
+                json.append(",\"rotation\":[0,").append(Math.sin(half)).append(",0,").append(Math.cos(half)).append(']');
+            }
+            json.append('}');
+        }
+        json.append(']');
+    }
+
+    private static void appendMaterial(StringBuilder json, Color color) {
+        json.append("{\"pbrMetallicRoughness\":{\"baseColorFactor\":[")
+            .append(toLinear(color.getRed())).append(',')
+            .append(toLinear(color.getGreen())).append(',')
+            .append(toLinear(color.getBlue())).append(',')
+            .append(color.getAlpha() / 255.0)
+            .append("],\"metallicFactor\":0,\"roughnessFactor\":1}");
+        if (color.getAlpha() < 255) {
+            json.append(",\"alphaMode\":\"BLEND\"");
+        }
+        json.append('}');
+    }
+
+    // glTF colors are linear; the app's are sRGB
+    private static double toLinear(int channel) {
+        double c = channel / 255.0;
+        return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+    }
+
+    private static void appendView(StringBuilder views, long offset, long length, int target) {
+        views.append(views.length() > 0 ? "," : "")
+             .append("{\"buffer\":0,\"byteOffset\":").append(offset)
+             .append(",\"byteLength\":").append(length)
+             .append(",\"target\":").append(target).append('}');
+    }
+
+    private static void appendAccessor(StringBuilder accessors, int view, int componentType, int count, String type,
+                                       String min, String max) {
+        accessors.append(accessors.length() > 0 ? "," : "")
+                 .append("{\"bufferView\":").append(view)
+                 .append(",\"componentType\":").append(componentType)
+                 .append(",\"count\":").append(count)
+                 .append(",\"type\":\"").append(type).append('"');
+        if (min != null) {
+            accessors.append(",\"min\":").append(min).append(",\"max\":").append(max);
+        }
+        accessors.append('}');
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static Map<Integer, Integer> countTriangles(Mesh mesh) {
+        Map<Integer, Integer> groups = new LinkedHashMap<>();
+        for (int f = 0; f < mesh.getFaceCount(); f++) {
+            int corners = mesh.faceStart[f + 1] - mesh.faceStart[f];
+            if (corners >= 3) {
+                groups.merge(mesh.faceColors[f].getRGB(), corners - 2, Integer::sum);
+            }
+        }
+        return groups;
+    }
+
+    private static void writeMeshData(ChannelWriter out, Mesh mesh, Map<Integer, Integer> groups) throws IOException {
+        int vertexCount = mesh.getVertexCount();
+        for (int v = 0; v < vertexCount; v++) {
+            out.putFloat((float) mesh.x[v]);
+            out.putFloat((float) mesh.y[v]);
+            out.putFloat((float) -mesh.z[v]);
+        }
+
+        // Fans over each face with its corners reversed, which undoes the mirror's flip
+        boolean wide = vertexCount > 0xFFFF;
+        for (int color : groups.keySet()) {
+            long start = out.position();
+            for (int f = 0; f < mesh.getFaceCount(); f++) {
+                int first = mesh.faceStart[f];
+                int last = mesh.faceStart[f + 1] - 1;
+                if (last - first < 2 || mesh.faceColors[f].getRGB() != color) {
+                    continue;
+                }
+                for (int k = last - 1; k > first; k--) {
+                    putIndex(out, mesh.faceIndices[last], wide);
+                    putIndex(out, mesh.faceIndices[k], wide);
+                    putIndex(out, mesh.faceIndices[k - 1], wide);
+                }
+            }
+            for (long written = out.position() - start; written % 4 != 0; written++) {
+                out.putByte(0);
+            }
+        }
+    }
+
+    private static void putIndex(ChannelWriter out, int index, boolean wide) throws IOException {
+        if (wide) {
+            out.putInt(index);
+        } else {
+            out.putShort(index);
+        }
+    }
+
+    private static int pad(int length) {
+        return (length + 3) & ~3;
+    }
+
+    private static long pad(long length) {
+        return (length + 3) & ~3L;
+    }
+}
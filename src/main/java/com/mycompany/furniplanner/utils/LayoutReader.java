@@ -0,0 +1,365 @@
+package com.mycompany.furniplanner.utils;
+
+import com.mycompany.furniplanner.model.FurnitureType;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Streams furniture items out of a CSV or JSON inventory list. Items are handed over
+// one at a time as they are parsed, so a file with thousands of rows is never held
+// in memory. Rows that cannot be understood are skipped and counted.
+//
+// CSV needs a header row naming its columns, e.g. "name,type,x,z,rotation,width,height,length".
+// JSON is an array of objects, or an object holding such an array, e.g.
+// {"furniture": [{"type": "chair", "position": {"x": 10, "z": -40}}]}.
+// Only type is required; missing positions are left for auto-placement.
+public class LayoutReader {
+    // Item read from the file; NaN marks a value the file did not give
+    public record Item(String name, FurnitureType type, double x, double y, double z,
+                       double rotation, double width, double height, double length) {
+        public boolean hasPosition() {
+            return !Double.isNaN(x) && !Double.isNaN(z);
+        }
+    }
+
+    public interface ItemHandler {
+        // Returns false to stop reading, e.g. when the import was cancelled
+        boolean accept(Item item);
+    }
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int line = 1;
+    private int skipped;
+    private boolean stopped;
+
+    public LayoutReader(Reader in) {
+        this.in = in;
+    }
+
+    public static boolean isJson(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".json");
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void readCsv(ItemHandler handler) throws IOException {
+        List<String> header = readCsvRow();
+        if (header == null) {
+            return;
+        }
+        for (int i = 0; i < header.size(); i++) {
+            header.set(i, header.get(i).trim().toLowerCase(Locale.ROOT));
+        }
+
+        List<String> row;
+        while (!stopped && (row = readCsvRow()) != null) {
+            if (row.size() == 1 && row.get(0).isBlank()) {
+                continue;
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < row.size() && i < header.size(); i++) {
+                fields.put(header.get(i), row.get(i).trim());
+            }
+            deliver(fields, handler);
+        }
+    }
+
+    public void readJson(ItemHandler handler) throws IOException {
+        int c = skipWhitespace();
+        if (c == '[') {
+            streamArray(handler);
+        } else if (c == '{') {
+            // Arrays among the top-level fields hold the items; everything else is ignored
+            read();
+            if (skipWhitespace() == '}') {
+                read();
+                return;
+            }
+            do {
+                readString();
+                expect(':');
+                if (skipWhitespace() == '[') {
+                    streamArray(handler);
+                } else {
+                    readValue(null, null);
+                }
+            } while (!stopped && nextMember('}'));
+        } else if (c != -1) {
+            throw error("Expected an array or object");
+        }
+    }
+
+    private void deliver(Map<String, String> fields, ItemHandler handler) {
+        Item item = toItem(fields);
+        if (item == null) {
+            // Only the first is logged; the import summary shows how many were skipped
+            if (skipped++ == 0) {
+                Logger.getLogger(LayoutReader.class.getName()).log(Level.WARNING,
+                        "Skipping unreadable furniture entry near line " + line + ": " + fields);
+            }
+        } else if (!handler.accept(item)) {
+            stopped = true;
+        }
+    }
+
+    private static Item toItem(Map<String, String> fields) {
+        try {
+            String typeName = field(fields, "type", "category");
+            if (typeName == null) {
+                return null;
+            }
+            FurnitureType type = FurnitureType.valueOf(typeName.trim().toUpperCase(Locale.ROOT));
+
+            String name = field(fields, "name", "label");
+            if (name == null || name.isBlank()) {
+                name = typeName.substring(0, 1).toUpperCase(Locale.ROOT) + typeName.substring(1).toLowerCase(Locale.ROOT);
+            }
+            return new Item(name, type,
+                            number(fields, "x", "position.x", "position.0"),
+                            number(fields, "y", "position.y", "position.1"),
+                            number(fields, "z", "position.z", "position.2"),
+                            number(fields, "rotation", "rotation.y", "rotation.1"),
+                            number(fields, "width", "dimension.width", "dimensions.width"),
+                            number(fields, "height", "dimension.height", "dimensions.height"),
+                            number(fields, "length", "dimension.length", "dimensions.length"));
+        } catch (IllegalArgumentException e) {
+            // Unknown type or a malformed number
+            return null;
+        }
+    }
+
+    private static String field(Map<String, String> fields, String... keys) {
+        for (String key : keys) {
+            String value = fields.get(key);
+            if (value != null && !value.isEmpty()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static double number(Map<String, String> fields, String... keys) {
+        String value = field(fields, keys);
+        return value == null ? Double.NaN : Double.parseDouble(value);
+    }
+
+    // CSV
+
+    // Next row split into fields, or null at the end of the input. Quoted fields may
+    // contain commas and doubled quotes.
+    private List<String> readCsvRow() throws IOException {
+        if (peek() == -1) {
+            return null;
+        }
+        List<String> row = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            int c = read();
+            if (quoted) {
+                if (c == -1) {
+                    throw error("Unterminated quoted field");
+                } else if (c == '"' && peek() == '"') {
+                    read();
+                    field.append('"');
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r') {
+                // Part of a Windows line break
+            } else if (c == '\n' || c == -1) {
+                row.add(field.toString());
+                return row;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    // JSON
+
+    private void streamArray(ItemHandler handler) throws IOException {
+        expect('[');
+        if (skipWhitespace() == ']') {
+            read();
+            return;
+        }
+        do {
+            if (skipWhitespace() == '{') {
+                Map<String, String> fields = new HashMap<>();
+                readValue(fields, "");
+                deliver(fields, handler);
+            } else {
+                readValue(null, null);
+            }
+        } while (!stopped && nextMember(']'));
+    }
+
+    // Reads one value. Scalars are stored under key; objects and arrays are flattened
+    // with dotted keys ("position.x", "position.0"). A null map just skips the value.
+    private void readValue(Map<String, String> fields, String key) throws IOException {
+        int c = skipWhitespace();
+        if (c == '{') {
+            read();
+            if (skipWhitespace() == '}') {
+                read();
+                return;
+            }
+            do {
+                String member = readString();
+                expect(':');
+                readValue(fields, fields == null ? null : prefixed(key, member));
+            } while (nextMember('}'));
+        } else if (c == '[') {
+            read();
+            if (skipWhitespace() == ']') {
+                read();
+                return;
+            }
+            int index = 0;
+            do {
+                readValue(fields, fields == null ? null : prefixed(key, Integer.toString(index++)));
+            } while (nextMember(']'));
+        } else if (c == '"') {
+            String value = readString();
+            if (fields != null) {
+                fields.put(key, value);
+            }
+        } else {
+            StringBuilder literal = new StringBuilder();
+            while ((c = peek()) != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                literal.append((char) read());
+            }
+            if (literal.length() == 0) {
+                throw error("Expected a value");
+            }
+            if (fields != null && !literal.toString().equals("null")) {
+                fields.put(key, literal.toString());
+            }
+        }
+    }
+
+    private static String prefixed(String prefix, String member) {
+        return prefix.isEmpty() ? member.toLowerCase(Locale.ROOT) : prefix + "." + member.toLowerCase(Locale.ROOT);
+    }
+
+    // Consumes a comma and returns true, or consumes the closing bracket and returns false
+    private boolean nextMember(char close) throws IOException {
+        int c = skipWhitespace();
+        read();
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        throw error("Expected ',' or '" + close + "'");
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw error("Unterminated string");
+            } else if (c == '"') {
+                return value.toString();
+            } else if (c == '\\') {
+                int escaped = read();
+                switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) {
+                            hex[i] = (char) read();
+                        }
+                        value.append((char) Integer.parseInt(new String(hex), 16));
+                        break;
+                    default:
+                        value.append((char) escaped);
+                        break;
+                }
+            } else {
+                value.append((char) c);
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (skipWhitespace() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        read();
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) != -1 && Character.isWhitespace(c)) {
+            read();
+        }
+        return c;
+    }
+
+    // Buffered input
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            position++;
+            if (c == '\n') {
+                line++;
+            }
+        }
+        return c;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at line " + line);
+    }
+}
@@ -0,0 +1,40 @@
+package com.mycompany.furniplanner.utils;
+
+// Fixed-point numbers appended straight to a StringBuilder, for exporters where
+// String.format would dominate the time. Trailing zeros are dropped: 12.50 is "12.5".
+public final class NumberText {
+    private static final long[] POWERS = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    private NumberText() {
+    }
+
+    // Rounded to the given number of decimals, 0 to 6
+    public static StringBuilder append(StringBuilder text, double value, int decimals) {
+        return appendScaled(text, Math.round(value * POWERS[decimals]), decimals);
+    }
+
+    // A value already multiplied by 10^decimals and rounded, e.g. 1250 with 2 decimals is "12.5"
+    public static StringBuilder appendScaled(StringBuilder text, long scaled, int decimals) {
+        if (scaled < 0) {
+            text.append('-');
+            scaled = -scaled;
+        }
+        long power = POWERS[decimals];
+        text.append(scaled / power);
+
+        long fraction = scaled % power;
+        if (fraction != 0) {
+            int digits = decimals;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            text.append('.');
+            for (long digit = POWERS[digits - 1]; digit > fraction; digit /= 10) {
+                text.append('0');
+            }
+            text.append(fraction);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mycompany.furniplanner.utils;
+
+import com.mycompany.furniplanner.render.Mesh;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Writes a SceneGeometry as Wavefront OBJ with a companion MTL file for the face colors.
+// OBJ cannot reference one mesh from several places, so every instance is written out
+// with its transform applied. Like GltfWriter the output is right-handed and in meters.
+// Numbers go through NumberText; String.format would dominate the time on large plans.
+public class ObjWriter {
+    private static final int FLUSH_CHARS = 64 * 1024;
+    private static final double METERS_PER_CM = 0.01;
+
+    private final StringBuilder text = new StringBuilder(FLUSH_CHARS + 1024);
+    private final ChannelWriter out;
+
+    private ObjWriter(ChannelWriter out) {
+        this.out = out;
+    }
+
+    // mtlName is the MTL file's name as the OBJ refers to it, next to the OBJ file
+    public static void write(SceneGeometry geometry, FileChannel objChannel, String mtlName, FileChannel mtlChannel)
+            throws IOException {
+        Set<Integer> colors = new LinkedHashSet<>();
+        ObjWriter obj = new ObjWriter(new ChannelWriter(objChannel));
+        obj.writeObj(geometry, mtlName, colors);
+
+        ObjWriter mtl = new ObjWriter(new ChannelWriter(mtlChannel));
+        mtl.writeMtl(colors);
+    }
+
+    private void writeObj(SceneGeometry geometry, String mtlName, Set<Integer> colors) throws IOException {
+        text.append("# 3D Furniture Planner scene\n");
+        text.append("mtllib ").append(mtlName).append('\n');
+
+        int vertexBase = 1;
+        int currentColor = 0;
+        boolean colorSet = false;
+        for (int i = 0; i < geometry.getInstanceCount(); i++) {
+            Mesh mesh = geometry.getMeshes().get(geometry.getMeshIndex(i));
+            text.append("o ").append(geometry.getName(i).replaceAll("\\s+", "_")).append('\n');
+
+            // The renderer turns by -rotation around y; z is then mirrored
+            double angle = -Math.toRadians(geometry.getRotationY(i));
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            double x = geometry.getX(i);
+            double y = geometry.getY(i);
+            double z = geometry.getZ(i);
+            for (int v = 0; v < mesh.getVertexCount(); v++) {
+                double worldX = x + mesh.x[v] * cos + mesh.z[v] * sin;
+                double worldZ = z - mesh.x[v] * sin + mesh.z[v] * cos;
+                text.append("v ");
+                appendNumber(worldX * METERS_PER_CM);
+                text.append(' ');
+                appendNumber((y + mesh.y[v]) * METERS_PER_CM);
+                text.append(' ');
+                appendNumber(-worldZ * METERS_PER_CM);
+                text.append('\n');
+                flushIfFull();
+            }
+
+            // Corners reversed, which undoes the mirror's flip of the winding
+            for (int f = 0; f < mesh.getFaceCount(); f++) {
+                int first = mesh.faceStart[f];
+                int last = mesh.faceStart[f + 1] - 1;
+                if (last - first < 2) {
+                    continue;
+                }
+                int color = mesh.faceColors[f].getRGB();
+                if (!colorSet || color != currentColor) {
+                    text.append("usemtl ").append(materialName(color)).append('\n');
+                    colors.add(color);
+                    currentColor = color;
+                    colorSet = true;
+                }
+                text.append('f');
+                for (int k = last; k >= first; k--) {
+                    text.append(' ').append(vertexBase + mesh.faceIndices[k]);
+                }
+                text.append('\n');
+                flushIfFull();
+            }
+            vertexBase += mesh.getVertexCount();
+        }
+        finish();
+    }
+
+    private void writeMtl(Set<Integer> colors) throws IOException {
+        text.append("# 3D Furniture Planner materials\n");
+        for (int argb : colors) {
+            Color color = new Color(argb, true);
+            text.append("\nnewmtl ").append(materialName(argb)).append('\n');
+            text.append("Kd ");
+            appendNumber(color.getRed() / 255.0);
+            text.append(' ');
+            appendNumber(color.getGreen() / 255.0);
+            text.append(' ');
+            appendNumber(color.getBlue() / 255.0);
+            text.append('\n');
+            if (color.getAlpha() < 255) {
+                text.append("d ");
+                appendNumber(color.getAlpha() / 255.0);
+                text.append('\n');
+            }
+        }
+        finish();
+    }
+
+    private static String materialName(int argb) {
+        String name = String.format("color_%06X", argb & 0xFFFFFF);
+        int alpha = argb >>> 24;
+        return alpha == 255 ? name : name + String.format("_%02X", alpha);
+    }
+
+    // Four decimals, a tenth of a millimeter in meters
+    private void appendNumber(double value) {
+        NumberText.append(text, value, 4);
+    }
+
+    private void flushIfFull() throws IOException {
+        if (text.length() >= FLUSH_CHARS) {
+            out.putAscii(text);
+            text.setLength(0);
+        }
+    }
+
+    private void finish() throws IOException {
+        out.putAscii(text);
+        text.setLength(0);
+        out.close();
+    }
+}
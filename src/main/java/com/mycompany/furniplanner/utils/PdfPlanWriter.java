@@ -0,0 +1,173 @@
+package com.mycompany.furniplanner.utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.Deflater;
+
+// Writes a PlanDrawing as a one-page PDF 1.4 at the drawing's scale, with no library:
+// a catalog, the page, its content stream and the built-in Helvetica font. The content is
+// deflated on its way to the channel and its length written afterwards as its own object,
+// and each object's byte offset is noted as it goes out for the cross-reference table,
+// so nothing but a buffer's worth of the file is ever held.
+public class PdfPlanWriter {
+    private static final int FLUSH_CHARS = 64 * 1024;
+    private static final double POINTS_PER_MM = 72 / 25.4;
+    private static final double LINE_MM = 0.25; // furniture outlines on paper
+    private static final double TEXT_MM = 3;
+    private static final int OBJECT_COUNT = 6;
+
+    private final StringBuilder text = new StringBuilder(FLUSH_CHARS + 1024);
+    private final ChannelWriter out;
+    private final long[] offsets = new long[OBJECT_COUNT + 1]; // by object number
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final byte[] compressed = new byte[FLUSH_CHARS];
+
+    private PdfPlanWriter(ChannelWriter out) {
+        this.out = out;
+    }
+
+    public static void write(PlanDrawing drawing, FileChannel channel) throws IOException {
+        PdfPlanWriter writer = new PdfPlanWriter(new ChannelWriter(channel));
+        try {
+            writer.write(drawing);
+        } finally {
+            writer.deflater.end();
+        }
+    }
+
+    private void write(PlanDrawing drawing) throws IOException {
+        int scale = drawing.getScale();
+        double pageWidth = drawing.getPaperWidth(scale) * POINTS_PER_MM;
+        double pageHeight = drawing.getPaperHeight(scale) * POINTS_PER_MM;
+
+        // The binary comment marks the file as binary for transfer tools
+        out.putAscii("%PDF-1.4\n%");
+        out.putByte(0xE2);
+        out.putByte(0xE3);
+        out.putByte(0xCF);
+        out.putByte(0xD3);
+        out.putAscii("\n");
+
+        startObject(1);
+        text.append("<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        startObject(2);
+        text.append("<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+        startObject(3);
+        text.append("<< /Type /Page /Parent 2 0 R /MediaBox [0 0 ");
+        NumberText.append(text, pageWidth, 2).append(' ');
+        NumberText.append(text, pageHeight, 2).append("] /Contents 4 0 R");
+        text.append(" /Resources << /Font << /F1 6 0 R >> >> >>\nendobj\n");
+        startObject(6);
+        text.append("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
+
+        startObject(4);
+        text.append("<< /Length 5 0 R /Filter /FlateDecode >>\nstream\n");
+        out.putAscii(text);
+        text.setLength(0);
+        long streamStart = out.position();
+        writeContent(drawing, scale);
+        long streamLength = out.position() - streamStart;
+        text.append("\nendstream\nendobj\n");
+
+        startObject(5);
+        text.append(streamLength).append("\nendobj\n");
+        out.putAscii(text);
+        text.setLength(0);
+
+        long xref = out.position();
+        text.append("xref\n0 ").append(OBJECT_COUNT + 1).append("\n0000000000 65535 f \n");
+        for (int i = 1; i <= OBJECT_COUNT; i++) {
+            String offset = Long.toString(offsets[i]);
+            text.append("0000000000", offset.length(), 10).append(offset).append(" 00000 n \n");
+        }
+        text.append("trailer\n<< /Size ").append(OBJECT_COUNT + 1).append(" /Root 1 0 R >>\n");
+        text.append("startxref\n").append(xref).append("\n%%EOF\n");
+        out.putAscii(text);
+        text.setLength(0);
+        out.close();
+    }
+
+    // Writes what is pending, then notes where the object starts
+    private void startObject(int number) throws IOException {
+        out.putAscii(text);
+        text.setLength(0);
+        offsets[number] = out.position();
+        text.append(number).append(" 0 obj\n");
+    }
+
+    // Page drawing in world cm, to the millimeter: the matrix maps cm onto points at the scale
+    private void writeContent(PlanDrawing drawing, int scale) throws IOException {
+        double cmPerPaperMm = scale / 10.0;
+        double margin = PlanDrawing.MARGIN_MM * cmPerPaperMm;
+        double pointsPerCm = POINTS_PER_MM / cmPerPaperMm;
+        double fontSize = TEXT_MM * cmPerPaperMm;
+
+        NumberText.append(text, pointsPerCm, 6).append(" 0 0 ");
+        NumberText.append(text, pointsPerCm, 6).append(' ');
+        NumberText.append(text, (margin - drawing.getMinX()) * pointsPerCm, 3).append(' ');
+        NumberText.append(text, (margin - drawing.getMinZ()) * pointsPerCm, 3).append(" cm\n");
+
+        text.append("0.25 g\n");
+        appendPath(drawing.getWalls());
+        text.append("f*\n");
+
+        text.append("0 G 1 j ");
+        NumberText.append(text, LINE_MM * cmPerPaperMm, 2).append(" w\n");
+        appendPath(drawing.getFurniture());
+        text.append("S\n");
+
+        // Helvetica's widths are not at hand; half an em per character centers labels closely enough
+        text.append("0 g\n");
+        for (PlanDrawing.Label label : drawing.getLabels()) {
+            appendText(label.text(), label.x() - label.text().length() * fontSize / 4, label.z() - fontSize / 3,
+                       fontSize);
+        }
+        appendText("Scale 1:" + scale, drawing.getMinX(), drawing.getMinZ() - margin * 2 / 3, fontSize);
+
+        deflate(true);
+    }
+
+    private void appendPath(List<PlanOutline> outlines) throws IOException {
+        for (PlanOutline outline : outlines) {
+            double[] points = outline.points();
+            for (int i = 0; i < outline.pointCount(); i++) {
+                NumberText.append(text, points[i * 2], 1).append(' ');
+                NumberText.append(text, points[i * 2 + 1], 1).append(i == 0 ? " m " : " l ");
+            }
+            text.append(outline.closed() ? "h\n" : "\n");
+            if (text.length() >= FLUSH_CHARS) {
+                deflate(false);
+            }
+        }
+    }
+
+    private void appendText(String value, double x, double y, double size) {
+        text.append("BT /F1 ");
+        NumberText.append(text, size, 1).append(" Tf ");
+        NumberText.append(text, x, 1).append(' ');
+        NumberText.append(text, y, 1).append(" Td (");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                text.append('\\');
+            }
+            text.append(c);
+        }
+        text.append(") Tj ET\n");
+    }
+
+    // Compresses the pending content straight into the file; the last call ends the stream
+    private void deflate(boolean finish) throws IOException {
+        deflater.setInput(text.toString().getBytes(StandardCharsets.US_ASCII));
+        text.setLength(0);
+        if (finish) {
+            deflater.finish();
+        }
+        while (finish ? !deflater.finished() : !deflater.needsInput()) {
+            int length = deflater.deflate(compressed);
+            out.putBytes(compressed, 0, length);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.mycompany.furniplanner.utils;
+
+import com.mycompany.furniplanner.model.FloorPlan;
+import com.mycompany.furniplanner.model.FurnitureStore;
+import com.mycompany.furniplanner.model.Room;
+
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The floor plan seen from straight above, as contractors work from it: walls as filled
+// bands, where rooms built against each other share one thick wall instead of two
+// outlines, furniture as the footprint of its Dimension3D turned by its rotation, and
+// one label per room. Coordinates are world x and z in cm; exporters put +z at the top,
+// the far side in the default view.
+public class PlanDrawing {
+    public static final double MARGIN_MM = 10;
+    private static final double SHEET_LONG_MM = 841; // A1
+    private static final double SHEET_SHORT_MM = 594;
+
+    public record Label(String text, double x, double z) {
+    }
+
+    private final List<PlanOutline> walls = new ArrayList<>();
+    private final List<Label> labels = new ArrayList<>();
+    private List<PlanOutline> furniture = List.of();
+    private int pieceCount;
+    private double minX = Double.POSITIVE_INFINITY;
+    private double minZ = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double maxZ = Double.NEGATIVE_INFINITY;
+
+    public static PlanDrawing fromFloorPlan(FloorPlan plan, double wallThickness) {
+        PlanDrawing drawing = new PlanDrawing();
+        EdgeMerger footprints = new EdgeMerger();
+        double[] corners = new double[8];
+        Area wallArea = new Area();
+
+        List<Room> rooms = plan.getRooms();
+        for (int r = 0; r < rooms.size(); r++) {
+            Room room = rooms.get(r);
+            double centerX = room.getOriginX();
+            double centerZ = room.getOriginZ();
+            double width = room.getWidth();
+            double length = room.getLength();
+            double innerWidth = width - wallThickness * 2;
+            double innerLength = length - wallThickness * 2;
+
+            Area band = new Area(new Rectangle2D.Double(centerX - width / 2, centerZ - length / 2, width, length));
+            if (innerWidth > 0 && innerLength > 0) {
+                band.subtract(new Area(new Rectangle2D.Double(centerX - innerWidth / 2, centerZ - innerLength / 2,
+                                                              innerWidth, innerLength)));
+            }
+            wallArea.add(band);
+            drawing.include(centerX - width / 2, centerZ - length / 2);
+            drawing.include(centerX + width / 2, centerZ + length / 2);
+
+            StringBuilder label = new StringBuilder("Room ").append(r + 1).append(": ");
+            NumberText.append(label, width / 100, 2).append(" x ");
+            NumberText.append(label, length / 100, 2).append(" m");
+            drawing.labels.add(new Label(label.toString(), centerX, centerZ));
+
+            // Turned the way the renderer turns the meshes
+            FurnitureStore store = room.getFurnitureStore();
+            double[] xs = store.xs(), zs = store.zs(), rotations = store.rotationsY();
+            double[] widths = store.widths(), lengths = store.lengths();
+            for (int slot = 0, n = store.size(); slot < n; slot++) {
+                double angle = -Math.toRadians(rotations[slot]);
+                double cos = Math.cos(angle);
+                double sin = Math.sin(angle);
+                double x = xs[slot] + store.getOriginX();
+                double z = zs[slot] + store.getOriginZ();
+                double halfWidth = widths[slot] / 2;
+                double halfLength = lengths[slot] / 2;
+                for (int c = 0; c < 4; c++) {
+                    double localX = c == 0 || c == 3 ? -halfWidth : halfWidth;
+                    double localZ = c < 2 ? -halfLength : halfLength;
+                    corners[c * 2] = x + localX * cos + localZ * sin;
+                    corners[c * 2 + 1] = z - localX * sin + localZ * cos;
+                    drawing.include(corners[c * 2], corners[c * 2 + 1]);
+                }
+                footprints.addPolygon(corners, 4);
+                drawing.pieceCount++;
+            }
+        }
+
+        drawing.addWallOutlines(wallArea);
+        drawing.furniture = footprints.build();
+        return drawing;
+    }
+
+    // The union's boundary: outer edges and the holes of the rooms, each a closed outline
+    private void addWallOutlines(Area wallArea) {
+        double[] coords = new double[6];
+        double[] points = new double[16];
+        int count = 0;
+        for (PathIterator it = wallArea.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            if (type == PathIterator.SEG_CLOSE) {
+                if (count > 2) {
+                    double[] outline = EdgeMerger.dropStraightPoints(points, count, true);
+                    if (outline.length >= 6) {
+                        walls.add(new PlanOutline(outline, true));
+                    }
+                }
+                count = 0;
+                continue;
+            }
+            if (type == PathIterator.SEG_MOVETO) {
+                count = 0;
+            }
+            if (count * 2 == points.length) {
+                points = Arrays.copyOf(points, points.length * 2);
+            }
+            points[count * 2] = coords[0];
+            points[count * 2 + 1] = coords[1];
+            count++;
+        }
+    }
+
+    private void include(double x, double z) {
+        minX = Math.min(minX, x);
+        minZ = Math.min(minZ, z);
+        maxX = Math.max(maxX, x);
+        maxZ = Math.max(maxZ, z);
+    }
+
+    // Most detailed of 1:50, 1:100, 1:200, 1:500, ... at which the plan fits an A1 sheet
+    // either way round; the page is then cut to the plan
+    public int getScale() {
+        double longSide = Math.max(maxX - minX, maxZ - minZ) * 10; // mm
+        double shortSide = Math.min(maxX - minX, maxZ - minZ) * 10;
+        for (int decade = 10; ; decade *= 10) {
+            for (int step : new int[]{5, 10, 20}) {
+                int scale = step * decade;
+                if (longSide / scale + MARGIN_MM * 2 <= SHEET_LONG_MM
+                        && shortSide / scale + MARGIN_MM * 2 <= SHEET_SHORT_MM) {
+                    return scale;
+                }
+            }
+        }
+    }
+
+    // Paper size at the given scale, margins included
+    public double getPaperWidth(int scale) {
+        return (maxX - minX) * 10 / scale + MARGIN_MM * 2;
+    }
+
+    public double getPaperHeight(int scale) {
+        return (maxZ - minZ) * 10 / scale + MARGIN_MM * 2;
+    }
+
+    public List<PlanOutline> getWalls() {
+        return walls;
+    }
+
+    public List<PlanOutline> getFurniture() {
+        return furniture;
+    }
+
+    public List<Label> getLabels() {
+        return labels;
+    }
+
+    public int getPieceCount() {
+        return pieceCount;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinZ() {
+        return minZ;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxZ() {
+        return maxZ;
+    }
+}
@@ -0,0 +1,10 @@
+package com.mycompany.furniplanner.utils;
+
+// A polyline of a top-down plan as x, z pairs in world cm. Closed outlines join their
+// last point back to the first, which is not repeated.
+public record PlanOutline(double[] points, boolean closed) {
+
+    public int pointCount() {
+        return points.length / 2;
+    }
+}
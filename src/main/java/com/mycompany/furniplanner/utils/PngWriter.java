@@ -0,0 +1,182 @@
+package com.mycompany.furniplanner.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// Writes an 8-bit RGB PNG from top to bottom, a few rows at a time, so an image can be
+// saved while it is still being drawn and never has to be held whole. Each row gets
+// whichever of the None, Sub and Up filters leaves the smallest sum of absolute byte
+// values, the usual cheap guess at what compresses best.
+public class PngWriter implements Closeable {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IDAT_SIZE = 64 * 1024; // Compressed bytes per IDAT chunk
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final DeflaterOutputStream image;
+    private int rowsWritten;
+
+    // Raw bytes of the previous and current row, and the current row under each filter
+    private byte[] previous;
+    private byte[] current;
+    private final byte[][] filtered = new byte[3][];
+
+    public PngWriter(OutputStream out, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive: " + width + "x" + height);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.width = width;
+        this.height = height;
+        this.image = new DeflaterOutputStream(new IdatOutputStream(), deflater, IDAT_SIZE);
+
+        int rowBytes = width * 3;
+        previous = new byte[rowBytes];
+        current = new byte[rowBytes];
+        for (int i = 0; i < filtered.length; i++) {
+            filtered[i] = new byte[rowBytes];
+        }
+
+        this.out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;  // Bits per sample
+        header[9] = 2;  // Color type: RGB
+        header[10] = 0; // Deflate
+        header[11] = 0; // Adaptive filtering
+        header[12] = 0; // Not interlaced
+        writeChunk("IHDR", header, header.length);
+    }
+
+    // Appends rows packed as 0xRRGGBB ints, scanline ints apart, starting at offset
+    public void writeRows(int[] rgb, int offset, int scanline, int rows) throws IOException {
+        if (rowsWritten + rows > height) {
+            throw new IllegalStateException("More rows than the image height " + height);
+        }
+        for (int row = 0; row < rows; row++) {
+            int start = offset + row * scanline;
+            for (int x = 0, b = 0; x < width; x++) {
+                int pixel = rgb[start + x];
+                current[b++] = (byte) (pixel >> 16);
+                current[b++] = (byte) (pixel >> 8);
+                current[b++] = (byte) pixel;
+            }
+            writeFilteredRow();
+
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+            rowsWritten++;
+        }
+    }
+
+    private void writeFilteredRow() throws IOException {
+        byte[] none = filtered[FILTER_NONE];
+        byte[] sub = filtered[FILTER_SUB];
+        byte[] up = filtered[FILTER_UP];
+        long noneSum = 0, subSum = 0, upSum = 0;
+        for (int i = 0; i < current.length; i++) {
+            int value = current[i];
+            none[i] = (byte) value;
+            sub[i] = (byte) (value - (i >= 3 ? current[i - 3] : 0));
+            up[i] = (byte) (value - previous[i]); // The row above the first one counts as zeros
+            noneSum += Math.abs(none[i]);
+            subSum += Math.abs(sub[i]);
+            upSum += Math.abs(up[i]);
+        }
+
+        int filter = FILTER_NONE;
+        if (subSum < noneSum && subSum <= upSum) {
+            filter = FILTER_SUB;
+        } else if (upSum < noneSum) {
+            filter = FILTER_UP;
+        }
+        image.write(filter);
+        image.write(filtered[filter]);
+    }
+
+    // Ends the image; every row must have been written
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowsWritten != height) {
+                throw new IOException("Image ended after " + rowsWritten + " of " + height + " rows");
+            }
+            image.finish();
+            image.flush();
+            writeChunk("IEND", new byte[0], 0);
+            out.flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    // Collects compressed image data and writes it out as IDAT chunks
+    private class IdatOutputStream extends OutputStream {
+        private final byte[] buffer = new byte[IDAT_SIZE];
+        private int count;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flush();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flush();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                writeChunk("IDAT", buffer, count);
+                count = 0;
+            }
+        }
+    }
+}
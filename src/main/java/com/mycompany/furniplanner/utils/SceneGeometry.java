@@ -0,0 +1,158 @@
+package com.mycompany.furniplanner.utils;
+
+import com.mycompany.furniplanner.model.FloorPlan;
+import com.mycompany.furniplanner.model.FurnitureStore;
+import com.mycompany.furniplanner.model.FurnitureType;
+import com.mycompany.furniplanner.model.Room;
+import com.mycompany.furniplanner.render.Mesh;
+import com.mycompany.furniplanner.render.MeshBuilder;
+import com.mycompany.furniplanner.render.PrimitiveMeshes;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Everything a scene export writes: the distinct meshes, and one instance per room and
+// piece of furniture that places a mesh with a position and a turn around Y. Pieces
+// drawn with the same mesh, such as 20 identical chairs, share one entry in meshes.
+// Coordinates are the app's own: world space in cm, y up, z away from the front view.
+public class SceneGeometry {
+    private final List<Mesh> meshes = new ArrayList<>();
+    private final Map<Mesh, Integer> meshIndices = new IdentityHashMap<>();
+
+    private int count;
+    private int[] instanceMeshes = new int[64];
+    private double[] instanceX = new double[64];
+    private double[] instanceY = new double[64];
+    private double[] instanceZ = new double[64];
+    private double[] instanceRotations = new double[64]; // degrees, as FurnitureStore keeps them
+    private String[] instanceNames = new String[64];
+
+    // Walls and floor of every room, then its furniture, as the canvas shows them
+    public static SceneGeometry fromFloorPlan(FloorPlan plan, double wallThickness, Color wallColor, Color floorColor) {
+        SceneGeometry geometry = new SceneGeometry();
+        FurnitureModelManager modelManager = FurnitureModelManager.getInstance();
+        PrimitiveMeshes primitiveMeshes = new PrimitiveMeshes();
+
+        List<Room> rooms = plan.getRooms();
+        for (int r = 0; r < rooms.size(); r++) {
+            Room room = rooms.get(r);
+            geometry.addInstance(buildRoomMesh(room, wallThickness, wallColor, floorColor),
+                                 room.getOriginX(), 0, room.getOriginZ(), 0, "Room " + (r + 1));
+
+            FurnitureStore store = room.getFurnitureStore();
+            for (int slot = 0; slot < store.size(); slot++) {
+                FurnitureType type = store.getType(slot);
+                Mesh mesh = modelManager.hasModel(type)
+                        ? modelManager.getModel(type).getMesh()
+                        : primitiveMeshes.getMesh(type, store.getDimension(slot));
+                geometry.addInstance(mesh, store.getX(slot) + store.getOriginX(), store.getY(slot),
+                                     store.getZ(slot) + store.getOriginZ(), store.getRotationY(slot),
+                                     store.getName(slot));
+            }
+        }
+        return geometry;
+    }
+
+    // Floor and thick walls in room-local coordinates, with the faces and winding Canvas3D draws
+    private static Mesh buildRoomMesh(Room room, double wallThickness, Color wallColor, Color floorColor) {
+        MeshBuilder builder = new MeshBuilder();
+        double width = room.getWidth();
+        double length = room.getLength();
+        double height = room.getHeight();
+        double innerWidth = width - wallThickness * 2;
+        double innerLength = length - wallThickness * 2;
+
+        int outerFloor = addRectangle(builder, width, length, 0);
+        int innerFloor = addRectangle(builder, innerWidth, innerLength, 0);
+        int outerTop = addRectangle(builder, width, length, height);
+        int innerTop = addRectangle(builder, innerWidth, innerLength, height);
+
+        builder.addFace(new int[]{innerFloor, innerFloor + 1, innerFloor + 2, innerFloor + 3}, floorColor, null, false);
+        for (int i = 0; i < 4; i++) {
+            int next = (i + 1) % 4;
+            builder.addFace(new int[]{outerFloor + i, outerFloor + next, outerTop + next, outerTop + i},
+                            wallColor, null, true);
+            builder.addFace(new int[]{innerFloor + next, innerFloor + i, innerTop + i, innerTop + next},
+                            wallColor.darker(), null, true);
+            builder.addFace(new int[]{outerTop + i, outerTop + next, innerTop + next, innerTop + i},
+                            wallColor.brighter(), null, true);
+            builder.addFace(new int[]{outerFloor + i, outerTop + i, innerTop + i, innerFloor + i},
+                            wallColor.darker().darker(), null, true);
+            builder.addFace(new int[]{outerFloor + next, innerFloor + next, innerTop + next, outerTop + next},
+                            wallColor.darker().darker(), null, true);
+        }
+        return builder.build();
+    }
+
+    // Corners in the order Canvas3D uses; returns the index of the first
+    private static int addRectangle(MeshBuilder builder, double width, double length, double y) {
+        int first = builder.addVertex(-width / 2, y, -length / 2);
+        builder.addVertex(-width / 2, y, length / 2);
+        builder.addVertex(width / 2, y, length / 2);
+        builder.addVertex(width / 2, y, -length / 2);
+        return first;
+    }
+
+    private void addInstance(Mesh mesh, double x, double y, double z, double rotationY, String name) {
+        Integer index = meshIndices.get(mesh);
+        if (index == null) {
+            index = meshes.size();
+            meshes.add(mesh);
+            meshIndices.put(mesh, index);
+        }
+
+        if (count == instanceMeshes.length) {
+            int capacity = count * 2;
+            instanceMeshes = Arrays.copyOf(instanceMeshes, capacity);
+            instanceX = Arrays.copyOf(instanceX, capacity);
+            instanceY = Arrays.copyOf(instanceY, capacity);
+            instanceZ = Arrays.copyOf(instanceZ, capacity);
+            instanceRotations = Arrays.copyOf(instanceRotations, capacity);
+            instanceNames = Arrays.copyOf(instanceNames, capacity);
+        }
+        instanceMeshes[count] = index;
+        instanceX[count] = x;
+        instanceY[count] = y;
+        instanceZ[count] = z;
+        instanceRotations[count] = rotationY;
+        instanceNames[count] = name;
+        count++;
+    }
+
+    public List<Mesh> getMeshes() {
+        return meshes;
+    }
+
+    public int getInstanceCount() {
+        return count;
+    }
+
+    public int getMeshIndex(int instance) {
+        return instanceMeshes[instance];
+    }
+
+    public double getX(int instance) {
+        return instanceX[instance];
+    }
+
+    public double getY(int instance) {
+        return instanceY[instance];
+    }
+
+    public double getZ(int instance) {
+        return instanceZ[instance];
+    }
+
+    // Degrees around Y; the renderer turns a mesh by -rotation in its own coordinates
+    public double getRotationY(int instance) {
+        return instanceRotations[instance];
+    }
+
+    public String getName(int instance) {
+        return instanceNames[instance];
+    }
+}
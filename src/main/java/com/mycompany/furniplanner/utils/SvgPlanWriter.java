@@ -0,0 +1,148 @@
+package com.mycompany.furniplanner.utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+// Writes a PlanDrawing as SVG that prints true to the drawing's scale. The view box is in
+// world cm with z flipped so +z is up, and coordinates are rounded to the millimeter.
+// Each layer is one path of relative moves, with h and v for the many straight edges,
+// which keeps plans with thousands of pieces small. Text is flushed in blocks as it is made.
+public class SvgPlanWriter {
+    private static final int FLUSH_CHARS = 64 * 1024;
+    private static final double LINE_MM = 0.25; // furniture outlines on paper
+    private static final double TEXT_MM = 3;
+
+    private final StringBuilder text = new StringBuilder(FLUSH_CHARS + 1024);
+    private final ChannelWriter out;
+
+    // Pen position in mm of world space, as the last path command left it
+    private long penX;
+    private long penY;
+
+    private SvgPlanWriter(ChannelWriter out) {
+        this.out = out;
+    }
+
+    public static void write(PlanDrawing drawing, FileChannel channel) throws IOException {
+        new SvgPlanWriter(new ChannelWriter(channel)).write(drawing);
+    }
+
+    private void write(PlanDrawing drawing) throws IOException {
+        int scale = drawing.getScale();
+        double cmPerPaperMm = scale / 10.0;
+        double margin = PlanDrawing.MARGIN_MM * cmPerPaperMm;
+        double left = drawing.getMinX() - margin;
+        double top = -drawing.getMaxZ() - margin;
+        double width = drawing.getMaxX() - drawing.getMinX() + margin * 2;
+        double height = drawing.getMaxZ() - drawing.getMinZ() + margin * 2;
+        double fontSize = TEXT_MM * cmPerPaperMm;
+
+        text.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        text.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        NumberText.append(text, drawing.getPaperWidth(scale), 2).append("mm\" height=\"");
+        NumberText.append(text, drawing.getPaperHeight(scale), 2).append("mm\" viewBox=\"");
+        NumberText.append(text, left, 1).append(' ');
+        NumberText.append(text, top, 1).append(' ');
+        NumberText.append(text, width, 1).append(' ');
+        NumberText.append(text, height, 1).append("\">\n");
+        text.append("<title>Floor plan 1:").append(scale).append("</title>\n");
+
+        text.append("<path fill=\"#404040\" fill-rule=\"evenodd\" d=\"");
+        appendPath(drawing.getWalls());
+        text.append("\"/>\n");
+
+        text.append("<path fill=\"none\" stroke=\"#000000\" stroke-linejoin=\"round\" stroke-width=\"");
+        NumberText.append(text, LINE_MM * cmPerPaperMm, 2).append("\" d=\"");
+        appendPath(drawing.getFurniture());
+        text.append("\"/>\n");
+
+        text.append("<g font-family=\"Helvetica, Arial, sans-serif\" font-size=\"");
+        NumberText.append(text, fontSize, 1).append("\" fill=\"#000000\">\n");
+        for (PlanDrawing.Label label : drawing.getLabels()) {
+            text.append("<text text-anchor=\"middle\" x=\"");
+            NumberText.append(text, label.x(), 1).append("\" y=\"");
+            NumberText.append(text, -label.z() + fontSize / 3, 1).append("\">");
+            appendEscaped(label.text());
+            text.append("</text>\n");
+        }
+        text.append("<text x=\"");
+        NumberText.append(text, left + margin, 1).append("\" y=\"");
+        NumberText.append(text, top + height - margin / 3, 1).append("\">Scale 1:").append(scale).append("</text>\n");
+        text.append("</g>\n</svg>\n");
+
+        out.putAscii(text);
+        text.setLength(0);
+        out.close();
+    }
+
+    // Every outline as a subpath, each point relative to the one before
+    private void appendPath(List<PlanOutline> outlines) throws IOException {
+        penX = 0;
+        penY = 0;
+        for (PlanOutline outline : outlines) {
+            double[] points = outline.points();
+            long startX = Math.round(points[0] * 10);
+            long startY = Math.round(-points[1] * 10);
+            text.append('m');
+            appendPair(startX - penX, startY - penY);
+            penX = startX;
+            penY = startY;
+
+            for (int i = 1; i < outline.pointCount(); i++) {
+                long x = Math.round(points[i * 2] * 10);
+                long y = Math.round(-points[i * 2 + 1] * 10);
+                if (x == penX && y == penY) {
+                    continue;
+                }
+                if (y == penY) {
+                    text.append('h');
+                    NumberText.appendScaled(text, x - penX, 1);
+                } else if (x == penX) {
+                    text.append('v');
+                    NumberText.appendScaled(text, y - penY, 1);
+                } else {
+                    text.append('l');
+                    appendPair(x - penX, y - penY);
+                }
+                penX = x;
+                penY = y;
+            }
+
+            // Closing returns the pen to the start of the subpath
+            if (outline.closed()) {
+                text.append('z');
+                penX = startX;
+                penY = startY;
+            }
+            if (text.length() >= FLUSH_CHARS) {
+                out.putAscii(text);
+                text.setLength(0);
+            }
+        }
+    }
+
+    // A minus sign separates numbers as well as a space does
+    private void appendPair(long x, long y) {
+        NumberText.appendScaled(text, x, 1);
+        if (y >= 0) {
+            text.append(' ');
+        }
+        NumberText.appendScaled(text, y, 1);
+    }
+
+    private void appendEscaped(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '&') {
+                text.append("&amp;");
+            } else if (c == '<') {
+                text.append("&lt;");
+            } else if (c == '>') {
+                text.append("&gt;");
+            } else {
+                text.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.mycompany.furniplanner.render;
+
+import com.mycompany.furniplanner.model.Dimension3D;
+import com.mycompany.furniplanner.model.Furniture;
+import com.mycompany.furniplanner.model.FurnitureStore;
+import com.mycompany.furniplanner.model.FurnitureType;
+import com.mycompany.furniplanner.model.Room;
+import com.mycompany.furniplanner.model.Vector3D;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Point;
+import java.awt.Polygon;
+import java.lang.management.ManagementFactory;
+
+// Measures the bytes allocated per frame by the projection and mesh path that replaced
+// Canvas3D.drawBox and FurnitureModel.drawFace: mesh lookup by Dimension3D, the instance
+// cache, the vertex stage and face submission, driven the way Canvas3D.transformMeshes
+// and drawFurniture drive them. Also measures Vector3D face math in the style of the old
+// drawFace, which allocates nothing once C2 scalar-replaces the records. For the before
+// side, the old Canvas3D.drawBox is replayed as it was before the mesh path replaced it.
+// Only the calling thread is counted, so the scene stays below the vertex stage's
+// parallel threshold.
+//
+// Not a unit test; run after mvn test-compile with
+//   java -cp target/classes:target/test-classes com.mycompany.furniplanner.render.MeshPathAllocation [pieces]
+public class MeshPathAllocation {
+    private static final int WARMUP_FRAMES = 20000;
+    private static final int MEASURED_FRAMES = 2000;
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 800;
+    private static final Color BOX_COLOR = new Color(139, 69, 19);
+    
+    private final FurnitureStore store;
+    private final PrimitiveMeshes primitiveMeshes = new PrimitiveMeshes();
+    private final InstanceCache instanceCache = new InstanceCache();
+    private final VertexTransformStage transformStage = new VertexTransformStage();
+    private final CountingBackend backend = new CountingBackend();
+    private InstanceCache.Entry[] entries;
+    private int[] offsets;
+    private double sink; // keeps the Vector3D results alive
+    private final double[] legacyDepths = new double[4];
+    
+    private MeshPathAllocation(int pieces) {
+        Room room = new Room(1500, 1500, 250);
+        FurnitureType[] types = FurnitureType.values();
+        for (int i = 0; i < pieces; i++) {
+            FurnitureType type = types[i % types.length];
+            Furniture furniture = new Furniture(type.name(), type, new Vector3D(-600 + (i % 30) * 40, 0, -600 + (i / 30) * 40));
+            furniture.setRotation(new Vector3D(0, (i * 37) % 360, 0));
+            room.addFurniture(furniture);
+        }
+        store = room.getFurnitureStore();
+        entries = new InstanceCache.Entry[pieces];
+        offsets = new int[pieces];
+    }
+    
+    public static void main(String[] args) {
+        int pieces = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+        MeshPathAllocation benchmark = new MeshPathAllocation(pieces);
+        
+        report("Old drawBox path, still camera", pieces, benchmark::legacyFrame);
+        report("Mesh path, still camera", pieces, benchmark::stillFrame);
+        report("Mesh path, orbiting camera", pieces, benchmark::orbitFrame);
+        report("Vector3D face math", pieces, benchmark::vectorFrame);
+        System.out.println("Faces submitted: " + benchmark.backend.polygons + ", sink " + benchmark.sink);
+    }
+    
+    private static void report(String name, int pieces, FrameTask task) {
+        for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            task.run(frame);
+        }
+        
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int frame = 0; frame < MEASURED_FRAMES; frame++) {
+            task.run(WARMUP_FRAMES + frame);
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        
+        System.out.println(String.format("%s: %d pieces, %.1f bytes/frame, %.3f ms/frame",
+                name, pieces, (double) bytes / MEASURED_FRAMES, nanos / 1e6 / MEASURED_FRAMES));
+    }
+    
+    private void stillFrame(int frame) {
+        drawFrame(0.4, 0.6);
+    }
+    
+    // Every frame turns the camera, so every cache entry is brought up to date as while orbiting
+    private void orbitFrame(int frame) {
+        drawFrame(0.4, (frame % 720) * 0.5);
+    }
+    
+    private void drawFrame(double rotX, double rotY) {
+        Projection projection = new Projection(rotX, rotY, 1.0, WIDTH, HEIGHT);
+        instanceCache.beginFrame(rotX, rotY);
+        transformStage.clear();
+        for (int slot = 0, n = store.size(); slot < n; slot++) {
+            Mesh mesh = primitiveMeshes.getMesh(store.getType(slot), store.getDimension(slot));
+            InstanceCache.Entry entry = instanceCache.getEntry(mesh, store.getRotationY(slot), projection);
+            entries[slot] = entry;
+            offsets[slot] = transformStage.addInstance(entry, store.getX(slot), store.getY(slot), store.getZ(slot));
+        }
+        
+        ProjectedVertices projected = transformStage.run(projection);
+        backend.beginFrame(null, WIDTH, HEIGHT);
+        for (int slot = 0, n = store.size(); slot < n; slot++) {
+            instanceCache.draw(backend, entries[slot], projected, offsets[slot]);
+        }
+        backend.endFrame();
+    }
+    
+    // The pre-series drawing: one drawBox call per six faces of the piece's mesh, so both
+    // paths draw about the same number of faces
+    private void legacyFrame(int frame) {
+        for (int slot = 0, n = store.size(); slot < n; slot++) {
+            Mesh mesh = primitiveMeshes.getMesh(store.getType(slot), store.getDimension(slot));
+            Dimension3D size = store.getDimension(slot);
+            for (int box = Math.max(1, mesh.getFaceCount() / 6); box > 0; box--) {
+                legacyBox(store.getPosition(slot), size.getWidth(), size.getHeight(), size.getLength(), BOX_COLOR,
+                          0.4, 0.6, 1.0);
+            }
+        }
+    }
+    
+    // Canvas3D.drawBox before the mesh path, submitting to the counting backend instead
+    // of filling and outlining the polygon on a Graphics2D
+    private void legacyBox(Vector3D position, double width, double height, double depth, Color color,
+                           double rotX, double rotY, double zoom) {
+        // Calculate vertices for a box centered at position
+        Vector3D[] vertices = new Vector3D[8];
+        vertices[0] = new Vector3D(position.getX() - width/2, position.getY() - height/2, position.getZ() - depth/2);
+        vertices[1] = new Vector3D(position.getX() - width/2, position.getY() - height/2, position.getZ() + depth/2);
+        vertices[2] = new Vector3D(position.getX() + width/2, position.getY() - height/2, position.getZ() + depth/2);
+        vertices[3] = new Vector3D(position.getX() + width/2, position.getY() - height/2, position.getZ() - depth/2);
+        vertices[4] = new Vector3D(position.getX() - width/2, position.getY() + height/2, position.getZ() - depth/2);
+        vertices[5] = new Vector3D(position.getX() - width/2, position.getY() + height/2, position.getZ() + depth/2);
+        vertices[6] = new Vector3D(position.getX() + width/2, position.getY() + height/2, position.getZ() + depth/2);
+        vertices[7] = new Vector3D(position.getX() + width/2, position.getY() + height/2, position.getZ() - depth/2);
+        
+        int[][] faces = {
+            {0, 1, 2, 3},  // Bottom face
+            {4, 5, 6, 7},  // Top face
+            {0, 1, 5, 4},  // Left face
+            {1, 2, 6, 5},  // Front face
+            {2, 3, 7, 6},  // Right face
+            {3, 0, 4, 7}   // Back face
+        };
+        Color[] faceColors = {
+            color.darker(), color, color.darker(), color, color.darker(), color
+        };
+        
+        Vector3D viewDir = new Vector3D(
+            -Math.sin(rotY) * Math.cos(rotX),
+            -Math.sin(rotX),
+            -Math.cos(rotY) * Math.cos(rotX)
+        );
+        
+        for (int i = 0; i < faces.length; i++) {
+            int[] face = faces[i];
+            Vector3D edge1 = vertices[face[1]].subtract(vertices[face[0]]);
+            Vector3D edge2 = vertices[face[3]].subtract(vertices[face[0]]);
+            Vector3D normal = edge1.cross(edge2).normalize();
+            
+            if (normal.dot(viewDir) < 0) {
+                Polygon poly = new Polygon();
+                for (int j = 0; j < 4; j++) {
+                    Point p = legacyWorldToScreen(vertices[face[j]], rotX, rotY, zoom);
+                    poly.addPoint(p.x, p.y);
+                }
+                
+                double lightIntensity = Math.max(0.3, -normal.dot(new Vector3D(0.5, -1, 0.5).normalize()));
+                Color shadedColor = legacyShadeColor(faceColors[i], lightIntensity);
+                backend.fillPolygon(poly.xpoints, poly.ypoints, legacyDepths, poly.npoints, shadedColor, Color.DARK_GRAY);
+            }
+        }
+    }
+    
+    private static Point legacyWorldToScreen(Vector3D worldPos, double rotX, double rotY, double zoom) {
+        double x = worldPos.getX();
+        double y = worldPos.getY();
+        double z = worldPos.getZ();
+        
+        double tempX = x * Math.cos(rotY) + z * Math.sin(rotY);
+        double tempZ = -x * Math.sin(rotY) + z * Math.cos(rotY);
+        double tempY = y * Math.cos(rotX) + tempZ * Math.sin(rotX);
+        tempZ = -y * Math.sin(rotX) + tempZ * Math.cos(rotX);
+        
+        double scale = zoom * 800 / (1200 + tempZ);
+        return new Point((int)(WIDTH / 2 + tempX * scale), (int)(HEIGHT / 2 - tempY * scale));
+    }
+    
+    private static Color legacyShadeColor(Color baseColor, double intensity) {
+        int r = Math.min(255, Math.max(0, (int)(baseColor.getRed() * intensity)));
+        int g = Math.min(255, Math.max(0, (int)(baseColor.getGreen() * intensity)));
+        int b = Math.min(255, Math.max(0, (int)(baseColor.getBlue() * intensity)));
+        return new Color(r, g, b);
+    }
+    
+    // Shading of the top face of every piece as drawFace did it, one temporary per step
+    private void vectorFrame(int frame) {
+        Vector3D light = new Vector3D(0.5, -1, 0.5).normalize();
+        for (int slot = 0, n = store.size(); slot < n; slot++) {
+            Dimension3D size = store.getDimension(slot);
+            Vector3D position = store.getPosition(slot);
+            Vector3D a = position.add(new Vector3D(0, size.getHeight(), 0));
+            Vector3D b = a.add(new Vector3D(size.getWidth(), 0, 0));
+            Vector3D c = a.add(new Vector3D(0, 0, size.getLength()));
+            Vector3D normal = b.subtract(a).cross(c.subtract(a)).normalize();
+            sink += Math.max(0, normal.dot(light));
+        }
+    }
+    
+    private interface FrameTask {
+        void run(int frame);
+    }
+    
+    // Accepts faces without drawing them, so only the drawing path's own allocation is counted
+    private static class CountingBackend implements RenderBackend {
+        long polygons;
+        
+        @Override
+        public void beginFrame(Graphics2D g2d, int width, int height) {
+        }
+        
+        @Override
+        public void fillPolygon(int[] xs, int[] ys, double[] inverseDepths, int count, Paint fill, Color outline) {
+            polygons++;
+        }
+        
+        @Override
+        public void flush() {
+        }
+        
+        @Override
+        public void endFrame() {
+        }
+        
+        @Override
+        public boolean requiresDepthSort() {
+            return true;
+        }
+    }
+}